@@ -1,5 +1,10 @@
 package actor;
 
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
+
+import java.io.IOException;
+
 /**
  * Tracks the warm-up and cool-down states for an individual actor. Most actions have an associated
  * warm-up cost that represents how long it takes to perform that action. Many actions also have a
@@ -42,6 +47,16 @@ class ActionTimer {
   }
 
 
+  /**
+   * Equivalent to calling {@code decrementClock()} the given number of times.
+   */
+  void decrementClock(int beats) {
+    final int fromCoolDown = Math.min(beats, actionCoolDown);
+    actionCoolDown -= fromCoolDown;
+    actionWarmUp = Math.max(0, actionWarmUp - (beats - fromCoolDown));
+  }
+
+
   /**
    * Sets your warm-up timer to zero, to be used when the action for which we are warming up has
    * been cancelled prior to its performance. Without this method, you would incur an
@@ -67,4 +82,16 @@ class ActionTimer {
   public int getTotalDelay() {
     return actionWarmUp + actionCoolDown;
   }
+
+
+  void writeTo(SnapshotWriter out) throws IOException {
+    out.writeInt(actionWarmUp);
+    out.writeInt(actionCoolDown);
+  }
+
+
+  void readFrom(SnapshotReader in) throws IOException {
+    actionWarmUp = in.readInt();
+    actionCoolDown = in.readInt();
+  }
 }
\ No newline at end of file
@@ -13,11 +13,17 @@ import game.physical.Physical;
 import game.physical.PhysicalFlag;
 import thing.Thing;
 import thing.ThingFactory;
+import utils.RandomStream;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
 import world.Coordinate;
 
 import java.awt.Color;
+import java.io.IOException;
+import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.Map;
+import java.util.SplittableRandom;
 
 /**
  * Actors are subjects. They represent animate beings and characters in the world, as opposed to
@@ -29,26 +35,30 @@ public class Actor extends Physical {
   private static final EnumSet<PhysicalFlag> STANDARD_FLAGS =
       EnumSet.of(PhysicalFlag.BLOCKING, PhysicalFlag.IMMOVABLE);
 
+  private final ActorTemplate template;
   private final Map<Attribute, Rank> attributes;
   private final Health health;
   private final ActionTimer actionTimer;
 
   private final Inventory inventory;
   private final Thing naturalWeapon;
+  private final RandomStream random;
 
   private ActorObserver actorObserver;
 
   private Coordinate coordinate;
-  private Direction facing = Direction.getRandom();
+  private Direction facing;
   private Action action;
 
   private Thing equippedWeapon;
 
 
   /**
-   * Constructs an actor from the given template, and includes any flags in STANDARD_FLAGS.
+   * Constructs an actor from the given template, and includes any flags in STANDARD_FLAGS. The
+   * actor's starting state is rolled from the given stream, which then seeds the stream the actor
+   * keeps for everything it does.
    */
-  Actor(ActorTemplate aT) {
+  Actor(ActorTemplate aT, SplittableRandom random) {
     super(aT.name, aT.appearance);
 
     // Add standard actor flags and template-specific flags.
@@ -59,11 +69,125 @@ public class Actor extends Physical {
     }
 
     // Construct components.
-    attributes = ActorFactory.makeAttributeMap(aT);
+    this.template = aT;
+    attributes = ActorFactory.makeAttributeMap(aT, random);
     health = new Health(this);
     inventory = new Inventory();
-    naturalWeapon = ThingFactory.makeThing(aT.naturalWeaponID);
+    naturalWeapon = ThingFactory.makeThing(aT.naturalWeaponID, random);
     actionTimer = new ActionTimer();
+    facing = Direction.getRandom(random);
+    this.random = new RandomStream(random.nextLong());
+  }
+
+
+  /**
+   * Reads an actor written by {@code writeTo()}, made from the given template. Its holdings and
+   * action are read separately, once everything they might refer to has been read.
+   */
+  Actor(ActorTemplate aT, SnapshotReader in) throws IOException {
+    super(aT.name, aT.appearance);
+    in.register(this);
+
+    this.template = aT;
+    random = new RandomStream(0);
+    random.readFrom(in);
+
+    attributes = new EnumMap<>(Attribute.class);
+    final Rank[] ranks = Rank.values();
+    for (Attribute attribute : Attribute.values()) {
+      attributes.put(attribute, ranks[in.readByte()]);
+    }
+
+    final long flagBits = in.readLong();
+    for (PhysicalFlag flag : PhysicalFlag.values()) {
+      if ((flagBits & (1L << flag.ordinal())) != 0) {
+        addFlag(flag);
+      }
+    }
+
+    health = new Health(this);
+    health.readFrom(in);
+    actionTimer = new ActionTimer();
+    actionTimer.readFrom(in);
+
+    if (in.readBoolean()) {
+      coordinate = new Coordinate(in.readInt(), in.readInt());
+    }
+    facing = Direction.values()[in.readByte()];
+
+    inventory = new Inventory();
+    naturalWeapon = ThingFactory.readThing(in);
+  }
+
+
+  /**
+   * Writes this actor's own state, and registers it so that whatever is written after it can refer
+   * to it. Its random stream is written where it stands, so that any game loaded from the snapshot
+   * goes on to draw the same numbers as the running game.
+   */
+  public final void writeTo(SnapshotWriter out) throws IOException {
+    out.register(this);
+    out.writeName(template.id);
+
+    random.writeTo(out);
+
+    for (Attribute attribute : Attribute.values()) {
+      out.writeByte(attributes.get(attribute).ordinal());
+    }
+
+    long flagBits = 0;
+    for (PhysicalFlag flag : PhysicalFlag.values()) {
+      if (hasFlag(flag)) {
+        flagBits |= 1L << flag.ordinal();
+      }
+    }
+    out.writeLong(flagBits);
+
+    health.writeTo(out);
+    actionTimer.writeTo(out);
+
+    out.writeBoolean(coordinate != null);
+    if (coordinate != null) {
+      out.writeInt(coordinate.globalX);
+      out.writeInt(coordinate.globalY);
+    }
+    out.writeByte(facing.ordinal());
+
+    ThingFactory.writeThing(out, naturalWeapon);
+  }
+
+
+  /**
+   * Writes what this actor carries and wields. Written after every actor and area, since those are
+   * what the things it holds may refer to.
+   */
+  public final void writeHoldingsTo(SnapshotWriter out) throws IOException {
+    inventory.writeTo(out);
+    out.writeReference(out.isRegistered(equippedWeapon) ? equippedWeapon : null);
+  }
+
+
+  public final void readHoldingsFrom(SnapshotReader in) throws IOException {
+    inventory.readFrom(in);
+    equippedWeapon = in.readReference(Thing.class);
+  }
+
+
+  /**
+   * Writes this actor's queued action, if there is one that can be written. Written last, since an
+   * action may refer to anything in the world.
+   */
+  public final void writeActionTo(SnapshotWriter out) throws IOException {
+    Action.writeAction(out, action);
+  }
+
+
+  /**
+   * Puts back the action read, without adding to the timer again, since the timer was read as it
+   * stood.
+   */
+  public final void readActionFrom(SnapshotReader in) throws IOException {
+    action = Action.readAction(in, this);
   }
 
 
@@ -165,6 +289,16 @@ public class Actor extends Physical {
   }
 
 
+  /**
+   * Spends the given number of turns towards this actor's warm-up and cool-down time at once. Used
+   * in place of calling {@code onUpdate()} for turns that were skipped because they would have done
+   * nothing else.
+   */
+  public final void skipTurns(int turns) {
+    actionTimer.decrementClock(turns);
+  }
+
+
   /**
    * @return This actor's rank in the given attribute.
    */
@@ -173,6 +307,15 @@ public class Actor extends Physical {
   }
 
 
+  /**
+   * @return This actor's own random stream. Only whatever is acting for or on this actor should
+   * draw from it.
+   */
+  public final RandomStream getRandom() {
+    return random;
+  }
+
+
   /**
    * @return This actor's health component.
    */
@@ -3,26 +3,49 @@ package actor;
 import actor.attribute.Attribute;
 import actor.attribute.AttributeRange;
 import actor.attribute.Rank;
-import game.Game;
 import game.io.GameResources;
+import utils.SnapshotReader;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.SplittableRandom;
 
 public class ActorFactory {
 
-  public static Actor makeActor(String actorTemplateID) {
-    return new Actor(GameResources.getActorTemplateByID(actorTemplateID));
+  /**
+   * Makes an actor from the given template. The actor's attributes and starting gear are rolled
+   * from the given stream, which then seeds the stream the actor draws from for the rest of its
+   * life.
+   */
+  public static Actor makeActor(String actorTemplateID, SplittableRandom random) {
+    return new Actor(GameResources.getActorTemplateByID(actorTemplateID), random);
   }
 
 
-  static Map<Attribute, Rank> makeAttributeMap(ActorTemplate actorTemplate) {
+  /**
+   * Reads an actor written by {@code Actor.writeTo()}.
+   *
+   * @throws IOException If the actor's template is not among those loaded.
+   */
+  public static Actor readActor(SnapshotReader in) throws IOException {
+    final String templateID = in.readName();
+    final ActorTemplate template = GameResources.getActorTemplateByID(templateID);
+    if (template == null) {
+      throw new IOException("Unknown actor template: " + templateID);
+    }
+    return new Actor(template, in);
+  }
+
+
+  static Map<Attribute, Rank> makeAttributeMap(ActorTemplate actorTemplate,
+      SplittableRandom random) {
 
     Map<Attribute, Rank> attributes = new HashMap<>();
 
     for (Attribute attribute : Attribute.values()) {
       AttributeRange attributeRange = actorTemplate.baseAttributeRanges.get(attribute.ordinal());
-      attributes.put(attribute, attributeRange.getRandomWithin(Game.RANDOM));
+      attributes.put(attribute, attributeRange.getRandomWithin(random));
     }
 
     return attributes;
@@ -12,6 +12,7 @@ import java.util.List;
  */
 public class ActorTemplate {
 
+  final String id;
   final String name;
   final Appearance appearance;
   final EnumSet<PhysicalFlag> flags;
@@ -19,8 +20,9 @@ public class ActorTemplate {
   final String naturalWeaponID;
 
 
-  public ActorTemplate(String name, Appearance appearance, EnumSet<PhysicalFlag> flags,
+  public ActorTemplate(String id, String name, Appearance appearance, EnumSet<PhysicalFlag> flags,
       List<AttributeRange> baseAttributeRanges, String naturalWeaponID) {
+    this.id = id;
     this.name = name;
     this.appearance = appearance;
     this.flags = flags;
@@ -9,6 +9,56 @@ import world.MapCoordinate;
  */
 public class Perception {
 
+  // Ranges by rank, worked out once, since they are asked for whenever anything nearby moves.
+  private static final int[] VISION_RANGES = new int[Rank.values().length];
+  private static final int[] HEARING_RANGES = new int[Rank.values().length];
+  private static final int[] SENSE_RANGES = new int[Rank.values().length];
+
+  /**
+   * The furthest any actor can see or hear, whatever its rank.
+   */
+  public static final int MAX_SENSE_RANGE;
+
+  static {
+    int maxSenseRange = 0;
+
+    for (Rank rank : Rank.values()) {
+      final int i = rank.ordinal();
+      VISION_RANGES[i] = rank.ordinal() * 2;
+      HEARING_RANGES[i] = rank.ordinal();
+      SENSE_RANGES[i] = Math.max(VISION_RANGES[i], HEARING_RANGES[i]);
+      maxSenseRange = Math.max(maxSenseRange, SENSE_RANGES[i]);
+    }
+
+    MAX_SENSE_RANGE = maxSenseRange;
+  }
+
+
+  /**
+   * @return How many squares' distance an actor with the given {@code perceptionRank} can see.
+   */
+  public static int getVisionRange(Rank perceptionRank) {
+    return VISION_RANGES[perceptionRank.ordinal()];
+  }
+
+
+  /**
+   * @return How many squares' distance an actor with the given {@code perceptionRank} can hear.
+   */
+  public static int getHearingRange(Rank perceptionRank) {
+    return HEARING_RANGES[perceptionRank.ordinal()];
+  }
+
+
+  /**
+   * @return How many squares' distance an actor with the given {@code perceptionRank} can sense
+   * anything at all, by either sight or hearing.
+   */
+  public static int getSenseRange(Rank perceptionRank) {
+    return SENSE_RANGES[perceptionRank.ordinal()];
+  }
+
+
   /**
    * Evaluates whether or not coordinate {@code to} can be seen from coordinate {@code from} by an
    * actor with the given {@code perceptionRank} facing direction {@code currentFacing}. For each
@@ -17,7 +67,7 @@ public class Perception {
   public static boolean getCanSeeLocation(Rank perceptionRank, Direction currentFacing,
       Coordinate from, Coordinate to) {
 
-    final int visionRange = perceptionRank.ordinal() * 2;
+    final int visionRange = getVisionRange(perceptionRank);
     final int globalDistance = from.getDistance(to);
 
     if (globalDistance <= visionRange) {
@@ -42,7 +92,7 @@ public class Perception {
    */
   public static boolean getCanHearLocation(Rank perceptionRank, Coordinate from, Coordinate to) {
 
-    final int hearingRange = perceptionRank.ordinal();
+    final int hearingRange = getHearingRange(perceptionRank);
     final int globalDistance = from.getDistance(to);
 
     return (globalDistance <= hearingRange);
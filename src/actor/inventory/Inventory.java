@@ -1,7 +1,11 @@
 package actor.inventory;
 
 import game.physical.Physical;
+import thing.ThingFactory;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -39,6 +43,31 @@ public class Inventory {
   }
 
 
+  /**
+   * Writes every physical carried, in order. Carried things are written in full, and the bodies of
+   * actors referred to.
+   */
+  public void writeTo(SnapshotWriter out) throws IOException {
+
+    out.writeInt(itemsHeld.size());
+
+    for (Physical item : itemsHeld) {
+      ThingFactory.writePhysical(out, item);
+    }
+  }
+
+
+  public void readFrom(SnapshotReader in) throws IOException {
+
+    itemsHeld.clear();
+
+    final int count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      itemsHeld.add(ThingFactory.readPhysical(in));
+    }
+  }
+
+
   /**
    * @return A new List containing all Physicals carried in this inventory. Modifications to this
    * List will not affect the actual contents of the Inventory.
@@ -5,6 +5,10 @@ import actor.attribute.Attribute;
 import game.io.display.Event;
 import game.io.display.EventLog;
 import game.physical.PhysicalFlag;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
+
+import java.io.IOException;
 
 /**
  * Defines how much damage an actor can take before dying and how tracks how much damage an actor
@@ -85,6 +89,18 @@ public class Health {
     return maximum;
   }
 
+  /**
+   * Only the current health is written, since the maximum follows from the actor's attributes.
+   */
+  public void writeTo(SnapshotWriter out) throws IOException {
+    out.writeInt(current);
+  }
+
+
+  public void readFrom(SnapshotReader in) throws IOException {
+    current = in.readInt();
+  }
+
   /**
    * @return A value between 0.0 and 1.0 that is equal to current health divided by maximum health.
    */
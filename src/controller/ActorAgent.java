@@ -4,7 +4,6 @@ import actor.Actor;
 import actor.attribute.Attribute;
 import controller.action.Action;
 import game.Executor;
-import game.Game;
 
 /**
  *
@@ -45,6 +44,33 @@ public abstract class ActorAgent implements Controller, ActorObserver {
   }
 
 
+  /**
+   * Actors that are waiting on their action timer can sleep until their last beat of waiting, but
+   * only if their agent ignores the turns spent waiting.
+   */
+  @Override
+  public int getTurnsToSleep() {
+    if (!getIsPassiveWhileBusy()) {
+      return 0;
+    }
+    return Math.max(0, actor.getTotalActionDelay() - 1);
+  }
+
+
+  @Override
+  public void wake(int turnsSlept) {
+    actor.skipTurns(turnsSlept);
+  }
+
+
+  /**
+   * @return {@code true} if this agent does nothing on turns where its actor is not free to act.
+   */
+  protected boolean getIsPassiveWhileBusy() {
+    return false;
+  }
+
+
   @Override
   public final boolean getIsStillRunning() {
     return connected;
@@ -52,8 +78,8 @@ public abstract class ActorAgent implements Controller, ActorObserver {
 
 
   @Override
-  public Integer getRolledInitiative() {
-    return Game.RANDOM.nextInt(actor.getAttributeRank(Attribute.REFLEX).ordinal());
+  public int getRolledInitiative() {
+    return actor.getRandom().nextInt(actor.getAttributeRank(Attribute.REFLEX).ordinal());
   }
 
 
@@ -14,6 +14,12 @@ public interface ActorObserver {
 
   default void onVictimized(Actor attacker) { }
 
+  /**
+   * Called when another actor close enough to be seen or heard moves or attacks. Whether it
+   * actually can be seen or heard from here is left to the observer.
+   */
+  default void onSensoryEvent(Actor source) { }
+
   default void disconnectActorObserver() {
     throw new IllegalStateException("Does not implement disconnect.");
   }
@@ -20,14 +20,30 @@ public interface Controller {
 
   /**
    * Called between frames, after the current update() has finished. Determines the order in which
-   * Controllers will have onUpdate() called for the next frame--higher returns go first. Should not
+   * Controllers will have onUpdate() called for the next frame--lower returns go first. Should not
    * return the same value every time its called, unless we're intentionally forcing this controller
-   * to be called first or last in the order every time.
+   * to be called first or last in the order every time. Returns should fall between zero and the
+   * number of attribute ranks; anything outside that is clamped.
    */
-  default Integer getRolledInitiative() {
+  default int getRolledInitiative() {
     return 0;
   }
 
+  /**
+   * Called after onUpdate(). Returns how many of this controller's following turns are guaranteed
+   * to do nothing but count down, so that they can be skipped. The skipped turns are handed back
+   * all at once through wake(), either when they are up or when something needs this controller
+   * to be current sooner. Controllers that must see every turn should return 0.
+   */
+  default int getTurnsToSleep() {
+    return 0;
+  }
+
+  /**
+   * Called when this controller stops sleeping, with the number of turns that were skipped.
+   */
+  default void wake(int turnsSlept) { }
+
   /**
    * Non-local controllers should return null.
    */
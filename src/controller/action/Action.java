@@ -1,10 +1,15 @@
 package controller.action;
 
 import actor.Actor;
+import game.Direction;
+import game.physical.Physical;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
 import world.Coordinate;
 import world.World;
 
 import java.awt.Color;
+import java.io.IOException;
 import java.util.EnumSet;
 
 /**
@@ -17,6 +22,16 @@ import java.util.EnumSet;
  */
 public abstract class Action {
 
+  // Tags identifying each kind of action in a snapshot.
+  private static final int SNAPSHOT_NONE = 0;
+  static final int SNAPSHOT_MOVING = 1;
+  static final int SNAPSHOT_TURNING = 2;
+  static final int SNAPSHOT_TURN_THEN_MOVE = 3;
+  static final int SNAPSHOT_ATTACKING = 4;
+  static final int SNAPSHOT_EQUIP_WEAPON = 5;
+  static final int SNAPSHOT_PICKING_UP = 6;
+  static final int SNAPSHOT_PLACING = 7;
+
   private final Actor actor;
   private final Coordinate origin;
   private final Coordinate target;
@@ -104,6 +119,117 @@ public abstract class Action {
   }
 
 
+  /**
+   * Writes the given queued action, or null, as its kind, its flags and whatever it was made with,
+   * so that {@code readAction()} can make it again for the same actor. An action that refers to
+   * something left out of the snapshot is written as null, and so dropped.
+   */
+  public static void writeAction(SnapshotWriter out, Action action) throws IOException {
+    if (action == null || !action.getIsWritable(out)) {
+      out.writeByte(SNAPSHOT_NONE);
+      return;
+    }
+
+    out.writeByte(action.getSnapshotTag());
+
+    int flagBits = 0;
+    for (ActionFlag flag : action.flags) {
+      flagBits |= 1 << flag.ordinal();
+    }
+    out.writeByte(flagBits);
+
+    action.writeParameters(out);
+  }
+
+
+  /**
+   * Reads back an action written by {@code writeAction()}, for the given actor, who must already be
+   * back where they were when it was written.
+   *
+   * @return The action, or null if none was written.
+   */
+  public static Action readAction(SnapshotReader in, Actor actor) throws IOException {
+    final int tag = in.readByte();
+    if (tag == SNAPSHOT_NONE) {
+      return null;
+    }
+
+    final int flagBits = in.readByte();
+    final Action action;
+
+    switch (tag) {
+      case SNAPSHOT_MOVING:
+        action = new Moving(actor, readDirection(in), in.readBoolean());
+        break;
+      case SNAPSHOT_TURNING:
+        action = new Turning(actor, readDirection(in));
+        break;
+      case SNAPSHOT_TURN_THEN_MOVE:
+        action = new TurnThenMove(actor, readDirection(in), in.readBoolean());
+        break;
+      case SNAPSHOT_ATTACKING:
+        action = new Attacking(actor, readCoordinate(in));
+        break;
+      case SNAPSHOT_EQUIP_WEAPON:
+        action = new EquipWeapon(actor, in.readReference(Physical.class));
+        break;
+      case SNAPSHOT_PICKING_UP:
+        action = new PickingUp(actor, readCoordinate(in), in.readReference(Physical.class));
+        break;
+      case SNAPSHOT_PLACING:
+        action = new Placing(actor, readCoordinate(in), in.readReference(Physical.class));
+        break;
+      default:
+        throw new IOException("Unknown kind of action: " + tag);
+    }
+
+    for (ActionFlag flag : ActionFlag.values()) {
+      if ((flagBits & 1 << flag.ordinal()) != 0) {
+        action.addFlag(flag);
+      }
+    }
+    return action;
+  }
+
+
+  static Direction readDirection(SnapshotReader in) throws IOException {
+    return Direction.values()[in.readByte()];
+  }
+
+
+  static void writeCoordinate(SnapshotWriter out, Coordinate coordinate) throws IOException {
+    out.writeInt(coordinate.globalX);
+    out.writeInt(coordinate.globalY);
+  }
+
+
+  static Coordinate readCoordinate(SnapshotReader in) throws IOException {
+    return new Coordinate(in.readInt(), in.readInt());
+  }
+
+
+  /**
+   * @return Which kind of action this is, as one of the {@code SNAPSHOT} tags.
+   */
+  abstract int getSnapshotTag();
+
+
+  /**
+   * Writes whatever this action was made with, besides its actor, in the order {@code
+   * readAction()} reads it.
+   */
+  abstract void writeParameters(SnapshotWriter out) throws IOException;
+
+
+  /**
+   * @return {@code false} if this action refers to something that has not been written to the
+   * snapshot, and so could not be read back. Override if the action refers to anything.
+   */
+  boolean getIsWritable(SnapshotWriter out) {
+    return true;
+  }
+
+
   final void addFlag(ActionFlag flag) {
     flags.add(flag);
   }
@@ -3,17 +3,17 @@ package controller.action;
 import actor.Actor;
 import actor.attribute.Attribute;
 import actor.attribute.Rank;
-import game.Game;
 import game.io.display.Event;
 import game.io.display.EventLog;
-import game.physical.Physical;
 import game.physical.PhysicalFlag;
 import thing.Thing;
 import thing.WeaponComponent;
+import utils.SnapshotWriter;
 import world.Coordinate;
 import world.World;
 
 import java.awt.Color;
+import java.io.IOException;
 
 /**
  * Actors perform attacks to inflict damage upon other actors.
@@ -77,7 +77,8 @@ public class Attacking extends Action {
 
 
   /**
-   * Wound the victim with the weapon equipped by this actor.
+   * Wound the victim with the weapon equipped by this actor, and let anyone nearby who might see or
+   * hear the attack know of it.
    */
   @Override
   protected void apply(World world) {
@@ -87,7 +88,8 @@ public class Attacking extends Action {
 
     // Determine how much damage this attack will do.
     final Rank muscle = getActor().getAttributeRank(Attribute.MUSCLE);
-    final int damage = weaponComponent.calculateDamageRange(muscle).getRandomWithin(Game.RANDOM);
+    final int damage =
+        weaponComponent.calculateDamageRange(muscle).getRandomWithin(getActor().getRandom());
 
     // Construct the event log string for this attack.
     final String hitString = weaponComponent.getDamageType().getHitString();
@@ -112,9 +114,14 @@ public class Attacking extends Action {
     // Log the message if the player is in this area.
     EventLog.registerEventIfPlayerIsLocal(victim.getCoordinate(), Event.ACTOR_WOUNDED, message);
 
-    // Apply the damage to the victim and notify the victim's controller.
+    // Apply the damage to the victim and notify the victim's controller, after letting the world
+    // know if the victim died.
     victim.getHealth().wound(damage);
+    if (victim.hasFlag(PhysicalFlag.DEAD)) {
+      world.onActorDied(victim);
+    }
     victim.getActorObserver().onVictimized(getActor());
+    world.broadcastSensoryEvent(getActor());
   }
 
 
@@ -122,13 +129,21 @@ public class Attacking extends Action {
    * @return The living actor occupying the target coordinate, or null if there isn't one.
    */
   private Actor getLiveTargetAt(World world, Coordinate coordinate) {
-
-    final Physical targetPhysical = world.getSquare(coordinate).getAll().get(0);
-    if (!targetPhysical.hasFlag(PhysicalFlag.DEAD) && targetPhysical.getClass() == Actor.class) {
-      return (Actor) targetPhysical;
-    }
-    else {
+    if (!world.validateCoordinate(coordinate)) {
       return null;
     }
+    return world.getActorIndex().getActorAt(coordinate);
+  }
+
+
+  @Override
+  int getSnapshotTag() {
+    return SNAPSHOT_ATTACKING;
+  }
+
+
+  @Override
+  void writeParameters(SnapshotWriter out) throws IOException {
+    writeCoordinate(out, getTarget());
   }
 }
\ No newline at end of file
@@ -5,8 +5,11 @@ import game.io.display.Event;
 import game.io.display.EventLog;
 import game.physical.Physical;
 import thing.Thing;
+import utils.SnapshotWriter;
 import world.World;
 
+import java.io.IOException;
+
 /**
  *
  */
@@ -64,4 +67,22 @@ public class EquipWeapon extends Action {
       EventLog.registerEvent(Event.SUCCESS, "You have equipped " + validatedWeapon.getName() + ".");
     }
   }
+
+
+  @Override
+  int getSnapshotTag() {
+    return SNAPSHOT_EQUIP_WEAPON;
+  }
+
+
+  @Override
+  void writeParameters(SnapshotWriter out) throws IOException {
+    out.writeReference(weapon);
+  }
+
+
+  @Override
+  boolean getIsWritable(SnapshotWriter out) {
+    return out.isRegistered(weapon);
+  }
 }
\ No newline at end of file
@@ -4,9 +4,12 @@ import actor.Actor;
 import actor.attribute.Attribute;
 import game.Direction;
 import game.physical.PhysicalFlag;
+import utils.SnapshotWriter;
+import world.Coordinate;
 import world.World;
 
 import java.awt.Color;
+import java.io.IOException;
 
 /**
  * Actors perform moves to change their own location in the world. Their movement speed is defined
@@ -88,12 +91,14 @@ public class Moving extends Action {
   @Override
   protected boolean validate(World world) {
 
-    if (!world.validateCoordinate(getTarget())) {
+    final Coordinate target = getTarget();
+    if (!world.validateCoordinate(target)) {
       return false;
     }
 
-    final boolean targetIsBlocked = world.getSquare(getTarget()).isBlocked();
-    final boolean performerHasMoved = !world.getSquare(getOrigin()).getAll().contains(getActor());
+    final boolean targetIsBlocked = world.isBlocked(target.globalX, target.globalY);
+    final boolean performerHasMoved =
+        !world.isAt(getActor(), getOrigin().globalX, getOrigin().globalY);
 
     return !targetIsBlocked && !performerHasMoved;
   }
@@ -102,7 +107,7 @@ public class Moving extends Action {
   /**
    * Remove the actor from its original location, add it to the new location, and update its stored
    * coordinate accordingly. If this move crosses area borders, it gains the {@code
-   * ACTOR_CHANGED_AREA} flag.
+   * ACTOR_CHANGED_AREA} flag. Anyone nearby who might see or hear the move is told of it.
    */
   @Override
   protected void apply(World world) {
@@ -111,11 +116,14 @@ public class Moving extends Action {
 
     world.getSquare(getOrigin()).pull(performerActor);
     world.getSquare(getTarget()).put(performerActor);
+    world.getActorIndex().move(performerActor, getOrigin(), getTarget());
     performerActor.setCoordinate(getTarget());
 
     if (world.getArea(getOrigin()) != world.getArea(getTarget())) {
       addFlag(ActionFlag.ACTOR_CHANGED_AREA);
     }
+
+    world.broadcastSensoryEvent(performerActor);
   }
 
 
@@ -142,4 +150,17 @@ public class Moving extends Action {
     final Direction actorFacing = getActor().getFacing();
     return movingIn == actorFacing.getLeftNeighbor() || movingIn == actorFacing.getRightNeighbor();
   }
+
+
+  @Override
+  int getSnapshotTag() {
+    return SNAPSHOT_MOVING;
+  }
+
+
+  @Override
+  void writeParameters(SnapshotWriter out) throws IOException {
+    out.writeByte(movingIn.ordinal());
+    out.writeBoolean(isWalking);
+  }
 }
\ No newline at end of file
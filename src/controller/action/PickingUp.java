@@ -5,9 +5,12 @@ import game.io.display.Event;
 import game.io.display.EventLog;
 import game.physical.Physical;
 import game.physical.PhysicalFlag;
+import utils.SnapshotWriter;
 import world.Coordinate;
 import world.World;
 
+import java.io.IOException;
+
 /**
  * Actors perform pickups to move items from the world to their inventory.
  */
@@ -72,4 +75,23 @@ public class PickingUp extends Action {
     world.getSquare(getTarget()).pull(pickingUpWhat);
     getActor().getInventory().addItem(pickingUpWhat);
   }
+
+
+  @Override
+  int getSnapshotTag() {
+    return SNAPSHOT_PICKING_UP;
+  }
+
+
+  @Override
+  void writeParameters(SnapshotWriter out) throws IOException {
+    writeCoordinate(out, getTarget());
+    out.writeReference(pickingUpWhat);
+  }
+
+
+  @Override
+  boolean getIsWritable(SnapshotWriter out) {
+    return out.isRegistered(pickingUpWhat);
+  }
 }
\ No newline at end of file
@@ -4,9 +4,12 @@ import actor.Actor;
 import game.io.display.Event;
 import game.io.display.EventLog;
 import game.physical.Physical;
+import utils.SnapshotWriter;
 import world.Coordinate;
 import world.World;
 
+import java.io.IOException;
+
 /**
  * Actors perform placings to move items from their inventory to the world.
  */
@@ -72,4 +75,23 @@ public class Placing extends Action {
     getActor().getInventory().removeItem(placingWhat);
     world.getSquare(getTarget()).put(placingWhat);
   }
+
+
+  @Override
+  int getSnapshotTag() {
+    return SNAPSHOT_PLACING;
+  }
+
+
+  @Override
+  void writeParameters(SnapshotWriter out) throws IOException {
+    writeCoordinate(out, getTarget());
+    out.writeReference(placingWhat);
+  }
+
+
+  @Override
+  boolean getIsWritable(SnapshotWriter out) {
+    return out.isRegistered(placingWhat);
+  }
 }
\ No newline at end of file
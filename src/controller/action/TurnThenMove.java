@@ -2,6 +2,9 @@ package controller.action;
 
 import actor.Actor;
 import game.Direction;
+import utils.SnapshotWriter;
+
+import java.io.IOException;
 
 /**
  *
@@ -37,4 +40,17 @@ public class TurnThenMove extends Turning {
 
     return next;
   }
+
+
+  @Override
+  int getSnapshotTag() {
+    return SNAPSHOT_TURN_THEN_MOVE;
+  }
+
+
+  @Override
+  void writeParameters(SnapshotWriter out) throws IOException {
+    super.writeParameters(out);
+    out.writeBoolean(isWalking);
+  }
 }
\ No newline at end of file
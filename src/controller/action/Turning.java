@@ -2,8 +2,11 @@ package controller.action;
 
 import actor.Actor;
 import game.Direction;
+import utils.SnapshotWriter;
 import world.World;
 
+import java.io.IOException;
+
 /**
  * Actors perform turns to change their facing direction. Actors can only turn one direction grade
  * at a time, but attempts to turn more than one grade will automatically repeat until the target is
@@ -80,4 +83,16 @@ public class Turning extends Action {
       return next;
     }
   }
+
+
+  @Override
+  int getSnapshotTag() {
+    return SNAPSHOT_TURNING;
+  }
+
+
+  @Override
+  void writeParameters(SnapshotWriter out) throws IOException {
+    out.writeByte(turningTowards.ordinal());
+  }
 }
\ No newline at end of file
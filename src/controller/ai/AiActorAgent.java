@@ -7,10 +7,16 @@ import controller.action.ActionFlag;
 import game.Game;
 import game.io.display.Event;
 import game.io.display.EventLog;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
 import world.Area;
+import world.FieldOfView;
+import world.Path;
 import world.World;
 
-import java.util.Set;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This actor controller uses modular {@code Behavior} packages to give non-player-characters
@@ -22,6 +28,9 @@ import java.util.Set;
 public class AiActorAgent extends ActorAgent {
 
   private final Game.Informer gameInformer;
+  private final List<Actor> scanResults = new ArrayList<>();
+  private final Path path = new Path();
+  private final FieldOfView fieldOfView = new FieldOfView();
   private Behavior currentBehavior;
 
 
@@ -35,10 +44,16 @@ public class AiActorAgent extends ActorAgent {
   /**
    * Changes the current Behavior package to the one specified and starts the routine. If there is a
    * relevant event log message to be printed, do so.
+   * <p>
+   * The agent may be asleep when something it senses makes it change behavior, so it catches up on
+   * any skipped turns first, while the behavior that was counting them is still current.
    */
   void exhibitBehavior(Behavior Behavior) {
 
+    getControllerInterface().wakeController(this);
+
     currentBehavior = Behavior;
+    path.clear();
 
     final String onExhibitLogMessage = currentBehavior.getOnExhibitLogMessage();
 
@@ -79,7 +94,7 @@ public class AiActorAgent extends ActorAgent {
     // If we have no behavior or our current behavior is finished, enter a simple idling state
     // or, more rarely, start wandering about.
     if (currentBehavior == null || currentBehavior.getIsComplete()) {
-      if (Game.RANDOM.nextInt(10) < 1) {
+      if (getActor().getRandom().nextInt(10) < 1) {
         currentBehavior = new Ai_Wander(this);
       }
       else {
@@ -92,9 +107,44 @@ public class AiActorAgent extends ActorAgent {
   }
 
 
+  /**
+   * Besides the turns spent waiting while passive, the agent can sleep through however many turns
+   * its current behavior is sure to do nothing for.
+   */
+  @Override
+  public int getTurnsToSleep() {
+    final int turnsToSleep = super.getTurnsToSleep();
+
+    if (currentBehavior == null || currentBehavior.getIsComplete()) {
+      return turnsToSleep;
+    }
+    return Math.max(turnsToSleep, currentBehavior.getTurnsToSleep());
+  }
+
+
+  @Override
+  public void wake(int turnsSlept) {
+    super.wake(turnsSlept);
+
+    if (currentBehavior != null) {
+      currentBehavior.onTurnsSlept(turnsSlept);
+    }
+  }
+
+
+  @Override
+  protected boolean getIsPassiveWhileBusy() {
+    return currentBehavior != null && !currentBehavior.getIsComplete()
+        && currentBehavior.getIsPassiveWhileBusy();
+  }
+
+
   @Override
   public void onVictimized(Actor attacker) {
 
+    // We may have been asleep, so catch up on any skipped turns before reacting.
+    getControllerInterface().wakeController(this);
+
     // Pass the call to our current behavior, if we have one.
     if (currentBehavior != null) {
       currentBehavior.onVictimized(attacker);
@@ -102,6 +152,35 @@ public class AiActorAgent extends ActorAgent {
   }
 
 
+  @Override
+  public void onSensoryEvent(Actor source) {
+
+    // Pass the call to our current behavior, if we have one.
+    if (currentBehavior != null && !currentBehavior.getIsComplete()) {
+      currentBehavior.onSensoryEvent(source);
+    }
+  }
+
+
+  /**
+   * Writes the behavior the agent is exhibiting, if it is still under way, and the route it is
+   * following, so that a game read back from the snapshot picks up where this one left off.
+   */
+  public void writeBehaviorTo(SnapshotWriter out) throws IOException {
+    Behavior.writeBehavior(out, currentBehavior);
+    path.writeTo(out);
+  }
+
+
+  /**
+   * Resumes the behavior written by {@code writeBehaviorTo()}, without exhibiting it afresh.
+   */
+  public void readBehaviorFrom(SnapshotReader in) throws IOException {
+    currentBehavior = Behavior.readBehavior(in, this);
+    path.readFrom(in);
+  }
+
+
   Game.Informer getGameInformer() {
     return gameInformer;
   }
@@ -113,7 +192,28 @@ public class AiActorAgent extends ActorAgent {
   }
 
 
-  Set<Actor> requestActorsInMyArea() {
-    return getControllerInterface().requestActorsInMyArea(this);
+  /**
+   * @return A list for sensory scans to collect results in, reused between scans.
+   */
+  List<Actor> getScanResults() {
+    return scanResults;
+  }
+
+
+  /**
+   * @return The route the agent is currently following, kept between turns so it need only be
+   * searched for again when it is blocked or its destination moves away.
+   */
+  Path getPath() {
+    return path;
+  }
+
+
+  /**
+   * @return What the agent's actor could see when it last looked, kept between turns so it need
+   * only be worked out again when the actor moves or the scenery around it changes.
+   */
+  FieldOfView getFieldOfView() {
+    return fieldOfView;
   }
-}
\ No newline at end of file
+}
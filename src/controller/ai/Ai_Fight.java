@@ -13,10 +13,13 @@ import game.io.GameEngine;
 import game.io.display.Event;
 import game.io.display.EventLog;
 import game.physical.PhysicalFlag;
+import utils.SnapshotWriter;
 import world.Coordinate;
 import world.MapCoordinate;
 import world.World;
 
+import java.io.IOException;
+
 /**
  * This behavior will make the agent engage in combat with the given victim. The agent will
  * continually attack the victim for as long as it is within range. If the victim moves out of
@@ -103,7 +106,7 @@ public class Ai_Fight extends Behavior {
 
           // If we can track our enemy, pursue them and continue the fight.
           if (Perception.getCanTrackLocation(perception, actorMC, enemyMC)) {
-            Routines.approachOneStep(getAgent(), enemyAt);
+            Routines.pursueOneStep(getAgent(), victim);
           }
 
           // Otherwise, we have lost them and must give up.
@@ -119,13 +122,21 @@ public class Ai_Fight extends Behavior {
   @Override
   public void onActionExecuted(Action action) {
 
-    // Moves only fail because of blocked squares, so step around the blockage.
+    // Moves only fail because of blocked squares, so forget the route we were taking and find a
+    // way around the blockage.
     if (action.hasFlag(ActionFlag.FAILED) && action.getClass() == Moving.class) {
-      Routines.stepAroundBlockedSquare(getAgent());
+      getAgent().getPath().clear();
+      fight();
     }
   }
 
 
+  @Override
+  protected boolean getIsPassiveWhileBusy() {
+    return true;
+  }
+
+
   @Override
   public void onActorTurnComplete() {
 
@@ -145,4 +156,22 @@ public class Ai_Fight extends Behavior {
       getAgent().exhibitBehavior(new Ai_Retreat(getAgent(), victim));
     }
   }
+
+
+  @Override
+  int getSnapshotTag() {
+    return SNAPSHOT_FIGHT;
+  }
+
+
+  @Override
+  boolean getIsWritable(SnapshotWriter out) {
+    return out.isRegistered(victim);
+  }
+
+
+  @Override
+  void writeTo(SnapshotWriter out) throws IOException {
+    out.writeReference(victim);
+  }
 }
\ No newline at end of file
@@ -1,30 +1,61 @@
 package controller.ai;
 
 import actor.Actor;
+import controller.action.Action;
 import controller.action.Turning;
 import game.Direction;
-import game.Game;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
+
+import java.io.IOException;
 
 /**
  * This behavior will make the agent hold position in one spot and, on occasion, turn to look
  * around.
  * <p>
- * The agent will perform a sensory scan every few turns at a statically defined interval, but will
- * otherwise do nothing for the duration of the behavior.
+ * The agent will perform a sensory scan when it starts idling and after each time it turns, but
+ * otherwise only reacts to sensory events, when something nearby moves or attacks. Since the turns
+ * in between are spent doing nothing, the agent sleeps through them until it is next due to turn
+ * or stop idling, or until something it senses wakes it.
  */
 public class Ai_Idle extends Behavior {
 
-  private static final int SENSORY_SCAN_INTERVAL = 5;
+  private static final double LOOK_AROUND_CHANCE = 0.01;
 
   private static final int IDLE_DURATION_BASE = 75;
   private static final int IDLE_DURATION_RANGE = 75;
 
   private int idleTimeRemaining;
+  private int turnsUntilLookAround;
+  private boolean hasScanned;
 
 
   public Ai_Idle(AiActorAgent agent) {
     super(agent);
-    idleTimeRemaining = IDLE_DURATION_BASE + Game.RANDOM.nextInt(IDLE_DURATION_RANGE);
+    idleTimeRemaining = IDLE_DURATION_BASE + getActor().getRandom().nextInt(IDLE_DURATION_RANGE);
+    turnsUntilLookAround = rollTurnsUntilLookAround();
+    hasScanned = false;
+  }
+
+
+  /**
+   * Picks up idling where it was left off when written to a snapshot.
+   */
+  Ai_Idle(AiActorAgent agent, SnapshotReader in) throws IOException {
+    super(agent);
+    idleTimeRemaining = in.readInt();
+    turnsUntilLookAround = in.readInt();
+    hasScanned = in.readBoolean();
+  }
+
+
+  /**
+   * Rather than rolling for a chance to look around every turn, roll once for how many turns it
+   * will be until we do, which comes out the same.
+   */
+  private int rollTurnsUntilLookAround() {
+    final double roll = 1.0 - getActor().getRandom().nextDouble();
+    return 1 + (int) (Math.log(roll) / Math.log(1.0 - LOOK_AROUND_CHANCE));
   }
 
 
@@ -43,20 +74,16 @@ public class Ai_Idle extends Behavior {
 
     else {
 
-      // Advance the timer.
+      // Advance the timers.
       idleTimeRemaining--;
-
-      // Perform a sensory scan every few updates.
-      if (idleTimeRemaining % SENSORY_SCAN_INTERVAL == 0) {
-        Routines.performSensoryScan(getAgent());
-      }
+      turnsUntilLookAround--;
 
       // On occasion, turn one grade to the left or the right.
-      if (getActor().isFreeToAct() && Game.RANDOM.nextInt(100) < 1) {
+      if (turnsUntilLookAround <= 0 && getActor().isFreeToAct()) {
 
         Direction turnTo = getActor().getFacing();
 
-        if (Game.RANDOM.nextBoolean()) {
+        if (getActor().getRandom().nextBoolean()) {
           turnTo = turnTo.getLeftNeighbor();
         }
         else {
@@ -64,8 +91,36 @@ public class Ai_Idle extends Behavior {
         }
 
         getAgent().attemptAction(new Turning(getActor(), turnTo));
+        turnsUntilLookAround = rollTurnsUntilLookAround();
       }
+
+      // Take in our surroundings once when we start idling. After that, sensory events will tell
+      // us of anything that comes along.
+      if (!hasScanned) {
+        hasScanned = true;
+        Routines.performSensoryScan(getAgent());
+      }
+    }
+  }
+
+
+  /**
+   * The next turn we do anything on is either the one where we look around, or the one after the
+   * timer runs out, whichever comes first. We can't sleep through a turn that is still under way.
+   */
+  @Override
+  int getTurnsToSleep() {
+    if (!getActor().isFreeToAct()) {
+      return 0;
     }
+    return Math.max(0, Math.min(idleTimeRemaining, turnsUntilLookAround - 1));
+  }
+
+
+  @Override
+  void onTurnsSlept(int turnsSlept) {
+    idleTimeRemaining -= turnsSlept;
+    turnsUntilLookAround -= turnsSlept;
   }
 
 
@@ -77,10 +132,38 @@ public class Ai_Idle extends Behavior {
   }
 
 
+  @Override
+  public void onActionExecuted(Action action) {
+
+    // Having turned, we may be facing something we could not see before.
+    Routines.performSensoryScan(getAgent());
+  }
+
+
+  @Override
+  public void onSensoryEvent(Actor source) {
+    Routines.evaluateSensoryEvent(getAgent(), source);
+  }
+
+
   @Override
   public void onVictimized(Actor attacker) {
 
     // If we are attacked, either fight or flee.
     Routines.evaluateNewAggressor(getAgent(), attacker);
   }
-}
\ No newline at end of file
+
+
+  @Override
+  int getSnapshotTag() {
+    return SNAPSHOT_IDLE;
+  }
+
+
+  @Override
+  void writeTo(SnapshotWriter out) throws IOException {
+    out.writeInt(idleTimeRemaining);
+    out.writeInt(turnsUntilLookAround);
+    out.writeBoolean(hasScanned);
+  }
+}
@@ -1,13 +1,13 @@
 package controller.ai;
 
 import actor.Actor;
-import actor.attribute.Attribute;
-import actor.attribute.Perception;
-import actor.attribute.Rank;
 import controller.action.Turning;
 import game.Direction;
+import utils.SnapshotWriter;
 import world.Coordinate;
 
+import java.io.IOException;
+
 /**
  * This behavior will make the agent respond to a sound produced by a given intruder. The agent will
  * turn towards the source of the original sound, performing a limited sensory scan each update that
@@ -49,14 +49,13 @@ public class Ai_Investigate extends Behavior {
 
   private void investigate() {
 
-    final Rank perception = getActor().getAttributeRank(Attribute.PERCEPTION);
     final Direction actorFacing = getActor().getFacing();
     final Coordinate actorAt = getActor().getCoordinate();
 
     final Coordinate intruderActuallyAt = intruder.getCoordinate();
 
     // If we can see what we're looking for, react to it.
-    if (Perception.getCanSeeLocation(perception, actorFacing, actorAt, intruderActuallyAt)) {
+    if (Routines.getCanSee(getAgent(), intruderActuallyAt)) {
       Routines.evaluateOther(getAgent(), intruder);
     }
 
@@ -94,4 +93,24 @@ public class Ai_Investigate extends Behavior {
     // If we are attacked, either fight or flee.
     Routines.evaluateNewAggressor(getAgent(), attacker);
   }
+
+
+  @Override
+  int getSnapshotTag() {
+    return SNAPSHOT_INVESTIGATE;
+  }
+
+
+  @Override
+  boolean getIsWritable(SnapshotWriter out) {
+    return out.isRegistered(intruder);
+  }
+
+
+  @Override
+  void writeTo(SnapshotWriter out) throws IOException {
+    out.writeInt(sourceOfSound.globalX);
+    out.writeInt(sourceOfSound.globalY);
+    out.writeReference(intruder);
+  }
 }
\ No newline at end of file
@@ -5,10 +5,14 @@ import controller.action.Action;
 import controller.action.ActionFlag;
 import game.Direction;
 import game.physical.PhysicalFlag;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
 import world.Coordinate;
 import world.MapCoordinate;
 import world.World;
 
+import java.io.IOException;
+
 /**
  * This behavior will make the agent move at full speed away from the given pursuer. The agent will
  * attempt to place a distance of two areas between itself and its pursuer before it stops running.
@@ -44,6 +48,17 @@ public class Ai_Retreat extends Behavior {
   }
 
 
+  /**
+   * Picks up retreating where it was left off when written to a snapshot.
+   */
+  Ai_Retreat(AiActorAgent agent, SnapshotReader in) throws IOException {
+    super(agent);
+    pursuer = in.readReference(Actor.class);
+    cantEscapeCounter = in.readInt();
+    isTurningToEscape = in.readBoolean();
+  }
+
+
   @Override
   protected String getOnExhibitLogMessage() {
     if (getAgent().getGameInformer().getActorIsPlayer(pursuer)) {
@@ -82,10 +97,9 @@ public class Ai_Retreat extends Behavior {
         markComplete();
       }
 
-      // Otherwise, run directly away.
+      // Otherwise, run away, finding a way around anything in our path.
       else {
-        final Direction toEscape = pursuerAt.getDirectionTo(actorAt);
-        Routines.turnThenMove(getAgent(), toEscape, false, false);
+        Routines.retreatOneStep(getAgent(), pursuer);
       }
     }
   }
@@ -106,10 +120,11 @@ public class Ai_Retreat extends Behavior {
   @Override
   public void onActionExecuted(Action action) {
 
-    // If one of our movements fails, step around the blocked square, and increment the can't
-    // escape counter by the appropriate value.
+    // If one of our movements fails, forget the route we were taking and find another, and
+    // increment the can't escape counter by the appropriate value.
     if (action.hasFlag(ActionFlag.FAILED)) {
-      Routines.stepAroundBlockedSquare(getAgent());
+      getAgent().getPath().clear();
+      retreat();
       incrementCantEscapeCounter(CANT_ESCAPE_BLOCKED_VALUE);
     }
   }
@@ -163,4 +178,24 @@ public class Ai_Retreat extends Behavior {
       incrementCantEscapeCounter(CANT_ESCAPE_ATTACKED_VALUE);
     }
   }
+
+
+  @Override
+  int getSnapshotTag() {
+    return SNAPSHOT_RETREAT;
+  }
+
+
+  @Override
+  boolean getIsWritable(SnapshotWriter out) {
+    return out.isRegistered(pursuer);
+  }
+
+
+  @Override
+  void writeTo(SnapshotWriter out) throws IOException {
+    out.writeReference(pursuer);
+    out.writeInt(cantEscapeCounter);
+    out.writeBoolean(isTurningToEscape);
+  }
 }
\ No newline at end of file
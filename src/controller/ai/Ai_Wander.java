@@ -4,7 +4,10 @@ import actor.Actor;
 import controller.action.Action;
 import controller.action.ActionFlag;
 import game.Direction;
-import game.Game;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
+
+import java.io.IOException;
 
 /**
  * This behavior will make the agent wander to a random point, not by picking a point and pathing to
@@ -15,7 +18,8 @@ import game.Game;
  * fulfilled.<br><br>
  * <p>
  * Note that a sensory scan will be performed after each completed movement, but not in between
- * them.
+ * them. In between, the agent reacts to sensory events instead, when something nearby moves or
+ * attacks.
  */
 public class Ai_Wander extends Behavior {
 
@@ -26,7 +30,16 @@ public class Ai_Wander extends Behavior {
 
   public Ai_Wander(AiActorAgent agent) {
     super(agent);
-    wanderChain = Game.RANDOM.nextInt(WANDER_CHAIN_MAX_LENGTH) + 1;
+    wanderChain = getActor().getRandom().nextInt(WANDER_CHAIN_MAX_LENGTH) + 1;
+  }
+
+
+  /**
+   * Picks up wandering where it was left off when written to a snapshot.
+   */
+  Ai_Wander(AiActorAgent agent, SnapshotReader in) throws IOException {
+    super(agent);
+    wanderChain = in.readInt();
   }
 
 
@@ -46,7 +59,7 @@ public class Ai_Wander extends Behavior {
     else {
 
       // Pick a direction at random and start walking that way.
-      final Direction randomWander = Direction.getRandom();
+      final Direction randomWander = Direction.getRandom(getActor().getRandom());
       Routines.turnThenMove(getAgent(), randomWander, true, false);
 
       // Apply this wander step to the counter.
@@ -61,7 +74,7 @@ public class Ai_Wander extends Behavior {
     // If one of our movements fails, or sometimes even if it succeeds, run the main routine to
     // start a new wander step.
     if (action.hasFlag(ActionFlag.FAILED) || (action.hasFlag(ActionFlag.SUCCEEDED)
-        && Game.RANDOM.nextInt(10) < 4)) {
+        && getActor().getRandom().nextInt(10) < 4)) {
       wander();
     }
 
@@ -70,6 +83,12 @@ public class Ai_Wander extends Behavior {
   }
 
 
+  @Override
+  protected boolean getIsPassiveWhileBusy() {
+    return true;
+  }
+
+
   @Override
   public void onActorTurnComplete() {
 
@@ -79,10 +98,28 @@ public class Ai_Wander extends Behavior {
   }
 
 
+  @Override
+  public void onSensoryEvent(Actor source) {
+    Routines.evaluateSensoryEvent(getAgent(), source);
+  }
+
+
   @Override
   public void onVictimized(Actor attacker) {
 
     // If we are attacked, either fight or flee.
     Routines.evaluateNewAggressor(getAgent(), attacker);
   }
+
+
+  @Override
+  int getSnapshotTag() {
+    return SNAPSHOT_WANDER;
+  }
+
+
+  @Override
+  void writeTo(SnapshotWriter out) throws IOException {
+    out.writeInt(wanderChain);
+  }
 }
\ No newline at end of file
@@ -2,6 +2,11 @@ package controller.ai;
 
 import actor.Actor;
 import controller.ActorObserver;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
+import world.Coordinate;
+
+import java.io.IOException;
 
 /**
  * Provides a set of actions and interpretations to achieve some kind of result or apparent
@@ -9,6 +14,14 @@ import controller.ActorObserver;
  */
 abstract class Behavior implements ActorObserver {
 
+  // How each kind of behavior is tagged in a snapshot.
+  static final int SNAPSHOT_NONE = 0;
+  static final int SNAPSHOT_IDLE = 1;
+  static final int SNAPSHOT_WANDER = 2;
+  static final int SNAPSHOT_INVESTIGATE = 3;
+  static final int SNAPSHOT_FIGHT = 4;
+  static final int SNAPSHOT_RETREAT = 5;
+
   private final AiActorAgent agent;
 
   private boolean complete;
@@ -37,6 +50,99 @@ abstract class Behavior implements ActorObserver {
   }
 
 
+  /**
+   * @return {@code true} if this behavior does nothing in {@code onActorTurnComplete()} while the
+   * actor is not free to act, allowing the agent to sleep through those turns. Override if so.
+   */
+  boolean getIsPassiveWhileBusy() {
+    return false;
+  }
+
+
+  /**
+   * @return How many turns this behavior is sure to do nothing for, allowing the agent to sleep
+   * through them. Override if there are any.
+   */
+  int getTurnsToSleep() {
+    return 0;
+  }
+
+
+  /**
+   * Called when the agent wakes from sleeping through the given number of turns, to account for
+   * them. Override if the behavior counts turns.
+   */
+  void onTurnsSlept(int turnsSlept) {
+
+  }
+
+
+  /**
+   * Writes the given behavior as its kind and whatever state it is keeping, so that {@code
+   * readBehavior()} can pick it up again where it left off. A finished behavior, or one that refers
+   * to an actor left out of the snapshot, is written as null, and so the agent will start afresh.
+   */
+  static void writeBehavior(SnapshotWriter out, Behavior behavior) throws IOException {
+    if (behavior == null || behavior.getIsComplete() || !behavior.getIsWritable(out)) {
+      out.writeByte(SNAPSHOT_NONE);
+      return;
+    }
+
+    out.writeByte(behavior.getSnapshotTag());
+    behavior.writeTo(out);
+  }
+
+
+  /**
+   * Reads back a behavior written by {@code writeBehavior()}, for the given agent. Reading a
+   * behavior never draws from the actor's random stream, and never starts it over.
+   *
+   * @return The behavior, or null if none was written.
+   */
+  static Behavior readBehavior(SnapshotReader in, AiActorAgent agent) throws IOException {
+    final int tag = in.readByte();
+
+    switch (tag) {
+      case SNAPSHOT_NONE:
+        return null;
+      case SNAPSHOT_IDLE:
+        return new Ai_Idle(agent, in);
+      case SNAPSHOT_WANDER:
+        return new Ai_Wander(agent, in);
+      case SNAPSHOT_INVESTIGATE:
+        return new Ai_Investigate(agent, new Coordinate(in.readInt(), in.readInt()),
+            in.readReference(Actor.class));
+      case SNAPSHOT_FIGHT:
+        return new Ai_Fight(agent, in.readReference(Actor.class));
+      case SNAPSHOT_RETREAT:
+        return new Ai_Retreat(agent, in);
+      default:
+        throw new IOException("Unknown kind of behavior: " + tag);
+    }
+  }
+
+
+  /**
+   * @return Which kind of behavior this is, as one of the {@code SNAPSHOT} tags.
+   */
+  abstract int getSnapshotTag();
+
+
+  /**
+   * Writes whatever state this behavior keeps, in the order {@code readBehavior()} reads it.
+   */
+  abstract void writeTo(SnapshotWriter out) throws IOException;
+
+
+  /**
+   * @return {@code false} if this behavior refers to something that has not been written to the
+   * snapshot, and so could not be read back. Override if the behavior refers to anything.
+   */
+  boolean getIsWritable(SnapshotWriter out) {
+    return true;
+  }
+
+
   /**
    * @return The AiActorAgent exhibiting this behavior.
    */
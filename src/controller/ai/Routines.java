@@ -9,17 +9,24 @@ import controller.action.Action;
 import controller.action.Moving;
 import controller.action.TurnThenMove;
 import game.Direction;
-import game.Game;
 import game.physical.PhysicalFlag;
 import world.Coordinate;
+import world.FieldOfView;
+import world.FlowField;
+import world.Path;
+import world.World;
 
-import java.util.Set;
+import java.util.List;
 
 /**
  * Contains common subroutines used in multiple packages.
  */
 class Routines {
 
+  // How far away a retreating agent looks for somewhere to run to when its way is blocked.
+  private static final int FLEE_LOOKAHEAD = 8;
+
+
   /**
    * If we are already facing the given direction, just start moving. Otherwise, turn and then
    * move.
@@ -58,7 +65,7 @@ class Routines {
 
     Direction turningTowards = actor.getFacing();
 
-    if (Game.RANDOM.nextBoolean()) {
+    if (actor.getRandom().nextBoolean()) {
       turningTowards = turningTowards.getLeftNeighbor();
     }
     else {
@@ -70,54 +77,214 @@ class Routines {
 
 
   /**
-   * Makes the agent advance one square towards the given coordinate.
+   * Makes the agent advance one square towards the given coordinate, along a route around any
+   * obstacles in the way. If no route can be found, the agent sidesteps instead.
    */
   public static void approachOneStep(AiActorAgent agent, Coordinate destination) {
 
+    final Direction toPursue = getStepTowards(agent, destination);
+
+    if (toPursue != null) {
+      turnThenMove(agent, toPursue, false, true);
+    }
+    else {
+      stepAroundBlockedSquare(agent);
+    }
+  }
+
+
+  /**
+   * Makes the agent advance one square towards the given target. If the world keeps a flow field
+   * for the target, the agent simply follows it. Otherwise it approaches as in {@code
+   * approachOneStep()}.
+   */
+  public static void pursueOneStep(AiActorAgent agent, Actor target) {
+
+    final FlowField flowField = agent.getGameInformer().getWorldInformer().getFlowField(target);
+
+    if (flowField != null) {
+      final Direction step = flowField.getStepTowards(agent.getActor().getCoordinate());
+      if (step != null) {
+        agent.getPath().clear();
+        turnThenMove(agent, step, false, true);
+        return;
+      }
+    }
+
+    approachOneStep(agent, target.getCoordinate());
+  }
+
+
+  /**
+   * Makes the agent move one square away from the given pursuer. If the world keeps a flow field
+   * for the pursuer, the agent simply follows it. Otherwise, if the way directly away is open the
+   * agent will keep running that way, and if not it will look for a route to somewhere further off
+   * in that direction. If there is no such route, the agent sidesteps instead.
+   */
+  public static void retreatOneStep(AiActorAgent agent, Actor pursuer) {
+
+    final Coordinate actorAt = agent.getActor().getCoordinate();
+    final Coordinate pursuerAt = pursuer.getCoordinate();
+    final Direction toEscape = pursuerAt.getDirectionTo(actorAt);
+
+    final World.Informer worldInformer = agent.getGameInformer().getWorldInformer();
+    final Path path = agent.getPath();
+
+    // If there is a flow field for our pursuer, follow it away.
+    final FlowField flowField = worldInformer.getFlowField(pursuer);
+
+    if (flowField != null) {
+      final Direction step = flowField.getStepAway(actorAt);
+      if (step != null) {
+        path.clear();
+        turnThenMove(agent, step, false, true);
+        return;
+      }
+    }
+
+    // Otherwise, if the way directly away is open, run that way.
+    if (!worldInformer.isBlocked(actorAt.globalX + toEscape.relativeX,
+        actorAt.globalY + toEscape.relativeY)) {
+      path.clear();
+      turnThenMove(agent, toEscape, false, false);
+      return;
+    }
+
+    // Otherwise, keep following any escape route we already have.
+    Direction step = getOpenStep(agent, path, null);
+
+    // Otherwise, find a route to somewhere away from our pursuer, looking closer in if we must.
+    for (int distance = FLEE_LOOKAHEAD; step == null && distance > 1; distance /= 2) {
+      final Coordinate fleeTo = actorAt.offset(toEscape.relativeX * distance,
+          toEscape.relativeY * distance);
+
+      if (worldInformer.validateCoordinate(fleeTo) && !worldInformer.isBlocked(fleeTo)
+          && worldInformer.findPath(actorAt, fleeTo, path)) {
+        step = path.getNextStep(actorAt);
+      }
+    }
+
+    if (step != null) {
+      turnThenMove(agent, step, false, true);
+    }
+    else {
+      stepAroundBlockedSquare(agent);
+    }
+  }
+
+
+  /**
+   * Picks the agent's next step towards the given coordinate. The agent's current path is followed
+   * while it still leads there and its next step is open. Failing that the agent steps straight
+   * towards the destination if it can, and only searches for a new path when it can't.
+   *
+   * @return The direction to step in, or null if there is no way to the destination.
+   */
+  static Direction getStepTowards(AiActorAgent agent, Coordinate destination) {
+
     final Coordinate actorAt = agent.getActor().getCoordinate();
-    final Direction toPursue = actorAt.getDirectionTo(destination);
+    final World.Informer worldInformer = agent.getGameInformer().getWorldInformer();
+    final Path path = agent.getPath();
+
+    // Keep following our path if it still leads to the destination.
+    if (path.extendTo(destination)) {
+      final Direction step = getOpenStep(agent, path, destination);
+      if (step != null) {
+        return step;
+      }
+    }
+    path.clear();
+
+    // Otherwise, step straight towards the destination if nothing is in the way.
+    final Direction direct = actorAt.getDirectionTo(destination);
+    final int directX = actorAt.globalX + direct.relativeX;
+    final int directY = actorAt.globalY + direct.relativeY;
+
+    if ((directX == destination.globalX && directY == destination.globalY)
+        || !worldInformer.isBlocked(directX, directY)) {
+      return direct;
+    }
 
-    turnThenMove(agent, toPursue, false, true);
+    // Otherwise, find a way around.
+    if (worldInformer.findPath(actorAt, destination, path)) {
+      return path.getNextStep(actorAt);
+    }
+    return null;
   }
 
 
   /**
-   * Sweeps the area in which the agent resides for other actor controllers. The first one it finds
-   * within sensory range (as defined by the agent's perception attribute)
+   * @return The direction of the next step along the given path, or null if the path is finished,
+   * the agent has strayed from it, or the next square is blocked. The destination itself never
+   * counts as blocked, since it is usually occupied by whatever the agent is approaching.
+   */
+  private static Direction getOpenStep(AiActorAgent agent, Path path, Coordinate destination) {
+
+    final Coordinate actorAt = agent.getActor().getCoordinate();
+    final Direction step = path.getNextStep(actorAt);
+
+    if (step == null) {
+      return null;
+    }
+
+    final int stepX = actorAt.globalX + step.relativeX;
+    final int stepY = actorAt.globalY + step.relativeY;
+
+    if ((destination != null && stepX == destination.globalX && stepY == destination.globalY)
+        || !agent.getGameInformer().getWorldInformer().isBlocked(stepX, stepY)) {
+      return step;
+    }
+    return null;
+  }
+
+
+  /**
+   * Sweeps the squares around the agent for other actors within sensory range (as defined by the
+   * agent's perception attribute). The agent reacts to each actor it can see, and investigates each
+   * actor it can only hear. Only the nearby cells of the world's actor index are visited, and sight
+   * is checked against the agent's field of view, so scenery in the way hides what is behind it.
    */
   public static void performSensoryScan(AiActorAgent agent) {
 
     final Actor actor = agent.getActor();
     final Coordinate actorAt = actor.getCoordinate();
+    final Direction facing = actor.getFacing();
     final Rank perceptionRank = actor.getAttributeRank(Attribute.PERCEPTION);
 
-    // Get all actor controllers in our area.
-    final Set<Actor> localActors = agent.requestActorsInMyArea();
+    final World.Informer worldInformer = agent.getGameInformer().getWorldInformer();
+    final List<Actor> scanResults = agent.getScanResults();
 
-    for (Actor scanTarget : localActors) {
+    // Our field of view is only brought up to date once there is something it might hide.
+    FieldOfView fieldOfView = null;
 
-      // Scan through each, skipping any that fail either of the following tests.
-      if (
+    // React to every actor within our field of vision.
+    worldInformer.getActorsInCone(actorAt, facing, Perception.getVisionRange(perceptionRank),
+        scanResults);
 
-        // Don't react to self.
-          scanTarget != agent.getActor()
-
-              // Timid actors ignore each other.
-              && !(actor.hasFlag(PhysicalFlag.TIMID) && scanTarget.hasFlag(PhysicalFlag.TIMID))) {
+    for (Actor scanTarget : scanResults) {
+      if (getShouldNotice(actor, scanTarget)) {
+        if (fieldOfView == null) {
+          fieldOfView = refreshFieldOfView(agent);
+        }
+        if (fieldOfView.isVisible(scanTarget.getCoordinate())) {
+          Routines.evaluateOther(agent, scanTarget);
+        }
+      }
+    }
 
-        // If we've passed the tests, determine if this actor controller is within either visual or
-        // auditory range (in that order). If it is, react accordingly, if not, go to the next
-        // actor controller in this area.
+    // Investigate any actor we can hear but have not already seen.
+    worldInformer.getActorsWithinRange(actorAt, Perception.getHearingRange(perceptionRank),
+        scanResults);
 
-        final Coordinate targetAt = scanTarget.getCoordinate();
+    for (Actor scanTarget : scanResults) {
+      final Coordinate targetAt = scanTarget.getCoordinate();
 
-        // Can we see the target?
-        if (Perception.getCanSeeLocation(perceptionRank, actor.getFacing(), actorAt, targetAt)) {
-          Routines.evaluateOther(agent, scanTarget);
+      if (getShouldNotice(actor, scanTarget)) {
+        if (fieldOfView == null) {
+          fieldOfView = refreshFieldOfView(agent);
         }
-
-        // Can we hear the target?
-        else if (Perception.getCanHearLocation(perceptionRank, actorAt, targetAt)) {
+        if (!(Perception.getCanSeeLocation(perceptionRank, facing, actorAt, targetAt)
+            && fieldOfView.isVisible(targetAt))) {
           agent.exhibitBehavior(new Ai_Investigate(agent, targetAt, scanTarget));
         }
       }
@@ -125,6 +292,80 @@ class Routines {
   }
 
 
+  /**
+   * Reacts to another actor that has just moved or attacked nearby, the same way a sensory scan
+   * would if it came across that actor: an actor that can be seen is reacted to, and one that can
+   * only be heard is investigated. This spares agents that are waiting for something to happen from
+   * scanning over and over in the meantime.
+   */
+  public static void evaluateSensoryEvent(AiActorAgent agent, Actor source) {
+
+    final Actor actor = agent.getActor();
+
+    if (!getShouldNotice(actor, source)) {
+      return;
+    }
+
+    final Coordinate actorAt = actor.getCoordinate();
+    final Coordinate sourceAt = source.getCoordinate();
+    final Rank perceptionRank = actor.getAttributeRank(Attribute.PERCEPTION);
+
+    final boolean isInSight =
+        Perception.getCanSeeLocation(perceptionRank, actor.getFacing(), actorAt, sourceAt);
+    final boolean isInHearing = Perception.getCanHearLocation(perceptionRank, actorAt, sourceAt);
+
+    if (!isInSight && !isInHearing) {
+      return;
+    }
+
+    if (isInSight && refreshFieldOfView(agent).isVisible(sourceAt)) {
+      Routines.evaluateOther(agent, source);
+    }
+    else if (isInHearing) {
+      agent.exhibitBehavior(new Ai_Investigate(agent, sourceAt, source));
+    }
+  }
+
+
+  /**
+   * @return {@code true} if the agent can see the given coordinate: it is within range and in front
+   * of the agent, and nothing blocks the line of sight to it.
+   */
+  public static boolean getCanSee(AiActorAgent agent, Coordinate target) {
+
+    final Actor actor = agent.getActor();
+    final Rank perceptionRank = actor.getAttributeRank(Attribute.PERCEPTION);
+
+    return Perception.getCanSeeLocation(perceptionRank, actor.getFacing(), actor.getCoordinate(),
+        target) && refreshFieldOfView(agent).isVisible(target);
+  }
+
+
+  /**
+   * Brings the agent's field of view up to date, which costs nothing unless its actor has moved or
+   * the scenery around it has changed.
+   */
+  private static FieldOfView refreshFieldOfView(AiActorAgent agent) {
+
+    final Actor actor = agent.getActor();
+    final int visionRange = Perception.getVisionRange(actor.getAttributeRank(Attribute.PERCEPTION));
+    final FieldOfView fieldOfView = agent.getFieldOfView();
+
+    agent.getGameInformer().getWorldInformer()
+        .refreshFieldOfView(fieldOfView, actor.getCoordinate(), visionRange);
+    return fieldOfView;
+  }
+
+
+  /**
+   * Sensory scans skip the scanning actor itself, and timid actors ignore each other.
+   */
+  private static boolean getShouldNotice(Actor actor, Actor scanTarget) {
+    return scanTarget != actor
+        && !(actor.hasFlag(PhysicalFlag.TIMID) && scanTarget.hasFlag(PhysicalFlag.TIMID));
+  }
+
+
   /**
    * Determines how the agent should react to the given other. If either the agent or the other have
    * the aggressive flag, the agent will enter fight or flee. In other words, aggressives will
@@ -1,24 +1,70 @@
 package controller.player;
 
+import utils.BitGrid;
 import utils.Dimension;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
 import world.MapCoordinate;
 
+import java.io.IOException;
+
 public class Component_WorldMapRevealed {
 
-  private final boolean[][] worldMapRevealed;
+  private final BitGrid worldMapRevealed;
 
 
   public Component_WorldMapRevealed(Dimension worldSizeInAreas) {
-    worldMapRevealed = new boolean[worldSizeInAreas.getHeight()][worldSizeInAreas.getWidth()];
+    worldMapRevealed = new BitGrid(worldSizeInAreas);
   }
 
 
   public boolean getAreaIsRevealed(MapCoordinate mapCoordinate) {
-    return worldMapRevealed[mapCoordinate.worldAreasY][mapCoordinate.worldAreasX];
+    return worldMapRevealed.get(mapCoordinate.worldAreasX, mapCoordinate.worldAreasY);
   }
 
 
   public void setAreaIsRevealed(MapCoordinate mapCoordinate) {
-    worldMapRevealed[mapCoordinate.worldAreasY][mapCoordinate.worldAreasX] = true;
+    worldMapRevealed.put(true, mapCoordinate.worldAreasX, mapCoordinate.worldAreasY);
+  }
+
+
+  /**
+   * Writes which areas are revealed, eight areas to a byte, row by row.
+   */
+  public void writeTo(SnapshotWriter out) throws IOException {
+    int bits = 0;
+    int bitCount = 0;
+
+    final Dimension size = worldMapRevealed.getDimension();
+    for (int y = 0; y < size.getHeight(); y++) {
+      for (int x = 0; x < size.getWidth(); x++) {
+        bits |= (worldMapRevealed.get(x, y) ? 1 : 0) << bitCount++;
+        if (bitCount == 8) {
+          out.writeByte(bits);
+          bits = 0;
+          bitCount = 0;
+        }
+      }
+    }
+    if (bitCount > 0) {
+      out.writeByte(bits);
+    }
+  }
+
+
+  public void readFrom(SnapshotReader in) throws IOException {
+    int bits = 0;
+    int bitCount = 8;
+
+    final Dimension size = worldMapRevealed.getDimension();
+    for (int y = 0; y < size.getHeight(); y++) {
+      for (int x = 0; x < size.getWidth(); x++) {
+        if (bitCount == 8) {
+          bits = in.readByte();
+          bitCount = 0;
+        }
+        worldMapRevealed.put((bits & 1 << bitCount++) != 0, x, y);
+      }
+    }
   }
 }
\ No newline at end of file
@@ -1,12 +1,15 @@
 package controller.player;
 
 import actor.Actor;
+import actor.attribute.Attribute;
+import actor.attribute.Perception;
 import controller.ActorAgent;
 import controller.action.Action;
 import controller.action.ActionFlag;
 import game.io.display.Event;
 import game.io.display.EventLog;
 import world.Area;
+import world.FieldOfView;
 import world.MapCoordinate;
 import world.World;
 
@@ -17,12 +20,14 @@ public class PlayerAgent extends ActorAgent {
 
   private final World world;
   private final Component_WorldMapRevealed component_worldMapRevealed;
+  private final FieldOfView fieldOfView = new FieldOfView();
 
 
   public PlayerAgent(Actor actor, World world) {
     super(actor);
     this.component_worldMapRevealed = new Component_WorldMapRevealed(world.getWorldSizeInAreas());
     this.world = world;
+    refreshFieldOfView();
   }
 
 
@@ -51,6 +56,31 @@ public class PlayerAgent extends ActorAgent {
   }
 
 
+  @Override
+  public void onActorTurnComplete() {
+    refreshFieldOfView();
+  }
+
+
+  /**
+   * Brings the player's field of view up to date, which costs nothing unless they have moved or the
+   * scenery around them has changed.
+   */
+  private void refreshFieldOfView() {
+    final int visionRange =
+        Perception.getVisionRange(getActor().getAttributeRank(Attribute.PERCEPTION));
+    world.refreshFieldOfView(fieldOfView, getActor().getCoordinate(), visionRange);
+  }
+
+
+  /**
+   * @return What the player could see at the end of their last turn. May be read from the display.
+   */
+  public FieldOfView getFieldOfView() {
+    return fieldOfView;
+  }
+
+
   public final Component_WorldMapRevealed getWorldMapRevealedComponent() {
     return component_worldMapRevealed;
   }
@@ -1,8 +1,10 @@
 package game;
 
+import utils.RandomStream;
 import utils.Utils;
 
 import java.awt.event.KeyEvent;
+import java.util.SplittableRandom;
 
 /**
  *
@@ -28,8 +30,13 @@ public enum Direction {
   }
 
 
-  public static Direction getRandom() {
-    return values()[Game.RANDOM.nextInt(values().length)];
+  public static Direction getRandom(SplittableRandom random) {
+    return values()[random.nextInt(values().length)];
+  }
+
+
+  public static Direction getRandom(RandomStream random) {
+    return values()[random.nextInt(values().length)];
   }
 
 
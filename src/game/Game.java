@@ -2,20 +2,20 @@ package game;
 
 import actor.Actor;
 import controller.player.PlayerAgent;
+import utils.RandomStreams;
 import world.Coordinate;
 import world.MapCoordinate;
 import world.World;
 
-import java.util.Random;
+import java.io.IOException;
 
 /**
  *
  */
 public class Game {
 
-  public static final Random RANDOM = new Random();
-
   private final World world;
+  private final RandomStreams randomStreams;
   private final GameControllers gameControllers;
 
   private final Informer informer = new Informer();
@@ -23,8 +23,9 @@ public class Game {
   private PlayerAgent playerAgent;
 
 
-  public Game(World world) {
+  public Game(World world, RandomStreams randomStreams) {
     this.world = world;
+    this.randomStreams = randomStreams;
     this.gameControllers = new GameControllers(this);
   }
 
@@ -34,11 +35,28 @@ public class Game {
   }
 
 
+  /**
+   * Ends the game, releasing what its world keeps outside the heap. The game must not be updated
+   * afterwards.
+   */
+  public void close() throws IOException {
+    world.close();
+  }
+
+
   public World getWorld() {
     return world;
   }
 
 
+  /**
+   * @return The streams this game's world was generated from and its actors draw from.
+   */
+  public RandomStreams getRandomStreams() {
+    return randomStreams;
+  }
+
+
   public GameControllers getGameControllers() {
     return gameControllers;
   }
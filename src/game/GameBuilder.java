@@ -6,10 +6,14 @@ import controller.ai.AiActorAgent;
 import controller.player.PlayerAgent;
 import thing.ThingFactory;
 import utils.Dimension;
+import utils.RandomStreams;
 import world.Coordinate;
 import world.Square;
 import world.World;
 import world.WorldFactory;
+import world.WorldGenerator;
+
+import java.util.SplittableRandom;
 
 /**
  *
@@ -17,12 +21,38 @@ import world.WorldFactory;
 public class GameBuilder {
 
   public static Game newGame(Dimension areaSizeInSquares, Dimension worldSizeInAreas) {
+    return newGame(areaSizeInSquares, worldSizeInAreas, RandomStreams.makeSeed());
+  }
+
+
+  /**
+   * Builds a new game from the given seed. The same seed and dimensions always build the same
+   * world, populated by the same actors in the same places.
+   */
+  public static Game newGame(Dimension areaSizeInSquares, Dimension worldSizeInAreas, long seed) {
+    return newGame(areaSizeInSquares, worldSizeInAreas, seed, WorldFactory.STANDARD_GENERATOR);
+  }
+
+
+  /**
+   * Builds a new game from the given seed, with its world laid out by the given generator.
+   */
+  public static Game newGame(Dimension areaSizeInSquares, Dimension worldSizeInAreas, long seed,
+      WorldGenerator generator) {
+
+    final RandomStreams randomStreams = new RandomStreams(seed);
 
     // produce a map
-    World world = WorldFactory.standardGeneration(areaSizeInSquares, worldSizeInAreas);
+    World world =
+        WorldFactory.generate(areaSizeInSquares, worldSizeInAreas, randomStreams, generator);
 
     // instantiate a game with that map
-    Game newGame = new Game(world);
+    Game newGame = new Game(world, randomStreams);
+
+    // Placement draws from the population stream, and each actor gets its own stream by number.
+    final SplittableRandom placementRandom =
+        randomStreams.getStream(RandomStreams.Subsystem.POPULATION);
+    int actorNumber = 0;
 
     // populate with animals and a Human for the player to control
     GameControllers gameControllers = newGame.getGameControllers();
@@ -40,32 +70,37 @@ public class GameBuilder {
           id = "MUSKRAT";
           break;
       }
-      Actor actor = ActorFactory.makeActor(id);
+      Actor actor = ActorFactory
+          .makeActor(id, randomStreams.getStream(RandomStreams.Subsystem.ACTOR, actorNumber++));
 
       if (actor != null) {
         Coordinate randomCoordinate;
         Square square;
         do {
-          randomCoordinate = world.makeRandomCoordinate();
+          randomCoordinate = world.makeRandomCoordinate(placementRandom);
           square = world.getSquare(randomCoordinate);
         }
         while (square.isBlocked());
         square.put(actor);
         actor.setCoordinate(randomCoordinate);
+        world.getActorIndex().add(actor);
         gameControllers.addController(new AiActorAgent(actor, newGame.getInformer()));
       }
     }
 
-    Actor player = ActorFactory.makeActor("HUMAN");
+    final SplittableRandom playerRandom =
+        randomStreams.getStream(RandomStreams.Subsystem.ACTOR, actorNumber);
+    Actor player = ActorFactory.makeActor("HUMAN", playerRandom);
 
     if (player == null) {
       throw new RuntimeException("Failed to instantiate an actor for the player.");
     }
 
-    Coordinate playerStartCoordinate = world.makeRandomCoordinate();
+    Coordinate playerStartCoordinate = world.makeRandomCoordinate(placementRandom);
     player.setCoordinate(playerStartCoordinate);
 
     world.getSquare(playerStartCoordinate).put(player);
+    world.getActorIndex().add(player);
 
     // assign the Human to a PlayerAgent and addController it
     PlayerAgent playerController = new PlayerAgent(player, world);
@@ -74,16 +109,19 @@ public class GameBuilder {
 
     gameControllers.addController(playerController);
 
-    player.getInventory().addItem(ThingFactory.makeThing("WP_CLUB"));
-    player.getInventory().addItem(ThingFactory.makeThing("WP_SWORD"));
-    player.getInventory().addItem(ThingFactory.makeThing("WP_AXE"));
-    player.getInventory().addItem(ThingFactory.makeThing("WP_DAGGER"));
+    player.getInventory().addItem(ThingFactory.makeThing("WP_CLUB", playerRandom));
+    player.getInventory().addItem(ThingFactory.makeThing("WP_SWORD", playerRandom));
+    player.getInventory().addItem(ThingFactory.makeThing("WP_AXE", playerRandom));
+    player.getInventory().addItem(ThingFactory.makeThing("WP_DAGGER", playerRandom));
 
     // produce the game instance
 
     // assign the player agent
     newGame.setPlayerAgent(playerController);
 
+    // keep a flow field on the player, so that every actor chasing or fleeing them can share it
+    world.trackFlowField(player);
+
     return newGame;
   }
 }
\ No newline at end of file
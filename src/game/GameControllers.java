@@ -1,23 +1,28 @@
 package game;
 
 import actor.Actor;
-import controller.ActorAgent;
+import actor.attribute.Rank;
 import controller.Controller;
 import controller.ControllerInterface;
 import controller.action.Action;
-import game.physical.PhysicalFlag;
+import utils.Dimension;
+import utils.Utils;
 import world.Area;
 import world.Coordinate;
+import world.MapCoordinate;
+import world.World;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 /**
  *
@@ -26,31 +31,121 @@ public class GameControllers implements Executor, ControllerInterface {
 
   private static final int CONTROLLER_PROCESS_RADIUS = 10;
 
-  private static final Map<Controller, Integer> INITIATIVE_ROLLS = new HashMap<>();
-  private static final Comparator<Controller> CONTROLLER_COMPARATOR =
-      Comparator.comparing(INITIATIVE_ROLLS::get);
+  // Sleeping controllers are filed by the beat they wake on, modulo the wheel size. Sleeps are
+  // capped so that no two pending wake beats share a slot.
+  private static final int SLEEP_WHEEL_SIZE = 64;
+  private static final int MAX_TURNS_TO_SLEEP = SLEEP_WHEEL_SIZE - 2;
 
+  // Initiative rolls are counting sorted, so they must fall within this many values from zero.
+  private static final int INITIATIVE_RANGE = Rank.values().length;
 
-  private final Game game;
-  private final Map<Area, Set<Controller>> controllerLocations = new HashMap<>();
+  private static final long NOT_SLEEPING = -1;
 
-  private final List<Controller> ACTIVE_CONTROLLERS = new ArrayList<>();
-  private final Set<Controller> NEXT_CONTROLLERS = new HashSet<>();
+  // In parallel mode, active areas are split into square regions this many areas wide. A region
+  // must be wider than anything an actor can sense, so that regions updated at the same time never
+  // read or write the same squares.
+  private static final int REGION_SIZE_IN_AREAS = 2;
 
-  private Set<Area> activeAreas = null;
+
+  private final Game game;
+  private final Map<Area, Set<Controller>> controllerLocations = new HashMap<>();
+  private final Map<Controller, Entry> entries = new HashMap<>();
+
+  // This turn's actives, in initiative order, and those registered for the next turn. The rolls
+  // array runs parallel to NEXT_CONTROLLERS while sorting.
+  private Entry[] ACTIVE_CONTROLLERS = new Entry[0];
+  private int activeCount = 0;
+  private Entry[] NEXT_CONTROLLERS = new Entry[0];
+  private int nextCount = 0;
+  private int[] INITIATIVE_ROLLS = new int[0];
+  private final int[] INITIATIVE_TALLIES = new int[INITIATIVE_RANGE + 1];
+
+  private final List<List<Entry>> SLEEP_WHEEL = new ArrayList<>();
+
+  private long beat = 0;
+
+  // The active areas form a window around the player, by area position, inclusive at both ends.
+  // Each area is flagged by index as it enters or leaves the window, so that checking whether an
+  // area is active takes no lookup, and moving the window only touches the areas along its edges.
+  private final boolean[] areaIsActive;
+  private final Set<Area> activeAreas = new HashSet<>();
+  private final List<Area> ENTERING_AREAS = new ArrayList<>();
+  private int activeMinX = 0;
+  private int activeMinY = 0;
+  private int activeMaxX = -1;
+  private int activeMaxY = -1;
   private boolean reevaluateActives;
 
+  // Parallel mode state. Regions are indexed in row order, and so are settled in row order.
+  private ForkJoinPool pool = null;
+  private final Map<Area, Region> areaRegions = new HashMap<>();
+  private final Region[] REGIONS;
+  private final List<Entry> NON_LOCAL_CONTROLLERS = new ArrayList<>();
+  private final ThreadLocal<Region> updatingRegion = new ThreadLocal<>();
+
 
   public GameControllers(Game game) {
     this.game = game;
-    game.getWorld().getAllAreas().forEach(area -> controllerLocations.put(area, new HashSet<>()));
-    controllerLocations.put(null, new HashSet<>()); // null contains non-local controllers
+    game.getWorld().getAllAreas()
+        .forEach(area -> controllerLocations.put(area, new LinkedHashSet<>()));
+    for (int i = 0; i < SLEEP_WHEEL_SIZE; i++) {
+      SLEEP_WHEEL.add(new ArrayList<>());
+    }
+    controllerLocations.put(null, new LinkedHashSet<>()); // null contains non-local controllers
     reevaluateActives = true; // Starts true so we calculate active areas on first update.
+
+    areaIsActive = new boolean[game.getWorld().getWorldSizeInAreas().getArea()];
+
+    // Assign every area to a region, coloring regions in a 2x2 checkerboard so that no two regions
+    // of the same color touch, even at the corners.
+    final World world = game.getWorld();
+    final int regionsWide =
+        (world.getWorldSizeInAreas().getWidth() + REGION_SIZE_IN_AREAS - 1) / REGION_SIZE_IN_AREAS;
+    final int regionsHigh =
+        (world.getWorldSizeInAreas().getHeight() + REGION_SIZE_IN_AREAS - 1) / REGION_SIZE_IN_AREAS;
+
+    REGIONS = new Region[regionsWide * regionsHigh];
+    for (int regionY = 0; regionY < regionsHigh; regionY++) {
+      for (int regionX = 0; regionX < regionsWide; regionX++) {
+        REGIONS[regionY * regionsWide + regionX] = new Region(regionX % 2 + regionY % 2 * 2,
+            regionX * REGION_SIZE_IN_AREAS, regionY * REGION_SIZE_IN_AREAS);
+      }
+    }
+    for (int areaY = 0; areaY < world.getWorldSizeInAreas().getHeight(); areaY++) {
+      for (int areaX = 0; areaX < world.getWorldSizeInAreas().getWidth(); areaX++) {
+        final Region region = REGIONS[areaY / REGION_SIZE_IN_AREAS * regionsWide
+            + areaX / REGION_SIZE_IN_AREAS];
+        areaRegions.put(world.getArea(areaX, areaY), region);
+      }
+    }
+  }
+
+
+  /**
+   * Turns parallel updates on or off. When on, the controllers in each region of the active areas
+   * are updated on the given pool, concurrently with those in other regions. Pass null to go back
+   * to updating every controller on the calling thread.
+   * <p>
+   * Regions are updated in four passes, one per color of a checkerboard, so that the regions being
+   * updated at any one time are at least a region apart. Within each region, controllers keep their
+   * initiative order. Non-local controllers, such as the player's, run on the calling thread before
+   * any region. Whatever a controller does to the schedule itself, such as changing area or waking
+   * another controller, is held by its region and settled at the end of the beat, region by region
+   * in row order, so the outcome does not depend on which thread got there first.
+   */
+  public void setParallelPool(ForkJoinPool pool) {
+    this.pool = pool;
   }
 
 
   @Override
   public void onLocalityChanged(Controller controller, Area from, Area to) {
+    final Region region = updatingRegion.get();
+    if (region != null) {
+      region.deferLocalityChange(controller, from, to);
+      return;
+    }
+
     if (controllerLocations.get(from).remove(controller)) {
       controllerLocations.get(to).add(controller);
     }
@@ -63,20 +158,99 @@ public class GameControllers implements Executor, ControllerInterface {
   }
 
 
+  /**
+   * Wakes the given controller if it is asleep, crediting it with every turn up to and including
+   * this beat's, as though its turn this beat had already been taken. It is then scheduled again
+   * from the next beat onwards.
+   */
   @Override
-  public Set<Actor> requestActorsInMyArea(ActorAgent actorAgent) {
-    final Area area = actorAgent.getLocality(game.getWorld());
-    return getActorsInArea(area);
+  public void wakeController(Controller controller) {
+    final Entry entry = entries.get(controller);
+    if (entry == null || entry.sleepingSince == NOT_SLEEPING) {
+      return;
+    }
+
+    // The entry itself belongs to the controller, so it can be credited right away. Only queueing
+    // touches the shared schedule, so a region updating in parallel holds onto that.
+    final Region region = updatingRegion.get();
+    if (region != null) {
+      creditSleep(entry);
+      region.woken.add(entry);
+    }
+    else {
+      wake(entry);
+    }
   }
 
 
   public void addController(Controller controller) {
-    NEXT_CONTROLLERS.add(controller);
+    final Entry entry = new Entry(controller);
+    entries.put(controller, entry);
+    queueForNextTurn(entry);
     controllerLocations.get(controller.getLocality(game.getWorld())).add(controller);
     controller.setControllerInterface(this);
   }
 
 
+  /**
+   * Picks up the schedule of a game read back from a snapshot, carrying on from the given beat with
+   * the active window around the player. Must be called before any controller is restored, so that
+   * placing the window registers nobody.
+   */
+  public void resumeFrom(long beat) {
+    this.beat = beat;
+    calculateActiveAreasAndControllers();
+    reevaluateActives = false;
+  }
+
+
+  /**
+   * Registers a controller read back from a snapshot as it was when saved: asleep, having slept
+   * through the given number of turns and due to wake the given number of beats from now, or awake
+   * if that is zero. Unlike {@code addController()}, the controller is neither queued nor put on
+   * the sleep wheel; that is left to {@code restoreSchedule()}.
+   */
+  public void restoreController(Controller controller, int turnsSlept, int beatsUntilWaking) {
+    final Entry entry = new Entry(controller);
+    entries.put(controller, entry);
+    controllerLocations.get(controller.getLocality(game.getWorld())).add(controller);
+    controller.setControllerInterface(this);
+
+    if (beatsUntilWaking > 0) {
+      entry.sleepingSince = beat - turnsSlept;
+      entry.sleepingUntil = beat + beatsUntilWaking;
+    }
+  }
+
+
+  /**
+   * Lines up the given restored controllers to take the next turn, and files the given restored
+   * controllers in each slot of the sleep wheel, each in the given order, as returned by
+   * {@code getTurnOrder()} and {@code getSleepWheel()} when the snapshot was taken.
+   */
+  public void restoreSchedule(List<Controller> turnOrder, List<List<Controller>> sleepWheel) {
+    if (sleepWheel.size() != SLEEP_WHEEL_SIZE) {
+      throw new IllegalArgumentException("Sleep wheel has " + sleepWheel.size() + " slots.");
+    }
+
+    if (ACTIVE_CONTROLLERS.length < turnOrder.size()) {
+      ACTIVE_CONTROLLERS = new Entry[turnOrder.size()];
+      INITIATIVE_ROLLS = new int[turnOrder.size()];
+    }
+
+    activeCount = 0;
+    for (Controller controller : turnOrder) {
+      ACTIVE_CONTROLLERS[activeCount++] = entries.get(controller);
+    }
+
+    for (int slot = 0; slot < SLEEP_WHEEL_SIZE; slot++) {
+      for (Controller controller : sleepWheel.get(slot)) {
+        SLEEP_WHEEL.get(slot).add(entries.get(controller));
+      }
+    }
+  }
+
+
   @Override
   public boolean executeAction(Action action) {
     return action.perform(game.getWorld());
@@ -88,99 +262,543 @@ public class GameControllers implements Executor, ControllerInterface {
    * getRolledInitiative() order). For each, it calls onUpdate() and then sorts the Controller anew
    * into a second list. After the initial list is walked, the second list becomes the initial list
    * for the next frame.
+   * <p>
+   * Controllers that report they have turns to sleep through are left out of the list until those
+   * turns are up, so each frame only costs as much as the controllers that have something to do.
+   * Both lists are plain arrays that are reused from frame to frame, so once they have grown to fit
+   * the active controllers, none of this bookkeeping allocates.
    */
   public void onUpdate() {
 
-    // Get all active controllers that are still in processing range. By doing this we avoid
+    beat++;
+
+    // Bring the shared flow fields up to date before anyone reads them this beat.
+    game.getWorld().refreshFlowFields();
+
+    // Keep only active controllers that are still in processing range. By doing this we avoid
     // the complex task of removing controllers from ACTIVE on the fly, as they or the range move.
-    List<Controller> activeAndInRange = ACTIVE_CONTROLLERS.stream()
-        .filter(active -> activeAreas.contains(active.getLocality(game.getWorld())))
-        .collect(Collectors.toList());
+    int inRangeCount = 0;
+    for (int i = 0; i < activeCount; i++) {
+      final Entry entry = ACTIVE_CONTROLLERS[i];
+      if (getIsActive(entry.controller.getLocality(game.getWorld()))) {
+        ACTIVE_CONTROLLERS[inRangeCount++] = entry;
+      }
+    }
+    Arrays.fill(ACTIVE_CONTROLLERS, inRangeCount, activeCount, null);
+    activeCount = inRangeCount;
 
     // Update each controller, skipping any that are dead. Don't bother pruning the dead yet,
-    // because controllers can
-    // die after we've already passed them in this loop.
-    activeAndInRange.stream().filter(controller -> controller.getIsStillRunning())
-        .forEach(controller -> controller.onUpdate(this));
-
-    // Prune all dead controllers.
-    pruneDeadControllers(activeAndInRange);
+    // because controllers can die after we've already passed them in this loop.
+    if (pool != null) {
+      updateInParallel();
+    }
+    else {
+      for (int i = 0; i < activeCount; i++) {
+        final Controller controller = ACTIVE_CONTROLLERS[i].controller;
+        if (controller.getIsStillRunning()) {
+          controller.onUpdate(this);
+        }
+      }
+    }
 
-    if (!reevaluateActives) {
+    // Prune all dead controllers, set aside any that will only be counting down for a while, and
+    // register the rest for the next turn.
+    for (int i = 0; i < activeCount; i++) {
+      final Entry entry = ACTIVE_CONTROLLERS[i];
 
-      // Register the same actives for the next turn
-      activeAndInRange.forEach(NEXT_CONTROLLERS::add);
+      if (!entry.controller.getIsStillRunning()) {
+        pruneDeadController(entry);
+      }
+      else if (!putToSleep(entry)) {
+        queueForNextTurn(entry);
+      }
     }
-    else {
 
-      // If player changed area, update active areas and register all controllers therein.
+    if (reevaluateActives) {
+
+      // If player changed area, move the active window and register the controllers it reaches.
       calculateActiveAreasAndControllers();
       reevaluateActives = false;
     }
 
+    wakeControllersDueNextBeat();
+
     performNextTurnSort();
   }
 
 
-  private void pruneDeadControllers(List<Controller> listToPrune) {
-    for (int i = 0; i < listToPrune.size(); i++) {
-      Controller cont = listToPrune.get(i);
+  private void updateInParallel() {
 
-      if (!cont.getIsStillRunning()) {
-        listToPrune.remove(i);
-        i--;
+    // Split the actives by region, keeping initiative order within each.
+    for (int i = 0; i < activeCount; i++) {
+      final Entry entry = ACTIVE_CONTROLLERS[i];
+      final Area locality = entry.controller.getLocality(game.getWorld());
+      if (locality == null) {
+        NON_LOCAL_CONTROLLERS.add(entry);
+      }
+      else {
+        areaRegions.get(locality).members.add(entry);
+      }
+    }
 
-        controllerLocations.get(cont.getLocality(game.getWorld())).remove(cont);
-        cont.setControllerInterface(null);
+    for (Entry entry : NON_LOCAL_CONTROLLERS) {
+      if (entry.controller.getIsStillRunning()) {
+        entry.controller.onUpdate(this);
+      }
+    }
+    NON_LOCAL_CONTROLLERS.clear();
+
+    // Update one color of region at a time, forking every region of that color onto the pool.
+    for (int color = 0; color < 4; color++) {
+      for (Region region : REGIONS) {
+        if (region.color == color && !region.members.isEmpty()) {
+          region.reinitialize();
+          pool.execute(region);
+        }
       }
+      for (Region region : REGIONS) {
+        if (region.color == color && !region.members.isEmpty()) {
+          region.join();
+        }
+      }
+    }
+
+    // Settle what each region held back, in row order.
+    for (Region region : REGIONS) {
+      region.settle();
+    }
+  }
+
+
+  private void pruneDeadController(Entry entry) {
+    final Controller cont = entry.controller;
+
+    entries.remove(cont);
+    controllerLocations.get(cont.getLocality(game.getWorld())).remove(cont);
+    cont.setControllerInterface(null);
+  }
+
+
+  /**
+   * Registers the entry to be sorted into the next turn, unless it already has been.
+   */
+  private void queueForNextTurn(Entry entry) {
+    if (entry.queued) {
+      return;
+    }
+
+    if (nextCount == NEXT_CONTROLLERS.length) {
+      NEXT_CONTROLLERS = Arrays.copyOf(NEXT_CONTROLLERS, Math.max(16, nextCount * 2));
+    }
+    NEXT_CONTROLLERS[nextCount++] = entry;
+    entry.queued = true;
+  }
+
+
+  /**
+   * @return {@code true} if the entry's controller has turns to sleep through and has been set
+   * aside on the sleep wheel.
+   */
+  private boolean putToSleep(Entry entry) {
+    final int turnsToSleep = Math.min(entry.controller.getTurnsToSleep(), MAX_TURNS_TO_SLEEP);
+    if (turnsToSleep <= 0) {
+      return false;
     }
+
+    entry.sleepingSince = beat;
+    entry.sleepingUntil = beat + turnsToSleep + 1;
+    SLEEP_WHEEL.get((int) (entry.sleepingUntil % SLEEP_WHEEL_SIZE)).add(entry);
+    return true;
   }
 
 
+  private void wake(Entry entry) {
+    creditSleep(entry);
+    queueForNextTurn(entry);
+  }
+
+
+  private void creditSleep(Entry entry) {
+    entry.controller.wake((int) (beat - entry.sleepingSince));
+    entry.sleepingSince = NOT_SLEEPING;
+  }
+
+
+  private void wakeControllersDueNextBeat() {
+    final long nextBeat = beat + 1;
+    final List<Entry> slot = SLEEP_WHEEL.get((int) (nextBeat % SLEEP_WHEEL_SIZE));
+
+    for (int i = 0; i < slot.size(); i++) {
+
+      // Controllers woken early are left in their slot, so skip any whose sleep has changed.
+      final Entry entry = slot.get(i);
+      if (entry.sleepingSince != NOT_SLEEPING && entry.sleepingUntil == nextBeat) {
+        wake(entry);
+      }
+    }
+    slot.clear();
+  }
+
+
+  /**
+   * Moves the active window to the player's area, placing it as
+   * {@code World.getAllAreasWithinRange()} would: as wide as it can be, up to the diameter,
+   * starting from the radius before the player where the world allows.
+   * <p>
+   * Sleeping controllers in areas that leave the window are credited with the turns they have
+   * slept so far, so that none are credited with turns spent out of range, and are then left out.
+   * Anything those areas' controllers had queued is dropped at the start of the next beat.
+   * Controllers in areas that enter the window are all registered for the next turn. Those in areas
+   * that stay in the window carry on as they were, asleep or not.
+   */
   private void calculateActiveAreasAndControllers() {
+    final World world = game.getWorld();
     final Coordinate playerAt = game.getActivePlayerActor().getCoordinate();
-    activeAreas = game.getWorld().getAllAreasWithinRange(playerAt, CONTROLLER_PROCESS_RADIUS);
-    activeAreas.add(null); // Null contains non-local controllers. Always process it!
+    final MapCoordinate playerArea = world.convertToMapCoordinate(playerAt);
+
+    final int minX = Math.max(playerArea.worldAreasX - CONTROLLER_PROCESS_RADIUS, 0);
+    final int minY = Math.max(playerArea.worldAreasY - CONTROLLER_PROCESS_RADIUS, 0);
+    final int maxX = Math.min(minX + CONTROLLER_PROCESS_RADIUS * 2,
+        world.getWorldSizeInAreas().getWidth() - 1);
+    final int maxY = Math.min(minY + CONTROLLER_PROCESS_RADIUS * 2,
+        world.getWorldSizeInAreas().getHeight() - 1);
+
+    forEachAreaOutside(activeMinX, activeMinY, activeMaxX, activeMaxY, minX, minY, maxX, maxY,
+        this::deactivateArea);
+    forEachAreaOutside(minX, minY, maxX, maxY, activeMinX, activeMinY, activeMaxX, activeMaxY,
+        this::activateArea);
+
+    activeMinX = minX;
+    activeMinY = minY;
+    activeMaxX = maxX;
+    activeMaxY = maxY;
+
+    // Load the entering areas all at once, and let the world drop any it no longer needs.
+    world.loadAreas(ENTERING_AREAS, ForkJoinPool.commonPool());
+    world.trimAreas(activeAreas);
+    ENTERING_AREAS.clear();
+
+    prefetchAreasAhead(playerAt);
+  }
+
+
+  /**
+   * Calls the given action with each area within the first window but not the second, row by row.
+   * Rows the second window spans only have their ends outside it visited, so that sliding a window
+   * by one area only visits a single row or column. Windows are inclusive, and empty if their
+   * maximum is less than their minimum.
+   */
+  private void forEachAreaOutside(int minX, int minY, int maxX, int maxY, int exceptMinX,
+      int exceptMinY, int exceptMaxX, int exceptMaxY, Consumer<Area> action) {
+    final World world = game.getWorld();
+
+    for (int y = minY; y <= maxY; y++) {
+      if (y < exceptMinY || y > exceptMaxY || exceptMaxX < exceptMinX) {
+        for (int x = minX; x <= maxX; x++) {
+          action.accept(world.getArea(x, y));
+        }
+      }
+      else {
+        for (int x = minX; x <= Math.min(maxX, exceptMinX - 1); x++) {
+          action.accept(world.getArea(x, y));
+        }
+        for (int x = Math.max(minX, exceptMaxX + 1); x <= maxX; x++) {
+          action.accept(world.getArea(x, y));
+        }
+      }
+    }
+  }
+
 
-    for (Area area : activeAreas) {
-      NEXT_CONTROLLERS.addAll(controllerLocations.get(area));
+  private void activateArea(Area area) {
+    areaIsActive[area.getIndex()] = true;
+    activeAreas.add(area);
+    ENTERING_AREAS.add(area);
+
+    // Controllers out of range were woken as they left, so none of these can be asleep.
+    for (Controller controller : controllerLocations.get(area)) {
+      queueForNextTurn(entries.get(controller));
     }
   }
 
 
+  private void deactivateArea(Area area) {
+    areaIsActive[area.getIndex()] = false;
+    activeAreas.remove(area);
+
+    // Left on the sleep wheel, a woken entry is simply skipped when its slot comes up.
+    for (Controller controller : controllerLocations.get(area)) {
+      final Entry entry = entries.get(controller);
+      if (entry.sleepingSince != NOT_SLEEPING) {
+        creditSleep(entry);
+      }
+    }
+  }
+
+
+  /**
+   * @return {@code true} if controllers in the given locality are within processing range. The
+   * null locality, which holds non-local controllers, always is.
+   */
+  private boolean getIsActive(Area locality) {
+    return locality == null || areaIsActive[locality.getIndex()];
+  }
+
+
+  /**
+   * Starts generating, in the background, the areas that would become active if the player went on
+   * into the next area the way they are facing, so that crossing into it doesn't have to wait for
+   * them. Must be called once the active areas are up to date.
+   */
+  private void prefetchAreasAhead(Coordinate playerAt) {
+    final World world = game.getWorld();
+    final Direction facing = game.getActivePlayerActor().getFacing();
+    final Dimension areaSize = world.getAreaSizeInSquares();
+    final Dimension globalSize = world.getGlobalSizeInSquares();
+
+    final Coordinate ahead = new Coordinate(
+        Utils.clamp(playerAt.globalX + facing.relativeX * areaSize.getWidth(), 0,
+            globalSize.getWidth() - 1),
+        Utils.clamp(playerAt.globalY + facing.relativeY * areaSize.getHeight(), 0,
+            globalSize.getHeight() - 1));
+
+    final Set<Area> areasAhead = world.getAllAreasWithinRange(ahead, CONTROLLER_PROCESS_RADIUS);
+    areasAhead.removeAll(activeAreas);
+    world.prefetchAreas(areasAhead, ForkJoinPool.commonPool());
+  }
+
+
+  /**
+   * Rolls initiative for every controller registered for the next turn, then counting sorts them
+   * into the active list by roll, lowest first. The sort is stable, so ties keep the order in which
+   * the controllers were registered.
+   */
   private void performNextTurnSort() {
 
-    // Clear this turn's actives.
-    ACTIVE_CONTROLLERS.clear();
+    if (ACTIVE_CONTROLLERS.length < nextCount) {
+      ACTIVE_CONTROLLERS = new Entry[NEXT_CONTROLLERS.length];
+      INITIATIVE_ROLLS = new int[NEXT_CONTROLLERS.length];
+    }
 
-    // Add the next controllers to active.
-    ACTIVE_CONTROLLERS.addAll(NEXT_CONTROLLERS);
-    NEXT_CONTROLLERS.clear();
+    // Roll initiative for all controllers, tallying how many land on each roll. Each tally is
+    // stored one slot up, so that summing them in place gives the index each roll starts at.
+    Arrays.fill(INITIATIVE_TALLIES, 0);
+    for (int i = 0; i < nextCount; i++) {
+      final int roll = Utils.clamp(NEXT_CONTROLLERS[i].controller.getRolledInitiative(), 0,
+          INITIATIVE_RANGE - 1);
+      INITIATIVE_ROLLS[i] = roll;
+      INITIATIVE_TALLIES[roll + 1]++;
+    }
+    for (int roll = 1; roll < INITIATIVE_TALLIES.length; roll++) {
+      INITIATIVE_TALLIES[roll] += INITIATIVE_TALLIES[roll - 1];
+    }
 
-    // Roll initiative for all controllers and then sort by rolls.
-    INITIATIVE_ROLLS.clear();
-    ACTIVE_CONTROLLERS.forEach(cont -> INITIATIVE_ROLLS.put(cont, cont.getRolledInitiative()));
+    // Replace this turn's actives with the next controllers, placed in order of their rolls.
+    for (int i = 0; i < nextCount; i++) {
+      final Entry entry = NEXT_CONTROLLERS[i];
+      ACTIVE_CONTROLLERS[INITIATIVE_TALLIES[INITIATIVE_ROLLS[i]]++] = entry;
+      entry.queued = false;
+    }
+    Arrays.fill(ACTIVE_CONTROLLERS, nextCount, Math.max(nextCount, activeCount), null);
+    Arrays.fill(NEXT_CONTROLLERS, 0, nextCount, null);
 
-    Collections.sort(ACTIVE_CONTROLLERS, CONTROLLER_COMPARATOR);
+    activeCount = nextCount;
+    nextCount = 0;
   }
 
 
-  public Set<Actor> getActorsInArea(Area area) {
+  /**
+   * @return Every registered controller that is still running, area by area in row order and then
+   * the non-local controllers, each in the order they arrived there.
+   */
+  public List<Controller> getControllers() {
+    final World world = game.getWorld();
+    final List<Controller> controllers = new ArrayList<>();
+
+    for (int areaY = 0; areaY < world.getWorldSizeInAreas().getHeight(); areaY++) {
+      for (int areaX = 0; areaX < world.getWorldSizeInAreas().getWidth(); areaX++) {
+        controllers.addAll(controllerLocations.get(world.getArea(areaX, areaY)));
+      }
+    }
+    controllers.addAll(controllerLocations.get(null));
 
-    HashSet<Actor> set = new HashSet<>();
+    controllers.removeIf(controller -> !controller.getIsStillRunning());
+    return controllers;
+  }
 
-    set.addAll(controllerLocations.get(area).stream()
-        .filter(ActorAgent.class::isInstance)
-        .map(agent -> ((ActorAgent) agent).getActor())
-        .collect(Collectors.toSet()));
 
-    // If the player is here and alive, include them in the return.
-    final Actor playerActor = game.getActivePlayerActor();
-    if (!playerActor.hasFlag(PhysicalFlag.DEAD)
-        && game.getWorld().getArea(playerActor.getCoordinate()) == area) {
-      set.add(playerActor);
+  /**
+   * @return How many turns the given controller has slept through so far without being credited
+   * with them, or zero if it is awake. Only meaningful between beats.
+   */
+  public int getTurnsSlept(Controller controller) {
+    final Entry entry = entries.get(controller);
+    if (entry == null || entry.sleepingSince == NOT_SLEEPING) {
+      return 0;
     }
+    return (int) (beat - entry.sleepingSince);
+  }
+
 
-    return set;
+  /**
+   * @return How many beats from now the given controller is due to wake, or zero if it is awake.
+   * Only meaningful between beats.
+   */
+  public int getBeatsUntilWaking(Controller controller) {
+    final Entry entry = entries.get(controller);
+    if (entry == null || entry.sleepingSince == NOT_SLEEPING) {
+      return 0;
+    }
+    return (int) (entry.sleepingUntil - beat);
+  }
+
+
+  /**
+   * @return The controllers that take the next turn, in the order they take it. Only meaningful
+   * between beats.
+   */
+  public List<Controller> getTurnOrder() {
+    final List<Controller> controllers = new ArrayList<>(activeCount);
+    for (int i = 0; i < activeCount; i++) {
+      controllers.add(ACTIVE_CONTROLLERS[i].controller);
+    }
+    return controllers;
+  }
+
+
+  /**
+   * @return The controllers filed in each slot of the sleep wheel, in the order they are filed.
+   * Those woken early are left in their slot, so a controller may turn up in more than one slot,
+   * and one whose sleep has since changed is skipped when its old slot comes up. Only meaningful
+   * between beats.
+   */
+  public List<List<Controller>> getSleepWheel() {
+    final List<List<Controller>> sleepWheel = new ArrayList<>(SLEEP_WHEEL_SIZE);
+    for (List<Entry> slot : SLEEP_WHEEL) {
+      final List<Controller> controllers = new ArrayList<>(slot.size());
+      for (Entry entry : slot) {
+        controllers.add(entry.controller);
+      }
+      sleepWheel.add(controllers);
+    }
+    return sleepWheel;
+  }
+
+
+  public long getBeat() {
+    return beat;
+  }
+
+
+  /**
+   * @return The total action delay of the given actor, including any turns it has slept through
+   * but not yet been credited with.
+   */
+  public int getTotalActionDelay(Actor actor) {
+    final Entry entry = entries.get(actor.getActorObserver());
+    if (entry == null || entry.sleepingSince == NOT_SLEEPING) {
+      return actor.getTotalActionDelay();
+    }
+    return actor.getTotalActionDelay() - (int) (beat - entry.sleepingSince);
+  }
+
+
+  /**
+   * Holds the scheduling state of one registered controller: whether it is already queued for the
+   * next turn, and if it is asleep, the beat it went to sleep on and the beat it is due to wake on.
+   */
+  private static final class Entry {
+
+    final Controller controller;
+
+    boolean queued = false;
+    long sleepingSince = NOT_SLEEPING;
+    long sleepingUntil;
+
+
+    Entry(Controller controller) {
+      this.controller = controller;
+    }
+  }
+
+
+  /**
+   * A block of areas whose controllers are updated together, on one thread, in parallel mode.
+   * While it updates, any changes its controllers make to the shared schedule are held here, to be
+   * applied once every region has finished.
+   */
+  @SuppressWarnings("serial") // Only ever run in place, never serialized.
+  private final class Region extends RecursiveAction {
+
+    final int color;
+    final List<Entry> members = new ArrayList<>();
+
+    // The areas the area graph may be worked out for while this region updates: its own, and one
+    // more all round. Working those out reads one area further again, which still only reaches
+    // regions of other colors, so nothing another thread is changing.
+    final int minSearchAreaX;
+    final int minSearchAreaY;
+    final int maxSearchAreaX;
+    final int maxSearchAreaY;
+
+    final List<Controller> changedLocality = new ArrayList<>();
+    final List<Area> changedFrom = new ArrayList<>();
+    final List<Area> changedTo = new ArrayList<>();
+    final List<Entry> woken = new ArrayList<>();
+
+
+    Region(int color, int firstAreaX, int firstAreaY) {
+      this.color = color;
+      this.minSearchAreaX = firstAreaX - 1;
+      this.minSearchAreaY = firstAreaY - 1;
+      this.maxSearchAreaX = firstAreaX + REGION_SIZE_IN_AREAS;
+      this.maxSearchAreaY = firstAreaY + REGION_SIZE_IN_AREAS;
+    }
+
+
+    @Override
+    protected void compute() {
+      final World world = game.getWorld();
+      updatingRegion.set(this);
+      world.confineSearches(minSearchAreaX, minSearchAreaY, maxSearchAreaX, maxSearchAreaY);
+      try {
+        for (int i = 0; i < members.size(); i++) {
+          final Controller controller = members.get(i).controller;
+          if (controller.getIsStillRunning()) {
+            controller.onUpdate(GameControllers.this);
+          }
+        }
+      }
+      finally {
+        world.unconfineSearches();
+        updatingRegion.remove();
+      }
+    }
+
+
+    void deferLocalityChange(Controller controller, Area from, Area to) {
+      changedLocality.add(controller);
+      changedFrom.add(from);
+      changedTo.add(to);
+    }
+
+
+    /**
+     * Applies every held change in the order it was made, then empties the region for next beat.
+     */
+    void settle() {
+      for (int i = 0; i < changedLocality.size(); i++) {
+        onLocalityChanged(changedLocality.get(i), changedFrom.get(i), changedTo.get(i));
+      }
+      for (int i = 0; i < woken.size(); i++) {
+        queueForNextTurn(woken.get(i));
+      }
+
+      members.clear();
+      changedLocality.clear();
+      changedFrom.clear();
+      changedTo.clear();
+      woken.clear();
+    }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,311 @@
+package game;
+
+import actor.Actor;
+import actor.ActorFactory;
+import controller.ActorAgent;
+import controller.Controller;
+import controller.ai.AiActorAgent;
+import controller.player.PlayerAgent;
+import game.io.display.EventLog;
+import game.physical.Physical;
+import game.physical.PhysicalFlag;
+import utils.RandomStreams;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
+import world.World;
+import world.WorldFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Saves a game to a file as a compact binary snapshot, and loads it back. A snapshot must be taken
+ * between beats, on the thread that runs them.
+ * <p>
+ * Most of a world is never written. Areas are generated from the game's seed, so only areas that
+ * have changed since they were generated are written, each compressed on its own, with terrain as
+ * variation numbers and things as their template IDs. Templates, and the actors and things that
+ * others refer to, are written once and referred to by number after that. Each actor's random
+ * stream is written where it stands, so a loaded game goes on to draw the same numbers as the one
+ * that was saved.
+ * <p>
+ * A snapshot is laid out as a header, then every actor's own state, then what they hold, then the
+ * world, then every actor's queued action, then the controllers and where each stands in the
+ * schedule, and finally the event log. Each part only refers back to parts before it. The schedule
+ * is written as it stands, down to the order of the turn and of each slot of the sleep wheel, so a
+ * loaded game carries on exactly as the saved one would have.
+ */
+public class GameSnapshot {
+
+  private static final int MAGIC = 0x434F494E; // "COIN"
+  private static final int VERSION = 3;
+
+
+  /**
+   * Writes the given game to the given file, replacing whatever was there.
+   */
+  public static void save(Game game, Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        SnapshotWriter out = new SnapshotWriter(channel)) {
+
+      write(game, out);
+    }
+  }
+
+
+  /**
+   * Reads back a game written by {@code save()}.
+   *
+   * @throws IOException If the file is not a snapshot this version can read, or is damaged.
+   */
+  public static Game load(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        SnapshotReader in = new SnapshotReader(channel)) {
+
+      return read(in);
+    }
+  }
+
+
+  private static void write(Game game, SnapshotWriter out) throws IOException {
+    final World world = game.getWorld();
+    final GameControllers gameControllers = game.getGameControllers();
+    final PlayerAgent playerAgent = game.getPlayerAgent();
+
+    // Besides the player's, only AI controllers are saved, since they are all a game is built with.
+    final List<AiActorAgent> agents = new ArrayList<>();
+    for (Controller controller : gameControllers.getControllers()) {
+      if (controller instanceof AiActorAgent) {
+        agents.add((AiActorAgent) controller);
+      }
+    }
+
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeLong(game.getRandomStreams().getSeed());
+
+    // Every actor with a controller, then the bodies of the dead, wherever they lie or are carried.
+    final List<Actor> actors = new ArrayList<>();
+    actors.add(playerAgent.getActor());
+    for (AiActorAgent agent : agents) {
+      actors.add(agent.getActor());
+    }
+    collectCorpses(world, actors);
+
+    out.writeInt(actors.size());
+    for (Actor actor : actors) {
+      actor.writeTo(out);
+    }
+    for (Actor actor : actors) {
+      actor.writeHoldingsTo(out);
+    }
+
+    world.writeTo(out);
+
+    for (Actor actor : actors) {
+      actor.writeActionTo(out);
+    }
+
+    out.writeLong(gameControllers.getBeat());
+    out.writeReference(playerAgent.getActor());
+    writeSleep(gameControllers, playerAgent, out);
+    playerAgent.getWorldMapRevealedComponent().writeTo(out);
+
+    out.writeInt(agents.size());
+    for (AiActorAgent agent : agents) {
+      out.writeReference(agent.getActor());
+      writeSleep(gameControllers, agent, out);
+      agent.writeBehaviorTo(out);
+    }
+
+    // Only the controllers that were saved can be scheduled in a loaded game.
+    final Set<Controller> saved = Collections.newSetFromMap(new IdentityHashMap<>());
+    saved.addAll(agents);
+    if (!playerAgent.getActor().hasFlag(PhysicalFlag.DEAD)) {
+      saved.add(playerAgent);
+    }
+
+    writeControllers(gameControllers.getTurnOrder(), saved, out);
+    final List<List<Controller>> sleepWheel = gameControllers.getSleepWheel();
+    out.writeInt(sleepWheel.size());
+    for (List<Controller> slot : sleepWheel) {
+      writeControllers(slot, saved, out);
+    }
+
+    EventLog.writeTo(out);
+  }
+
+
+  private static Game read(SnapshotReader in) throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a game snapshot.");
+    }
+    final int version = in.readInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported snapshot version: " + version);
+    }
+    final RandomStreams randomStreams = new RandomStreams(in.readLong());
+
+    final int actorCount = in.readInt();
+    final List<Actor> actors = new ArrayList<>(actorCount);
+    final List<Actor> liveActors = new ArrayList<>(actorCount);
+
+    for (int i = 0; i < actorCount; i++) {
+      final Actor actor = ActorFactory.readActor(in);
+      actors.add(actor);
+      if (!actor.hasFlag(PhysicalFlag.DEAD)) {
+        liveActors.add(actor);
+      }
+    }
+    for (Actor actor : actors) {
+      actor.readHoldingsFrom(in);
+    }
+
+    final World world = WorldFactory.readWorld(in, randomStreams, liveActors);
+    final Game game = new Game(world, randomStreams);
+
+    for (Actor actor : actors) {
+      actor.readActionFrom(in);
+    }
+
+    // Register the controllers as they were, each asleep or awake, and taking its next turn in the
+    // same order. A player who has died keeps their agent, as in the game that was saved, but it
+    // no longer runs.
+    final GameControllers gameControllers = game.getGameControllers();
+    final long beat = in.readLong();
+
+    final Actor player = in.readReference(Actor.class);
+    if (player == null) {
+      throw new IOException("Snapshot has no player.");
+    }
+    final PlayerAgent playerAgent = new PlayerAgent(player, world);
+    final int playerTurnsSlept = in.readInt();
+    final int playerBeatsUntilWaking = in.readInt();
+    playerAgent.getWorldMapRevealedComponent().readFrom(in);
+    game.setPlayerAgent(playerAgent);
+    gameControllers.resumeFrom(beat);
+
+    final Map<Actor, Controller> controllers = new IdentityHashMap<>();
+    final int agentCount = in.readInt();
+    for (int i = 0; i < agentCount; i++) {
+      final Actor actor = in.readReference(Actor.class);
+      if (actor == null || actor.hasFlag(PhysicalFlag.DEAD)) {
+        throw new IOException("AI controller for a missing or dead actor.");
+      }
+
+      final int turnsSlept = in.readInt();
+      final int beatsUntilWaking = in.readInt();
+      final AiActorAgent agent = new AiActorAgent(actor, game.getInformer());
+      agent.readBehaviorFrom(in);
+      gameControllers.restoreController(agent, turnsSlept, beatsUntilWaking);
+      controllers.put(actor, agent);
+    }
+
+    if (!player.hasFlag(PhysicalFlag.DEAD)) {
+      gameControllers.restoreController(playerAgent, playerTurnsSlept, playerBeatsUntilWaking);
+      controllers.put(player, playerAgent);
+
+      // Keep a flow field on the player, as a new game does.
+      world.trackFlowField(player);
+    }
+
+    final List<Controller> turnOrder = readControllers(controllers, in);
+    final int slotCount = in.readInt();
+    final List<List<Controller>> sleepWheel = new ArrayList<>();
+    for (int i = 0; i < slotCount; i++) {
+      sleepWheel.add(readControllers(controllers, in));
+    }
+    try {
+      gameControllers.restoreSchedule(turnOrder, sleepWheel);
+    }
+    catch (IllegalArgumentException e) {
+      throw new IOException("Sleep wheel does not fit: " + e.getMessage());
+    }
+
+    EventLog.readFrom(in, game);
+    return game;
+  }
+
+
+  /**
+   * Writes how many turns the given controller has slept through, and how many beats from now it
+   * is due to wake, or zero for both if it is awake.
+   */
+  private static void writeSleep(GameControllers gameControllers, Controller controller,
+      SnapshotWriter out) throws IOException {
+    out.writeInt(gameControllers.getTurnsSlept(controller));
+    out.writeInt(gameControllers.getBeatsUntilWaking(controller));
+  }
+
+
+  /**
+   * Writes the actors of those of the given controllers that are saved, in order.
+   */
+  private static void writeControllers(List<Controller> controllers, Set<Controller> saved,
+      SnapshotWriter out) throws IOException {
+    final List<Actor> actors = new ArrayList<>();
+    for (Controller controller : controllers) {
+      if (saved.contains(controller)) {
+        actors.add(((ActorAgent) controller).getActor());
+      }
+    }
+
+    out.writeInt(actors.size());
+    for (Actor actor : actors) {
+      out.writeReference(actor);
+    }
+  }
+
+
+  /**
+   * Reads back a list written by {@code writeControllers()}, as the given actors' controllers.
+   */
+  private static List<Controller> readControllers(Map<Actor, Controller> actorControllers,
+      SnapshotReader in) throws IOException {
+    final int count = in.readInt();
+    final List<Controller> controllers = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final Controller controller = actorControllers.get(in.readReference(Actor.class));
+      if (controller == null) {
+        throw new IOException("Schedule names an actor without a controller.");
+      }
+      controllers.add(controller);
+    }
+    return controllers;
+  }
+
+
+  /**
+   * Adds the bodies of dead actors to the given list of actors: those lying in the world, then any
+   * carried by an actor already in the list, including by another body.
+   */
+  private static void collectCorpses(World world, List<Actor> actors) {
+    final Set<Actor> collected = Collections.newSetFromMap(new IdentityHashMap<>());
+    collected.addAll(actors);
+
+    final List<Actor> lying = new ArrayList<>();
+    world.collectCorpses(lying);
+    for (Actor corpse : lying) {
+      if (collected.add(corpse)) {
+        actors.add(corpse);
+      }
+    }
+
+    for (int i = 0; i < actors.size(); i++) {
+      for (Physical carried : actors.get(i).getInventory().getItemsHeld()) {
+        if (carried instanceof Actor && collected.add((Actor) carried)) {
+          actors.add((Actor) carried);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,160 @@
+package game.io;
+
+import actor.Actor;
+import actor.ActorFactory;
+import actor.attribute.Rank;
+import controller.Controller;
+import controller.ControllerInterface;
+import controller.player.PlayerAgent;
+import game.Executor;
+import game.Game;
+import game.GameControllers;
+import utils.Dimension;
+import utils.RandomStream;
+import utils.RandomStreams;
+import world.Coordinate;
+import world.World;
+import world.WorldFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what a beat of {@code GameControllers.onUpdate()} costs in scheduling alone. Each run
+ * registers a number of controllers that do nothing on their turn but roll a fresh initiative, in a
+ * tiny world with no actors, so that the time and memory measured are those of filtering, sorting
+ * and queueing the controllers rather than of anything they do. Every controller wants a turn every
+ * beat, which is the most the turn order ever has to sort.
+ * <p>
+ * Bytes allocated are read from the JVM's count for the running thread, so they cover everything
+ * the beat allocated, not only the sort. Until the beat is fully compiled, that count can include
+ * short-lived objects, such as iterators, that the compiled beat never puts on the heap, which is
+ * why the warm-up is long.
+ */
+public class ControllerBenchmark {
+
+  private static final long DEFAULT_BEATS = 1000;
+  private static final int[] DEFAULT_CONTROLLER_COUNTS = {1000, 10000, 100000};
+
+  // Controller turns to run before measuring, at the least, so that small counts get as long to
+  // compile as large ones.
+  private static final long WARM_UP_TURNS = 50000000;
+
+  private static final long SEED = 1;
+
+  private static final int RANK_COUNT = Rank.values().length;
+
+
+  /**
+   * Takes an optional number of beats to measure over, then optionally the controller counts to
+   * measure at (1k, 10k and 100k if omitted). Each count is run at least as long again first,
+   * unmeasured, so that the JIT has compiled the beat and the schedule's arrays have grown to fit.
+   */
+  public static void main(String[] args) {
+    System.setProperty("java.awt.headless", "true");
+
+    final long beats = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_BEATS;
+
+    int[] controllerCounts = DEFAULT_CONTROLLER_COUNTS;
+    if (args.length > 1) {
+      controllerCounts = new int[args.length - 1];
+      for (int i = 1; i < args.length; i++) {
+        controllerCounts[i - 1] = Integer.parseInt(args[i]);
+      }
+    }
+
+    for (int controllerCount : controllerCounts) {
+      measure(controllerCount, beats);
+    }
+  }
+
+
+  /**
+   * Runs a game of the given number of no-op controllers and prints the average time and bytes
+   * allocated per beat.
+   */
+  private static void measure(int controllerCount, long beats) {
+    final Game game = makeEmptyGame();
+    final GameControllers gameControllers = game.getGameControllers();
+    for (int i = 0; i < controllerCount; i++) {
+      gameControllers.addController(new NoOpController(SEED + i));
+    }
+
+    final long warmUpBeats = Math.max(beats, WARM_UP_TURNS / Math.max(1, controllerCount));
+    for (long beat = 0; beat < warmUpBeats; beat++) {
+      game.update();
+    }
+
+    final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final long threadId = Thread.currentThread().getId();
+
+    final long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+    final long startedAt = System.nanoTime();
+    for (long beat = 0; beat < beats; beat++) {
+      game.update();
+    }
+    final long elapsed = System.nanoTime() - startedAt;
+    final long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+    System.out.println(controllerCount + " controllers: "
+        + TimeUnit.NANOSECONDS.toMicros(elapsed / beats) + " us/beat, "
+        + allocated / beats + " bytes/beat allocated, over " + beats + " beats.");
+  }
+
+
+  /**
+   * Makes a game of a few areas and no actors but the player's, who is only there for the active
+   * window to be placed around, and is never registered as a controller. The world is laid out by
+   * the noise generator, which takes much the same short time every run.
+   */
+  private static Game makeEmptyGame() {
+    final RandomStreams randomStreams = new RandomStreams(SEED);
+    final World world = WorldFactory.generate(new Dimension(48, 48), new Dimension(2, 2),
+        randomStreams, WorldFactory.NOISE_GENERATOR);
+    final Game game = new Game(world, randomStreams);
+
+    final Actor player = ActorFactory
+        .makeActor("HUMAN", randomStreams.getStream(RandomStreams.Subsystem.ACTOR, 0));
+    if (player == null) {
+      throw new IllegalStateException("Failed to instantiate an actor for the player.");
+    }
+    player.setCoordinate(new Coordinate(0, 0));
+    game.setPlayerAgent(new PlayerAgent(player, world));
+    return game;
+  }
+
+
+  /**
+   * A non-local controller, so always active, that does nothing with its turns.
+   */
+  private static final class NoOpController implements Controller {
+
+    private final RandomStream random;
+
+
+    private NoOpController(long seed) {
+      this.random = new RandomStream(seed);
+    }
+
+
+    @Override
+    public void setControllerInterface(ControllerInterface controllerInterface) { }
+
+
+    @Override
+    public void onUpdate(Executor executor) { }
+
+
+    @Override
+    public boolean getIsStillRunning() {
+      return true;
+    }
+
+
+    @Override
+    public int getRolledInitiative() {
+      return random.nextInt(RANK_COUNT);
+    }
+  }
+}
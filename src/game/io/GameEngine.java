@@ -7,6 +7,7 @@ import game.io.input.GameInput;
 
 import java.security.InvalidParameterException;
 import java.util.Stack;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -14,6 +15,9 @@ import java.util.Stack;
 public class GameEngine {
 
   private static final int MILLISECONDS_PER_HEARTBEAT = 20;
+  static final long NANOSECONDS_PER_HEARTBEAT =
+      TimeUnit.MILLISECONDS.toNanos(MILLISECONDS_PER_HEARTBEAT);
+  private static final int MAX_CATCH_UP_BEATS = 5;
 
   private static final Stack<TimeMode> TIME_MODE = new Stack<>();
   private static Game runningGame;
@@ -23,23 +27,40 @@ public class GameEngine {
     @Override
     public void run() {
       synchronized (this) {
+        long nextBeatAt = System.nanoTime();
+
         while (!thread.isInterrupted()) {
 
           // Freeze the game (stop sending state updates) if the Engine has been paused, but
-          //   continue sending Display updates.
+          //   continue sending input updates. The display is only asked to render when something
+          //   has changed; it repaints on its own schedule, so slow painting never holds up the
+          //   simulation, and a paused game costs no repaints once its event log has faded.
 
-          GameInput.onUpdate();
+          boolean displayChanged = GameInput.onUpdate();
 
           TimeMode timeMode = TIME_MODE.peek();
           if (timeMode == TimeMode.LIVE || (timeMode == TimeMode.PRECISION && !runningGame
               .getActivePlayerActor().isFreeToAct())) {
             runningGame.update();
+            displayChanged = true;
+          }
+
+          if (displayChanged) {
+            GameDisplay.captureFrame();
+            GameDisplay.requestRender();
           }
 
-          GameDisplay.onUpdate();
+          // Beats run on a fixed timestep. If we fall behind, run the following beats back to
+          // back to catch up, but drop the backlog entirely if it grows too long.
+          nextBeatAt += NANOSECONDS_PER_HEARTBEAT;
+          final long waitFor = nextBeatAt - System.nanoTime();
+
+          if (waitFor < -NANOSECONDS_PER_HEARTBEAT * MAX_CATCH_UP_BEATS) {
+            nextBeatAt = System.nanoTime();
+          }
 
           try {
-            wait(MILLISECONDS_PER_HEARTBEAT);
+            TimeUnit.NANOSECONDS.timedWait(this, waitFor);
           }
           catch (InterruptedException e) {
             e.printStackTrace();
@@ -60,7 +81,7 @@ public class GameEngine {
   }
 
 
-  public static void setTimeMode(TimeMode timeMode) {
+  public static synchronized void setTimeMode(TimeMode timeMode) {
     if (TIME_MODE.contains(timeMode)) {
 
       while (TIME_MODE.peek() != timeMode) {
@@ -73,7 +94,7 @@ public class GameEngine {
   }
 
 
-  public static void revertTimeMode() {
+  public static synchronized void revertTimeMode() {
     TIME_MODE.pop();
   }
 
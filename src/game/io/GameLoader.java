@@ -2,10 +2,14 @@ package game.io;
 
 import game.Game;
 import game.GameBuilder;
+import game.GameSnapshot;
 import game.io.display.GameDisplay;
 import game.io.input.GameInput;
 import utils.Dimension;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+
 /**
  *
  */
@@ -32,7 +36,7 @@ class GameLoader {
   }
 
 
-  static void unload() {
+  static void unload() throws IOException {
     if (runningGame == null) {
       throw new IllegalStateException("No active Game to unload!");
     }
@@ -40,11 +44,20 @@ class GameLoader {
     GameEngine.unloadRunningGame(runningGame);
     GameDisplay.unloadRunningGame(runningGame);
     GameInput.unloadRunningGame(runningGame);
+    runningGame.close();
     runningGame = null;
   }
 
 
-  public static void main(String[] args) {
-    load(GameBuilder.newGame(new Dimension(48, 48), new Dimension(24, 24)));
+  /**
+   * Starts a new game or, if given the path of a snapshot, carries on the game saved there.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length > 0) {
+      load(GameSnapshot.load(Paths.get(args[0])));
+    }
+    else {
+      load(GameBuilder.newGame(new Dimension(48, 48), new Dimension(24, 24)));
+    }
   }
 }
\ No newline at end of file
@@ -58,8 +58,8 @@ public class GameResources {
 
       while (map != null) {
 
-        final ThingTemplate template = buildThingTemplate(map);
         final String id = map.get("id");
+        final ThingTemplate template = buildThingTemplate(id, map);
 
         commit(id, template);
 
@@ -69,13 +69,14 @@ public class GameResources {
   }
 
 
-  private static ThingTemplate buildThingTemplate(Map<String, String> map) throws IOException {
+  private static ThingTemplate buildThingTemplate(String id, Map<String, String> map)
+      throws IOException {
     final String name = map.get("name");
     final List<Appearance> appearances = ResourceParser.Things.buildThingAppearances(map);
     final EnumSet<PhysicalFlag> flags = ResourceParser.Physicals.parseFlags(map.get("flags"));
     final WeaponComponent weaponComponent = ResourceParser.Things.buildWeaponComponent(map);
 
-    return new ThingTemplate(name, appearances, flags, weaponComponent);
+    return new ThingTemplate(id, name, appearances, flags, weaponComponent);
   }
 
 
@@ -104,8 +105,8 @@ public class GameResources {
 
     while (map != null) {
 
-      final ActorTemplate template = buildActorTemplate(map);
       final String id = map.get("id");
+      final ActorTemplate template = buildActorTemplate(id, map);
 
       commit(id, template);
 
@@ -114,14 +115,15 @@ public class GameResources {
   }
 
 
-  private static ActorTemplate buildActorTemplate(Map<String, String> map) throws IOException {
+  private static ActorTemplate buildActorTemplate(String id, Map<String, String> map)
+      throws IOException {
     final String name = map.get("name");
     final Appearance appearances = ResourceParser.Actors.buildActorAppearance(map);
     final EnumSet<PhysicalFlag> flags = ResourceParser.Physicals.parseFlags(map.get("flags"));
     final List<AttributeRange> attributeRanges = ResourceParser.Actors.buildAttributeRanges(map);
     final String naturalWeaponID = map.get("natural_weapon_id");
 
-    return new ActorTemplate(name, appearances, flags, attributeRanges, naturalWeaponID);
+    return new ActorTemplate(id, name, appearances, flags, attributeRanges, naturalWeaponID);
   }
 
 
@@ -0,0 +1,130 @@
+package game.io;
+
+import game.Game;
+import game.GameBuilder;
+import game.GameSnapshot;
+import game.io.display.EventLog;
+import utils.Dimension;
+import utils.RandomStreams;
+import world.WorldFactory;
+import world.WorldGenerator;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a game without any window, rendering or input attached. Beats are run back to back as
+ * fast as the CPU allows or, if given a speed multiple, on a fixed timestep at that multiple of the
+ * normal heartbeat. This lets us fast-forward worlds, soak-test large numbers of AI actors and
+ * measure the cost of {@code GameControllers.onUpdate()} without a display.
+ * <p>
+ * Time modes are ignored here. With nobody at the keyboard, precision time and paused time would
+ * never resume, so every beat is run as though time were live.
+ */
+public class HeadlessEngine {
+
+  private static final long NANOSECONDS_PER_REPORT = TimeUnit.SECONDS.toNanos(1);
+
+  private static final long DEFAULT_BEATS = 10000;
+
+
+  /**
+   * Runs the given game for the given number of beats, printing the rate achieved about once a
+   * second.
+   *
+   * @param speedMultiple How many times faster than real time the game should run. Zero or less
+   *                      runs uncapped.
+   * @return The average number of beats per second achieved over the whole run.
+   */
+  public static double run(Game game, long beats, double speedMultiple) {
+
+    final boolean uncapped = speedMultiple <= 0;
+    final long nanosecondsPerBeat =
+        uncapped ? 0 : (long) (GameEngine.NANOSECONDS_PER_HEARTBEAT / speedMultiple);
+
+    final long startedAt = System.nanoTime();
+    long nextBeatAt = startedAt;
+    long nextReportAt = startedAt + NANOSECONDS_PER_REPORT;
+    long beatsSinceReport = 0;
+    long lastReportAt = startedAt;
+
+    for (long beat = 1; beat <= beats; beat++) {
+
+      // On a fixed timestep, wait for this beat's slot. If we have fallen behind, the slot has
+      // already passed and we run straight away until we catch up.
+      if (!uncapped) {
+        long waitFor = nextBeatAt - System.nanoTime();
+        while (waitFor > 0) {
+          LockSupport.parkNanos(waitFor);
+          waitFor = nextBeatAt - System.nanoTime();
+        }
+        nextBeatAt += nanosecondsPerBeat;
+      }
+
+      game.update();
+      beatsSinceReport++;
+
+      final long now = System.nanoTime();
+      if (now >= nextReportAt) {
+        System.out.println("Beat " + beat + ": " + Math
+            .round(calcBeatsPerSecond(beatsSinceReport, now - lastReportAt)) + " beats/s");
+        beatsSinceReport = 0;
+        lastReportAt = now;
+        nextReportAt = now + NANOSECONDS_PER_REPORT;
+      }
+    }
+
+    return calcBeatsPerSecond(beats, System.nanoTime() - startedAt);
+  }
+
+
+  private static double calcBeatsPerSecond(long beats, long nanoseconds) {
+    return beats * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanoseconds);
+  }
+
+
+  /**
+   * Generates a game and runs it headless. Takes an optional beat count, an optional speed multiple
+   * (uncapped if omitted), an optional number of threads to update regions on in parallel (one
+   * thread, updating sequentially, if omitted), an optional seed (random if omitted), the optional
+   * name of the world generator to lay out the world with ("standard" or "noise", standard if
+   * omitted) and an optional path to save a snapshot of the game to once the run is over.
+   */
+  public static void main(String[] args) throws IOException {
+    System.setProperty("java.awt.headless", "true");
+
+    final long beats = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_BEATS;
+    final double speedMultiple = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+    final int threads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+    final long seed = args.length > 3 ? Long.parseLong(args[3]) : RandomStreams.makeSeed();
+    final WorldGenerator generator = args.length > 4 ? WorldFactory.getGenerator(args[4])
+        : WorldFactory.STANDARD_GENERATOR;
+
+    final long generationStartedAt = System.nanoTime();
+    final Game game =
+        GameBuilder.newGame(new Dimension(48, 48), new Dimension(24, 24), seed, generator);
+    System.out.println("Generated " + generator.getName().toLowerCase() + " game from seed " + seed
+        + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - generationStartedAt) + " ms.");
+
+    EventLog.initialize(game);
+    if (threads > 1) {
+      game.getGameControllers().setParallelPool(new ForkJoinPool(threads));
+    }
+
+    final double beatsPerSecond = run(game, beats, speedMultiple);
+    System.out.println("Ran " + beats + " beats at an average of " + Math.round(beatsPerSecond)
+        + " beats/s.");
+
+    if (args.length > 5) {
+      final long savingStartedAt = System.nanoTime();
+      GameSnapshot.save(game, Paths.get(args[5]));
+      System.out.println("Saved snapshot to " + args[5] + " in "
+          + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - savingStartedAt) + " ms.");
+    }
+
+    game.close();
+  }
+}
@@ -0,0 +1,92 @@
+package game.io;
+
+import game.Game;
+import game.GameBuilder;
+import game.GameSnapshot;
+import game.io.display.EventLog;
+import utils.Dimension;
+import utils.RandomStreams;
+import world.WorldFactory;
+import world.WorldGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks that a saved game is a faithful resume. A game is run headless for a while and saved,
+ * then run on for a while longer without interruption. The snapshot is then loaded and run on for
+ * the same number of beats. If saving and loading lose nothing, both runs end in the same state,
+ * and so save to the same bytes, apart from the event log.
+ */
+public class ResumeCheck {
+
+  private static final long DEFAULT_BEATS_BEFORE = 300;
+  private static final long DEFAULT_BEATS_AFTER = 300;
+
+
+  /**
+   * Runs the check, exiting with a non-zero status if the two runs differ. Takes an optional beat
+   * count to run before saving, an optional beat count to run after, an optional number of threads
+   * to update regions on in parallel (one thread, updating sequentially, if omitted), an optional
+   * seed (random if omitted) and the optional name of the world generator to lay out the world
+   * with (standard if omitted).
+   */
+  public static void main(String[] args) throws IOException {
+    System.setProperty("java.awt.headless", "true");
+
+    final long beatsBefore = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_BEATS_BEFORE;
+    final long beatsAfter = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_BEATS_AFTER;
+    final int threads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+    final long seed = args.length > 3 ? Long.parseLong(args[3]) : RandomStreams.makeSeed();
+    final WorldGenerator generator = args.length > 4 ? WorldFactory.getGenerator(args[4])
+        : WorldFactory.STANDARD_GENERATOR;
+
+    final ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    final Path saved = Files.createTempFile("coinage-resume", ".bin");
+    final Path uninterrupted = Files.createTempFile("coinage-uninterrupted", ".bin");
+    final Path resumed = Files.createTempFile("coinage-resumed", ".bin");
+
+    try {
+      final Game game =
+          GameBuilder.newGame(new Dimension(48, 48), new Dimension(24, 24), seed, generator);
+      EventLog.initialize(game);
+      game.getGameControllers().setParallelPool(pool);
+      HeadlessEngine.run(game, beatsBefore, 0);
+      GameSnapshot.save(game, saved);
+      HeadlessEngine.run(game, beatsAfter, 0);
+
+      // Events are stamped with the time they were posted, so the log is left out of the
+      // comparison.
+      EventLog.clear();
+      GameSnapshot.save(game, uninterrupted);
+      game.close();
+
+      final Game loaded = GameSnapshot.load(saved);
+      loaded.getGameControllers().setParallelPool(pool);
+      HeadlessEngine.run(loaded, beatsAfter, 0);
+      EventLog.clear();
+      GameSnapshot.save(loaded, resumed);
+      loaded.close();
+
+      final boolean isSame = Arrays.equals(Files.readAllBytes(uninterrupted),
+          Files.readAllBytes(resumed));
+      System.out.println((isSame ? "Resumed game matches" : "Resumed game differs from")
+          + " the uninterrupted run, " + generator.getName().toLowerCase() + " world, seed " + seed
+          + ", saved after " + beatsBefore + " beats and run " + beatsAfter + " more.");
+      if (!isSame) {
+        System.exit(1);
+      }
+    }
+    finally {
+      Files.deleteIfExists(saved);
+      Files.deleteIfExists(uninterrupted);
+      Files.deleteIfExists(resumed);
+      if (pool != null) {
+        pool.shutdown();
+      }
+    }
+  }
+}
@@ -6,8 +6,10 @@ import game.Game;
 import game.TimeMode;
 import game.io.GameEngine;
 import game.physical.Appearance;
+import utils.Dimension;
 import world.AreaCoordinate;
 import world.Coordinate;
+import world.World;
 
 import java.awt.AlphaComposite;
 import java.awt.Color;
@@ -15,7 +17,9 @@ import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  *
@@ -26,17 +30,38 @@ class ActionOverlay {
   private static final Font ACTION_OVERLAY_FONT =
       new Font("Monospaced", Font.BOLD, SQUARE_SIZE * 5 / 7);
 
+  // The actors in the player's area, as last taken on the game thread.
+  private static volatile List<Actor> localActors = Collections.emptyList();
 
-  public static void drawOverlay(Graphics2D g) {
 
-    final Game runningGame = GameDisplay.getRunningGame();
+  /**
+   * Takes a copy of the actors within the bounds of the player's area from the world's index, which
+   * may only be read on the game thread, for the frames drawn after it.
+   */
+  static void captureActors(Game runningGame) {
     final Actor playerActor = runningGame.getActivePlayerActor();
+    final World world = runningGame.getWorld();
+    final Dimension areaSize = world.getAreaSizeInSquares();
+    final Coordinate playerAt = playerActor.getCoordinate();
+    final AreaCoordinate playerAtAC = world.convertToAreaCoordinate(playerAt);
+
+    final List<Actor> captured = new ArrayList<>();
+    world.getActorIndex().getActorsWithin(playerAt.globalX - playerAtAC.areaX,
+        playerAt.globalY - playerAtAC.areaY, areaSize.getWidth(), areaSize.getHeight(),
+        captured);
+
+    // The player is drawn even after death, when it is no longer in the index.
+    if (!captured.contains(playerActor)) {
+      captured.add(playerActor);
+    }
+    localActors = captured;
+  }
 
-    // Draw an overlay on actors indicating the direction they are facing.
-    Set<Actor> localActors = runningGame.getGameControllers()
-        .getActorsInArea(runningGame.getWorld().getArea(playerActor.getCoordinate()));
 
-    localActors.add(playerActor);
+  public static void drawOverlay(Graphics2D g) {
+
+    // Draw an overlay on actors indicating the direction they are facing.
+    final List<Actor> localActors = ActionOverlay.localActors;
 
     g.setFont(ACTION_OVERLAY_FONT);
     g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.5f));
@@ -94,7 +119,7 @@ class ActionOverlay {
 
       AreaCoordinate actionTargetAC = runningGame.getWorld().convertToAreaCoordinate(actionTarget);
 
-      int actionDelay = actor.getTotalActionDelay() + 1;
+      int actionDelay = runningGame.getGameControllers().getTotalActionDelay(actor) + 1;
 
       int drawX = actionTargetAC.areaX * SQUARE_SIZE;
       int drawY = actionTargetAC.areaY * SQUARE_SIZE;
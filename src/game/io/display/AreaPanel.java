@@ -3,8 +3,8 @@ package game.io.display;
 import game.Game;
 import game.io.input.GameInput;
 import game.physical.Physical;
-import world.AreaCoordinate;
 import world.Coordinate;
+import world.FieldOfView;
 import world.World;
 
 import javax.swing.JPanel;
@@ -12,6 +12,8 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  *
@@ -20,6 +22,9 @@ class AreaPanel extends JPanel {
 
   private static final int SQUARE_SIZE = GameDisplay.SQUARE_SIZE;
 
+  // Dimmed versions of each color drawn outside the player's field of view, made as needed.
+  private final Map<Color, Color> fogColors = new HashMap<>();
+
 
   public AreaPanel() {
     setBackground(Color.BLACK);
@@ -34,20 +39,45 @@ class AreaPanel extends JPanel {
     final Game runningGame = GameDisplay.getRunningGame();
     final World world = runningGame.getWorld();
 
-    Coordinate playerAt = runningGame.getActivePlayerActor().getCoordinate();
-    AreaCoordinate playerAtAC = world.convertToAreaCoordinate(playerAt);
-    Coordinate playerAreaOrigin = playerAt.offset(-playerAtAC.areaX, -playerAtAC.areaY);
+    final Coordinate playerAt = runningGame.getActivePlayerActor().getCoordinate();
+    final int areaWidth = world.getAreaSizeInSquares().getWidth();
+    final int areaHeight = world.getAreaSizeInSquares().getHeight();
+    final int originX = playerAt.globalX - playerAt.globalX % areaWidth;
+    final int originY = playerAt.globalY - playerAt.globalY % areaHeight;
+    final FieldOfView playerView = runningGame.getPlayerAgent().getFieldOfView();
+    final Coordinate target = GameInput.getPlayerTarget();
+
+    // Hold the player's view while drawing, so the game thread leaves it alone until done.
+    final FieldOfView.Visibility visibility = playerView.beginReading();
+    try {
+      drawSquares(g, world, visibility, target, originX, originY, areaWidth, areaHeight);
+    }
+    finally {
+      playerView.endReading();
+    }
+
+    ActionOverlay.drawOverlay((Graphics2D) g);
+    EventLog.drawOverlay((Graphics2D) g);
+  }
+
 
-    for (int y = 0; y < world.getAreaSizeInSquares().getHeight(); y++) {
-      for (int x = 0; x < world.getAreaSizeInSquares().getWidth(); x++) {
+  private void drawSquares(Graphics g, World world, FieldOfView.Visibility visibility,
+      Coordinate target, int originX, int originY, int areaWidth, int areaHeight) {
 
-        Coordinate thisCoordinate = playerAreaOrigin.offset(x, y);
+    // Squares are asked about by position, so drawing a frame makes no coordinates or squares.
+    for (int y = 0; y < areaHeight; y++) {
+      for (int x = 0; x < areaWidth; x++) {
+        final int globalX = originX + x;
+        final int globalY = originY + y;
 
-        final Physical visible = world.getSquare(thisCoordinate).peek();
+        // Squares the player can't see are drawn dimmed, without any actors that might be there.
+        final boolean isInView = visibility.isVisible(globalX, globalY);
+        final Physical visible =
+            isInView ? world.peek(globalX, globalY) : world.peekScenery(globalX, globalY);
 
         final char mapSymbol = visible.getMapSymbol();
-        final Color color = visible.getColor();
-        final Color bgColor = visible.getBGColor();
+        final Color color = isInView ? visible.getColor() : getFogColor(visible.getColor());
+        final Color bgColor = isInView ? visible.getBGColor() : getFogColor(visible.getBGColor());
 
         int placeX = (x) * SQUARE_SIZE;
         int placeY = (y) * SQUARE_SIZE + getInsets().top;
@@ -55,14 +85,15 @@ class AreaPanel extends JPanel {
         SquareDrawer.drawSquare(g, mapSymbol, color, bgColor, SQUARE_SIZE, placeX, placeY);
 
         // Draw a cursor on the square targeted by the player.
-        Coordinate target = GameInput.getPlayerTarget();
-        if (target != null && target.equalTo(thisCoordinate)) {
+        if (target != null && target.globalX == globalX && target.globalY == globalY) {
           SquareDrawer.drawOval(g, GameDisplay.CURSOR, SQUARE_SIZE, placeX, placeY);
         }
       }
     }
+  }
 
-    ActionOverlay.drawOverlay((Graphics2D) g);
-    EventLog.drawOverlay((Graphics2D) g);
+
+  private Color getFogColor(Color color) {
+    return color == null ? null : fogColors.computeIfAbsent(color, c -> c.darker().darker());
   }
 }
@@ -26,7 +26,15 @@ public class Event {
   final String message;
 
   public Event(Color color, String message) {
-    this.timePosted = System.currentTimeMillis();
+    this(System.currentTimeMillis(), color, message);
+  }
+
+
+  /**
+   * Makes an event posted at the given time, as when it is read back from a snapshot.
+   */
+  Event(long timePosted, Color color, String message) {
+    this.timePosted = timePosted;
     this.color = color;
     this.message = message;
   }
@@ -2,6 +2,8 @@ package game.io.display;
 
 import game.Game;
 import utils.Dimension;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
 import utils.Utils;
 import world.Area;
 import world.AreaCoordinate;
@@ -12,6 +14,7 @@ import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -53,6 +56,9 @@ public class EventLog {
   // This list stores all logged events since the game started.
   private static final List<Event> loggedEvents = new ArrayList<>();
 
+  // Held here rather than read from GameDisplay so that events can be logged without a window.
+  private static Game runningGame;
+
   // These values are calculated when a game is started, because they depend on area size.
   private static int drawWidth;
   private static int drawX;
@@ -76,13 +82,17 @@ public class EventLog {
 
   /**
    * Must be called when a new game is loaded in order for the EventLog to know how big/where to
-   * draw itself.
+   * draw itself, and where the player is when deciding which events are local. The events logged
+   * so far are kept if they were read back along with the game.
    */
-  static void initialize() {
-    loggedEvents.clear();
+  public static void initialize(Game game) {
+    if (game != runningGame) {
+      loggedEvents.clear();
+    }
+    runningGame = game;
 
     final int squareSize = GameDisplay.SQUARE_SIZE;
-    final Dimension areaSize = GameDisplay.getRunningGame().getWorld().getAreaSizeInSquares();
+    final Dimension areaSize = game.getWorld().getAreaSizeInSquares();
 
     drawWidth = (int) (squareSize * areaSize.getWidth() * widthAsProportionOfAreaPanel);
     drawX = areaSize.getWidth() / 2 * squareSize - drawWidth / 2;
@@ -91,6 +101,48 @@ public class EventLog {
   }
 
 
+  /**
+   * Forgets every event logged so far.
+   */
+  public static synchronized void clear() {
+    loggedEvents.clear();
+    indexOfTopOfDisplay = 0;
+    indexOfFirstLiveEvent = 0;
+  }
+
+
+  /**
+   * Writes every event logged so far, with the time it was posted.
+   */
+  public static synchronized void writeTo(SnapshotWriter out) throws IOException {
+    out.writeInt(loggedEvents.size());
+    for (Event event : loggedEvents) {
+      out.writeLong(event.timePosted);
+      out.writeInt(event.color.getRGB());
+      out.writeString(event.message);
+    }
+  }
+
+
+  /**
+   * Replaces the logged events with those written by {@code writeTo()}, as the log of the given
+   * game, which is being read back along with them.
+   */
+  public static synchronized void readFrom(SnapshotReader in, Game game) throws IOException {
+    loggedEvents.clear();
+    runningGame = game;
+    indexOfTopOfDisplay = 0;
+    indexOfFirstLiveEvent = 0;
+
+    final int count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      final long timePosted = in.readLong();
+      final Color color = new Color(in.readInt(), true);
+      loggedEvents.add(new Event(timePosted, color, in.readString()));
+    }
+  }
+
+
   /**
    * Called whenever the log should change shape or arrangement in some way. This means expanding,
    * contracting, or scrolling. It does NOT refer to (is not called) when a live event fades,
@@ -215,9 +267,10 @@ public class EventLog {
 
 
   /**
-   * Registers a new event for immediate display in the log.
+   * Registers a new event for immediate display in the log. Controllers updating in parallel may
+   * call this at the same time, so it is synchronized.
    */
-  public static void registerEvent(Color color, String message) {
+  public static synchronized void registerEvent(Color color, String message) {
     loggedEvents.add(new Event(color, message));
     recalculate();
   }
@@ -229,7 +282,6 @@ public class EventLog {
    */
   public static void registerEventIfPlayerIsLocal(Coordinate nearTo, Color color, String message) {
 
-    final Game runningGame = GameDisplay.getRunningGame();
     final World world = runningGame.getWorld();
     final Area playerArea = world.getArea(runningGame.getActivePlayerActor().getCoordinate());
     final Area eventArea = world.getArea(nearTo);
@@ -295,13 +347,25 @@ public class EventLog {
   }
 
 
+  /**
+   * Events are logged in the order they were posted, so the log has live events exactly when the
+   * latest one is still live.
+   *
+   * @return {@code true} if any logged event is still live, and so will later need redrawing as it
+   * fades.
+   */
+  static synchronized boolean hasLiveEvents() {
+    return !loggedEvents.isEmpty() && System.currentTimeMillis()
+        - loggedEvents.get(loggedEvents.size() - 1).timePosted < eventLifeSpan;
+  }
+
+
   /**
    * Returns true if we should be drawing the event log at the top of the screen instead of the
    * bottom, because the player is far enough down the screen that we need to see what's behind
    * where the log usually is.
    */
   private static boolean getIsPlayerBelowSwapLine() {
-    final Game runningGame = GameDisplay.getRunningGame();
     final AreaCoordinate playerAt = runningGame.getWorld()
         .convertToAreaCoordinate(runningGame.getActivePlayerActor().getCoordinate());
 
@@ -10,6 +10,8 @@ import javax.swing.JPanel;
 import javax.swing.WindowConstants;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.security.InvalidParameterException;
 import java.util.List;
@@ -39,6 +41,23 @@ public class GameDisplay {
     }
   };
 
+  private static final RenderScheduler RENDER_SCHEDULER =
+      new RenderScheduler(GameDisplay::render);
+
+  // Input handlers change what is shown (modes, prompts, selections) outside of the game's update.
+  private static final KeyListener RENDER_ON_KEY = new KeyAdapter() {
+    @Override
+    public void keyPressed(KeyEvent e) {
+      requestRender();
+    }
+
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+      requestRender();
+    }
+  };
+
   private static Game runningGame;
 
 
@@ -56,7 +75,27 @@ public class GameDisplay {
   }
 
 
-  public static void onUpdate() {
+  /**
+   * Marks the display as out of date. The repaint itself happens on the next screen refresh, and
+   * any number of requests before then are coalesced into a single frame.
+   */
+  public static void requestRender() {
+    RENDER_SCHEDULER.requestRender();
+  }
+
+
+  /**
+   * Takes what the next frames need from the running game that may only be read on the game
+   * thread. Must be called from the game thread whenever the game has changed.
+   */
+  public static void captureFrame() {
+    if (runningGame != null) {
+      ActionOverlay.captureActors(runningGame);
+    }
+  }
+
+
+  private static void render() {
     PANEL_AREA.repaint();
     PANEL_SIDE.repaint();
   }
@@ -68,7 +107,11 @@ public class GameDisplay {
           "Already running a game, must first call unloadRunningGame().");
     }
     GameDisplay.runningGame = activeGame;
-    EventLog.initialize();
+    EventLog.initialize(activeGame);
+
+    // The game isn't running yet, so the first frame can be taken from here.
+    captureFrame();
+    RENDER_SCHEDULER.start();
   }
 
 
@@ -81,6 +124,7 @@ public class GameDisplay {
     if (GameDisplay.runningGame != runningGame) {
       throw new InvalidParameterException("Game parameter does not match currently running game.");
     }
+    RENDER_SCHEDULER.stop();
     GameDisplay.runningGame = null;
   }
 
@@ -92,5 +136,6 @@ public class GameDisplay {
 
   public static void addKeyListeners(List<KeyListener> keyListeners) {
     keyListeners.forEach(WINDOW::addKeyListener);
+    WINDOW.addKeyListener(RENDER_ON_KEY);
   }
 }
@@ -0,0 +1,90 @@
+package game.io.display;
+
+import javax.swing.Timer;
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Schedules repaints independently of the simulation heartbeat. Anything that changes what is on
+ * screen calls {@code requestRender()}, which only marks the display as dirty. A Swing timer then
+ * checks that mark once per monitor refresh and renders at most one frame for however many
+ * requests have piled up since the last one.
+ * <p>
+ * Because the timer coalesces its events, frames are dropped rather than queued whenever painting
+ * or the simulation falls behind. While the event log has live messages, a clean display is still
+ * refreshed every so often, so that they fade even while the game is paused. Once the last of them
+ * has faded, a clean display is not repainted again until something asks for it.
+ */
+class RenderScheduler {
+
+  private static final int FALLBACK_REFRESH_RATE = 60;
+  private static final long IDLE_REFRESH_MILLISECONDS = 250;
+
+  private final Runnable render;
+  private final Timer timer;
+  private final AtomicBoolean dirty = new AtomicBoolean(true);
+
+  private long lastRenderedAt = 0;
+  private boolean liveEventsShown = false; // Whether the last frame drew live event log messages.
+
+
+  RenderScheduler(Runnable render) {
+    this.render = render;
+    this.timer = new Timer(1000 / getRefreshRate(), event -> onFrame());
+    timer.setCoalesce(true);
+  }
+
+
+  /**
+   * @return The refresh rate of the default screen, or {@code FALLBACK_REFRESH_RATE} if it cannot
+   * be determined.
+   */
+  private static int getRefreshRate() {
+    final int refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment()
+        .getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+
+    if (refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN) {
+      return FALLBACK_REFRESH_RATE;
+    }
+    return refreshRate;
+  }
+
+
+  void start() {
+    dirty.set(true);
+    timer.start();
+  }
+
+
+  void stop() {
+    timer.stop();
+  }
+
+
+  /**
+   * Marks the display as needing a new frame. Safe to call from any thread, as often as needed.
+   */
+  void requestRender() {
+    dirty.set(true);
+  }
+
+
+  /**
+   * Called on the event dispatch thread once per refresh. Renders if anything has changed since the
+   * last frame, or if the display has been idle for long enough that live event log messages need
+   * fading. The last frame to have drawn live messages is followed by one more once they have all
+   * faded, so that none is left on screen looking live.
+   */
+  private void onFrame() {
+    final long now = System.currentTimeMillis();
+    final boolean liveEvents = EventLog.hasLiveEvents();
+    final boolean fading = liveEvents || liveEventsShown;
+
+    if (dirty.getAndSet(false) || (fading && now - lastRenderedAt >= IDLE_REFRESH_MILLISECONDS)) {
+      render.run();
+      lastRenderedAt = now;
+      liveEventsShown = liveEvents;
+    }
+  }
+}
@@ -95,10 +95,17 @@ public class GameInput {
   }
 
 
-  public static void onUpdate() {
+  /**
+   * Called every heartbeat by the GameEngine, whether or not the game itself is updating.
+   *
+   * @return {@code true} if anything that is displayed changed during this update.
+   */
+  public static boolean onUpdate() {
+
+    boolean displayChanged = false;
 
     if (targetCursor != null) {
-      targetCursor.onUpdate();
+      displayChanged = targetCursor.onUpdate();
     }
 
     if (startRepeatingMoveDelay > 0) {
@@ -108,7 +115,10 @@ public class GameInput {
       runningGame.getPlayerAgent().attemptAction(
           new Moving(runningGame.getActivePlayerActor(), delayedMoveDirection, false));
       terminateRepeatingMoveTimer();
+      displayChanged = true;
     }
+
+    return displayChanged;
   }
 
 
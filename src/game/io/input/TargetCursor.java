@@ -47,7 +47,10 @@ public class TargetCursor {
 
 
 
-  void onUpdate() {
+  /**
+   * @return {@code true} if the cursor moved.
+   */
+  boolean onUpdate() {
     if (moveDelay > 0) {
       moveDelay--;
     }
@@ -72,9 +75,11 @@ public class TargetCursor {
           listSelectLength = world.getSquare(target).getAll().size();
           listSelectIndex = 0;
         }
+        return true;
       }
 
     }
+    return false;
   }
 
   public void scrollSelection(int deltaY) {
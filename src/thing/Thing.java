@@ -2,20 +2,34 @@ package thing;
 
 import game.physical.Physical;
 
+import java.util.SplittableRandom;
+
 /**
  * {@code Things}s are objects. They are acted upon by actors, taking no actions of their
  * own and knowing nothing about the world around them.
  */
 public class Thing extends Physical {
 
+  private final ThingTemplate template;
+  private final int appearanceNumber;
   private final WeaponComponent weaponComponent;
 
-  Thing(ThingTemplate tT) {
+  Thing(ThingTemplate tT, SplittableRandom random) {
+    this(tT, tT.rollAppearance(random));
+  }
+
+  /**
+   * Makes a thing with the given one of its template's appearances, as when it is read back from a
+   * snapshot. Everything else about a thing comes from its template.
+   */
+  Thing(ThingTemplate tT, int appearanceNumber) {
     super(
         tT.name,
-        tT.getRandomAppearance()
+        tT.getAppearance(appearanceNumber)
     );
 
+    template = tT;
+    this.appearanceNumber = appearanceNumber;
     weaponComponent = tT.weaponComponent;
 
     if (tT.flags != null) {
@@ -28,4 +42,16 @@ public class Thing extends Physical {
     return weaponComponent;
   }
 
+  /**
+   * @return The ID of the template this thing was made from, which together with its appearance
+   * number is enough to make it again.
+   */
+  public String getTemplateID() {
+    return template.id;
+  }
+
+  public int getAppearanceNumber() {
+    return appearanceNumber;
+  }
+
 }
\ No newline at end of file
@@ -1,14 +1,99 @@
 package thing;
 
 import game.io.GameResources;
+import game.physical.Physical;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
 
 /**
  *
  */
 public class ThingFactory {
 
-  public static Thing makeThing(String thingTemplateID) {
-    return new Thing(GameResources.getThingTemplateByID(thingTemplateID));
+  // How a physical is written to a snapshot: in full if it is a thing, or as a reference if it is
+  // anything else, which must have been registered already.
+  private static final int SNAPSHOT_THING = 0;
+  private static final int SNAPSHOT_REFERENCE = 1;
+
+
+  public static Thing makeThing(String thingTemplateID, SplittableRandom random) {
+    return new Thing(GameResources.getThingTemplateByID(thingTemplateID), random);
+  }
+
+
+  /**
+   * Makes a thing again from its template's ID and the number of its appearance, as given by the
+   * thing's own getters.
+   *
+   * @throws IllegalArgumentException If there is no such template.
+   */
+  public static Thing makeThing(String thingTemplateID, int appearanceNumber) {
+    final ThingTemplate template = GameResources.getThingTemplateByID(thingTemplateID);
+    if (template == null) {
+      throw new IllegalArgumentException("Unknown thing template: " + thingTemplateID);
+    }
+    return new Thing(template, appearanceNumber);
   }
 
+
+  /**
+   * Writes a thing as its template's ID and the number of its appearance, and registers it so that
+   * actions can refer to it.
+   */
+  public static void writeThing(SnapshotWriter out, Thing thing) throws IOException {
+    out.register(thing);
+    out.writeName(thing.getTemplateID());
+    out.writeByte(thing.getAppearanceNumber());
+  }
+
+
+  /**
+   * Reads back and registers a thing written by {@code writeThing()}.
+   *
+   * @throws IOException If its template no longer exists.
+   */
+  public static Thing readThing(SnapshotReader in) throws IOException {
+    final String templateID = in.readName();
+    final int appearanceNumber = in.readByte() & 0xFF;
+
+    final ThingTemplate template = GameResources.getThingTemplateByID(templateID);
+    if (template == null) {
+      throw new IOException("Unknown thing template: " + templateID);
+    }
+
+    final Thing thing = new Thing(template, appearanceNumber);
+    in.register(thing);
+    return thing;
+  }
+
+
+  /**
+   * Writes a physical found lying somewhere or being carried. Things are written in full, and
+   * anything else, such as the body of an actor, is referred to.
+   */
+  public static void writePhysical(SnapshotWriter out, Physical physical) throws IOException {
+    if (physical instanceof Thing) {
+      out.writeByte(SNAPSHOT_THING);
+      writeThing(out, (Thing) physical);
+    }
+    else {
+      out.writeByte(SNAPSHOT_REFERENCE);
+      out.writeReference(physical);
+    }
+  }
+
+
+  public static Physical readPhysical(SnapshotReader in) throws IOException {
+    final int kind = in.readByte();
+    if (kind == SNAPSHOT_THING) {
+      return readThing(in);
+    }
+    if (kind == SNAPSHOT_REFERENCE) {
+      return in.readReference(Physical.class);
+    }
+    throw new IOException("Unknown kind of physical: " + kind);
+  }
 }
\ No newline at end of file
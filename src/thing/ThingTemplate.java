@@ -1,24 +1,26 @@
 package thing;
 
-import game.Game;
 import game.physical.Appearance;
 import game.physical.PhysicalFlag;
 
 import java.util.EnumSet;
 import java.util.List;
+import java.util.SplittableRandom;
 
 /**
  * A stored Prototype from which Things can be fabricated.
  */
 public class ThingTemplate {
 
+  final String id;
   final String name;
   private final List<Appearance> appearances;
   final EnumSet<PhysicalFlag> flags;
   final WeaponComponent weaponComponent;
 
-  public ThingTemplate(String name, List<Appearance> appearances, EnumSet<PhysicalFlag> flags,
-      WeaponComponent weaponComponent) {
+  public ThingTemplate(String id, String name, List<Appearance> appearances,
+      EnumSet<PhysicalFlag> flags, WeaponComponent weaponComponent) {
+    this.id = id;
     this.name = name;
     this.appearances = appearances;
     this.flags = flags;
@@ -31,7 +33,18 @@ public class ThingTemplate {
   }
 
 
-  Appearance getRandomAppearance() {
-    return appearances.get(Game.RANDOM.nextInt(appearances.size()));
+  /**
+   * @return The number of a randomly chosen appearance, for {@code getAppearance()}.
+   */
+  int rollAppearance(SplittableRandom random) {
+    return random.nextInt(appearances.size());
+  }
+
+
+  /**
+   * @throws IndexOutOfBoundsException If there is no appearance with the given number.
+   */
+  Appearance getAppearance(int appearanceNumber) {
+    return appearances.get(appearanceNumber);
   }
 }
\ No newline at end of file
@@ -1,25 +1,48 @@
 package utils;
 
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A grid of elements of any type, stored row by row in a single array. Views share the array of the
+ * Array2D they were taken from, so taking one copies nothing, and reading one costs no more than
+ * reading the original. For grids of numbers or flags, {@code IntGrid}, {@code ShortGrid} and
+ * {@code BitGrid} store them without boxing.
+ */
+public class Array2D<E> extends Grid implements Iterable<E> {
 
-public class Array2D<E> implements Iterable<E> {
+  /**
+   * Receives an element of an Array2D along with its position.
+   */
+  @FunctionalInterface
+  public interface IndexedAction<E> {
+
+    void accept(int x, int y, E value);
+  }
 
-  private final Dimension dimension;
-  private final Object[][] elementData;
+
+  private final Object[] elementData;
+  private final boolean isModifiable;
 
 
   /**
-   * Private constructor used only by ModifiableView and UnmodifiableView.
+   * Private constructor used only for views.
    */
-  private Array2D() {
-    dimension = null;
-    elementData = null;
+  private Array2D(Object[] elementData, Dimension dimension, int offset, int stride,
+      boolean isModifiable) {
+    super(dimension, offset, stride);
+    this.elementData = elementData;
+    this.isModifiable = isModifiable;
   }
 
 
@@ -29,11 +52,7 @@ public class Array2D<E> implements Iterable<E> {
    */
   public Array2D(Array2D<E> toCopy) {
     this(toCopy.getDimension());
-    for (int y = 0; y < dimension.getHeight(); y++) {
-      for (int x = 0; x < dimension.getWidth(); x++) {
-        put(toCopy.get(x, y), x, y);
-      }
-    }
+    copyFrom(toCopy);
   }
 
 
@@ -41,8 +60,7 @@ public class Array2D<E> implements Iterable<E> {
    * Constructs this Array2D with all values set to null.
    */
   public Array2D(Dimension dimension) {
-    this.dimension = dimension;
-    elementData = new Object[dimension.getHeight()][dimension.getWidth()];
+    this(new Object[dimension.getArea()], dimension, 0, dimension.getWidth(), true);
   }
 
 
@@ -50,8 +68,7 @@ public class Array2D<E> implements Iterable<E> {
    * Constructs this Array2D with all values set to {@code defaultValue}.
    */
   public Array2D(Dimension dimension, E defaultValue) {
-    this.dimension = dimension;
-    elementData = new Object[dimension.getHeight()][dimension.getWidth()];
+    this(dimension);
     setAll(defaultValue);
   }
 
@@ -61,7 +78,7 @@ public class Array2D<E> implements Iterable<E> {
    */
   @SuppressWarnings("unchecked")
   public E get(int x, int y) {
-    return (E) elementData[y][x];
+    return (E) elementData[indexOf(x, y)];
   }
 
 
@@ -69,9 +86,12 @@ public class Array2D<E> implements Iterable<E> {
    * Assigns an element to the given index. Returns the element that was already at the given index,
    * or null if there was none.
    */
+  @SuppressWarnings("unchecked")
   public E put(E object, int x, int y) {
-    final E replaced = get(x, y);
-    elementData[y][x] = object;
+    modifiableCheck();
+    final int index = indexOf(x, y);
+    final E replaced = (E) elementData[index];
+    elementData[index] = object;
     return replaced;
   }
 
@@ -79,19 +99,35 @@ public class Array2D<E> implements Iterable<E> {
   /**
    * Sets every object in the Array2D to the given element.
    */
-  public Array2D setAll(E object) {
-    for (Object[] subArray : elementData) {
-      Arrays.setAll(subArray, i -> object);
+  public Array2D<E> setAll(E object) {
+    modifiableCheck();
+    for (int y = 0; y < dimension.getHeight(); y++) {
+      final int start = rowStart(y);
+      Arrays.fill(elementData, start, start + dimension.getWidth(), object);
     }
     return this;
   }
 
 
   /**
-   * Returns the size of this Array2D.
+   * Copies every element of the given Array2D, which must be the same size, into this one, a row at
+   * a time.
    */
-  public Dimension getDimension() {
-    return dimension;
+  public Array2D<E> copyFrom(Array2D<? extends E> source) {
+    modifiableCheck();
+    sizeCheck(source);
+    for (int y = 0; y < dimension.getHeight(); y++) {
+      System.arraycopy(source.elementData, source.rowStart(y), elementData, rowStart(y),
+          dimension.getWidth());
+    }
+    return this;
+  }
+
+
+  private void modifiableCheck() {
+    if (!isModifiable) {
+      throw new UnsupportedOperationException("This Array2D is unmodifiable.");
+    }
   }
 
 
@@ -104,10 +140,9 @@ public class Array2D<E> implements Iterable<E> {
    * @param offX     Where the left edge of the viewport should start on the backing array.
    * @param offY     Where the top edge of the viewport should start on the backing array.
    */
-  @SuppressWarnings("unchecked")
   public Array2D<E> view(Dimension viewport, int offX, int offY) {
-    rangeCheckView(viewport, offX, offY);
-    return new ModifiableView(viewport, offX, offY);
+    return new Array2D<>(elementData, viewport, viewOffset(viewport, offX, offY), stride,
+        isModifiable);
   }
 
 
@@ -120,22 +155,8 @@ public class Array2D<E> implements Iterable<E> {
    * @param offX     Where the left edge of the viewport should start on the backing array.
    * @param offY     Where the top edge of the viewport should start on the backing array.
    */
-  @SuppressWarnings("unchecked")
   public Array2D<E> unmodifiableView(Dimension viewport, int offX, int offY) {
-    rangeCheckView(viewport, offX, offY);
-    return new UnmodifiableView(viewport, offX, offY);
-  }
-
-
-  /**
-   * Ensures no view is created that would extend past the boundaries of its parent Array2D.
-   */
-  private void rangeCheckView(Dimension viewport, int offX, int offY) {
-    final int limitX = viewport.getWidth() -1 + offX;
-    final int limitY = viewport.getHeight() -1 + offY;
-    if (!getDimension().getCoordinateIsWithinBounds(limitX, limitY)) {
-      throw new IndexOutOfBoundsException("View would extend past backing array boundaries.");
-    }
+    return new Array2D<>(elementData, viewport, viewOffset(viewport, offX, offY), stride, false);
   }
 
 
@@ -144,10 +165,11 @@ public class Array2D<E> implements Iterable<E> {
    */
   @SuppressWarnings("unchecked")
   public Set<E> toSet() {
-    final HashSet<E> set = new HashSet<>();
-    for (final Object[] subArray : elementData) {
-      for (final Object element : subArray) {
-        set.add((E) element);
+    final Set<E> set = new LinkedHashSet<>();
+    for (int y = 0; y < dimension.getHeight(); y++) {
+      final int start = rowStart(y);
+      for (int i = start; i < start + dimension.getWidth(); i++) {
+        set.add((E) elementData[i]);
       }
     }
     return set;
@@ -161,15 +183,52 @@ public class Array2D<E> implements Iterable<E> {
 
 
   @Override
+  @SuppressWarnings("unchecked")
   public void forEach(Consumer<? super E> action) {
-    for (int y = 0; y < getDimension().getHeight(); y++) {
-      for (int x = 0; x < getDimension().getWidth(); x++) {
-        action.accept(get(x, y));
+    for (int y = 0; y < dimension.getHeight(); y++) {
+      final int start = rowStart(y);
+      for (int i = start; i < start + dimension.getWidth(); i++) {
+        action.accept((E) elementData[i]);
       }
     }
   }
 
 
+  /**
+   * As {@code forEach(Consumer)}, but also passing each element's position.
+   */
+  @SuppressWarnings("unchecked")
+  public void forEach(IndexedAction<? super E> action) {
+    for (int y = 0; y < dimension.getHeight(); y++) {
+      final int start = rowStart(y);
+      for (int x = 0; x < dimension.getWidth(); x++) {
+        action.accept(x, y, (E) elementData[start + x]);
+      }
+    }
+  }
+
+
+  /**
+   * Returns a spliterator over the elements of this Array2D in row order. It knows exactly how many
+   * elements it covers, and splits between rows, so that parallel work over a grid is handed out a
+   * block of whole rows at a time.
+   */
+  @Override
+  public Spliterator<E> spliterator() {
+    return new RowSpliterator(0, dimension.getArea());
+  }
+
+
+  public Stream<E> stream() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+
+
+  public Stream<E> parallelStream() {
+    return StreamSupport.stream(spliterator(), true);
+  }
+
+
   /**
    * Returns a new Array2D that is the result of applying the given function to every element in
    * this one.
@@ -177,131 +236,148 @@ public class Array2D<E> implements Iterable<E> {
    * @param mapper A function that takes in the type of this Array2D and returns type {@code <R>}.
    * @param <R>    The type returned by the mapper.
    */
+  @SuppressWarnings("unchecked")
   public <R> Array2D<R> map(Function<E, R> mapper) {
     Objects.requireNonNull(mapper);
-    final Array2D<R> mapped = new Array2D<>(getDimension());
-    for (int y = 0; y < getDimension().getHeight(); y++) {
-      for (int x = 0; x < getDimension().getWidth(); x++) {
-        mapped.put(mapper.apply(get(x, y)), x, y);
+    final Array2D<R> mapped = new Array2D<>(dimension);
+    for (int y = 0; y < dimension.getHeight(); y++) {
+      final int start = rowStart(y);
+      final int mappedStart = mapped.rowStart(y);
+      for (int x = 0; x < dimension.getWidth(); x++) {
+        mapped.elementData[mappedStart + x] = mapper.apply((E) elementData[start + x]);
       }
     }
     return mapped;
   }
 
 
-  private class ModifiableView extends Array2D<E> {
-
-    final Dimension viewport;
-    final int offX;
-    final int offY;
-
-
-    public ModifiableView(Dimension viewport, int offX, int offY) {
-      this.viewport = viewport;
-      this.offX = offX;
-      this.offY = offY;
-    }
-
-
-    /**
-     * Ensures that operations within this view cannot reach backing array elements that are outside
-     * its boundary.
-     */
-    private void rangeCheck(int x, int y) {
-      if (!viewport.getCoordinateIsWithinBounds(x, y)) {
-        throw new IndexOutOfBoundsException();
+  /**
+   * As {@code map()}, but into an {@code IntGrid}, so that the results are not boxed.
+   */
+  @SuppressWarnings("unchecked")
+  public IntGrid mapToInt(ToIntFunction<? super E> mapper) {
+    Objects.requireNonNull(mapper);
+    final IntGrid mapped = new IntGrid(dimension);
+    for (int y = 0; y < dimension.getHeight(); y++) {
+      final int start = rowStart(y);
+      for (int x = 0; x < dimension.getWidth(); x++) {
+        mapped.put(mapper.applyAsInt((E) elementData[start + x]), x, y);
       }
     }
+    return mapped;
+  }
 
 
-    @Override
-    public E get(int x, int y) {
-      rangeCheck(x, y);
-      return Array2D.this.get(x + offX, y + offY);
-    }
-
+  private class Itr implements Iterator<E> {
 
-    @Override
-    public E put(E object, int x, int y) {
-      rangeCheck(x, y);
-      return Array2D.this.put(object, x + offX, y + offY);
-    }
+    private final int width = dimension.getWidth();
+    private final int height = dimension.getHeight();
+    private int x = 0;
+    private int y = 0;
 
 
     @Override
-    public Array2D<E> setAll(E object) {
-      for (int y = 0; y < viewport.getHeight(); y++) {
-        for (int x = 0; x < viewport.getWidth(); x++) {
-          put(object, x, y);
-        }
-      }
-      return this;
+    public boolean hasNext() {
+      return y < height && width > 0;
     }
 
 
     @Override
-    public Dimension getDimension() {
-      return viewport;
-    }
-
+    @SuppressWarnings("unchecked")
+    public E next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
 
-    @Override
-    public Set<E> toSet() {
-      final HashSet<E> set = new HashSet<>();
-      for (int y = 0; y < viewport.getHeight(); y++) {
-        for (int x = 0; x < viewport.getWidth(); x++) {
-          set.add(get(x, y));
-        }
+      final E next = (E) elementData[rowStart(y) + x];
+      if (++x == width) {
+        x = 0;
+        y++;
       }
-      return set;
+      return next;
     }
   }
 
-  private class UnmodifiableView extends ModifiableView {
 
-    public UnmodifiableView(Dimension viewport, int offX, int offY) {
-      super(viewport, offX, offY);
+  /**
+   * Covers the elements from one position to another, counting across each row in turn.
+   */
+  private class RowSpliterator implements Spliterator<E> {
+
+    private final int width = dimension.getWidth();
+    private int position;
+    private final int fence;
+
+
+    RowSpliterator(int position, int fence) {
+      this.position = position;
+      this.fence = fence;
     }
 
 
     @Override
-    public E put(E object, int x, int y) {
-      throw new UnsupportedOperationException("This Array2D is unmodifiable.");
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(Consumer<? super E> action) {
+      if (position >= fence) {
+        return false;
+      }
+
+      action.accept((E) elementData[rowStart(position / width) + position % width]);
+      position++;
+      return true;
     }
 
 
     @Override
-    public Array2D<E> setAll(E object) {
-      throw new UnsupportedOperationException("This Array2D is unmodifiable.");
+    @SuppressWarnings("unchecked")
+    public void forEachRemaining(Consumer<? super E> action) {
+      while (position < fence) {
+        final int y = position / width;
+        final int start = rowStart(y);
+        final int end = Math.min(fence - y * width, width);
+
+        for (int x = position % width; x < end; x++) {
+          action.accept((E) elementData[start + x]);
+        }
+        position = y * width + end;
+      }
     }
 
 
+    /**
+     * Splits off the first half, rounded to the nearest row, leaving this with the rest. What is
+     * left of a single row, or of a grid with no columns, is not split.
+     */
     @Override
-    public Array2D<E> view(Dimension viewport, int offX, int offY) {
-      return unmodifiableView(viewport, offX, offY);
-    }
-  }
+    public Spliterator<E> trySplit() {
+      if (width == 0 || fence - position <= width) {
+        return null;
+      }
 
-  private class Itr implements Iterator<E> {
+      int split = (position + fence) >>> 1;
+      split -= split % width;
+      if (split <= position) {
+        split += width;
+      }
+      if (split >= fence) {
+        return null;
+      }
 
-    private int x = 0;
-    private int y = 0;
+      final Spliterator<E> prefix = new RowSpliterator(position, split);
+      position = split;
+      return prefix;
+    }
 
 
     @Override
-    public boolean hasNext() {
-      return (x < getDimension().getWidth() || y < getDimension().getHeight());
+    public long estimateSize() {
+      return fence - position;
     }
 
 
     @Override
-    public E next() {
-      x++;
-      if (x >= getDimension().getWidth()) {
-        x = 0;
-        y++;
-      }
-      return get(x, y);
+    public int characteristics() {
+      return ORDERED | SIZED | SUBSIZED;
     }
   }
 }
\ No newline at end of file
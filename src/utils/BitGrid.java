@@ -0,0 +1,146 @@
+package utils;
+
+/**
+ * A grid of flags, stored row by row as single bits packed into longs. Views share the bits of the
+ * grid they were taken from, so taking one copies nothing. Filling and counting work on whole words
+ * at a time wherever a row covers them.
+ */
+public class BitGrid extends Grid {
+
+  private final long[] words;
+
+
+  private BitGrid(long[] words, Dimension dimension, int offset, int stride) {
+    super(dimension, offset, stride);
+    this.words = words;
+  }
+
+
+  /**
+   * Constructs this grid with every flag cleared.
+   */
+  public BitGrid(Dimension dimension) {
+    this(new long[(dimension.getArea() + 63) >>> 6], dimension, 0, dimension.getWidth());
+  }
+
+
+  public boolean get(int x, int y) {
+    final int index = indexOf(x, y);
+    return (words[index >>> 6] & 1L << index) != 0;
+  }
+
+
+  /**
+   * Sets or clears the flag at the given index. Returns whether it was set before.
+   */
+  public boolean put(boolean value, int x, int y) {
+    final int index = indexOf(x, y);
+    final long bit = 1L << index;
+    final boolean replaced = (words[index >>> 6] & bit) != 0;
+
+    if (value) {
+      words[index >>> 6] |= bit;
+    }
+    else {
+      words[index >>> 6] &= ~bit;
+    }
+    return replaced;
+  }
+
+
+  /**
+   * Sets or clears every flag in this grid.
+   */
+  public BitGrid fill(boolean value) {
+    for (int y = 0; y < dimension.getHeight(); y++) {
+      final int start = rowStart(y);
+      fillRange(start, start + dimension.getWidth(), value);
+    }
+    return this;
+  }
+
+
+  /**
+   * Copies every flag of the given grid, which must be the same size, into this one. Grids that are
+   * not views are copied a word at a time, and views a flag at a time.
+   */
+  public BitGrid copyFrom(BitGrid source) {
+    sizeCheck(source);
+
+    if (getIsWhole() && source.getIsWhole()) {
+      System.arraycopy(source.words, 0, words, 0, words.length);
+      return this;
+    }
+
+    for (int y = 0; y < dimension.getHeight(); y++) {
+      for (int x = 0; x < dimension.getWidth(); x++) {
+        put(source.get(x, y), x, y);
+      }
+    }
+    return this;
+  }
+
+
+  /**
+   * @return How many flags in this grid are set.
+   */
+  public int getCount() {
+    int count = 0;
+    for (int y = 0; y < dimension.getHeight(); y++) {
+      final int start = rowStart(y);
+      count += countRange(start, start + dimension.getWidth());
+    }
+    return count;
+  }
+
+
+  /**
+   * Returns a view of the specified portion of this grid. The view is backed by this one, so
+   * changes in either will affect the other.
+   */
+  public BitGrid view(Dimension viewport, int offX, int offY) {
+    return new BitGrid(words, viewport, viewOffset(viewport, offX, offY), stride);
+  }
+
+
+  /**
+   * @return {@code true} if this grid covers every bit of its words, which is so for any grid that
+   * is not a view.
+   */
+  private boolean getIsWhole() {
+    return offset == 0 && stride == dimension.getWidth()
+        && words.length == (dimension.getArea() + 63) >>> 6;
+  }
+
+
+  /**
+   * Sets or clears the bits from {@code from} up to but not including {@code to}, a word at a time.
+   */
+  private void fillRange(int from, int to, boolean value) {
+    for (int i = from; i < to; ) {
+      final int word = i >>> 6;
+      final int end = Math.min(to, (word + 1) << 6);
+      final long mask = -1L >>> (64 - (end - i)) << (i & 63);
+
+      words[word] = value ? words[word] | mask : words[word] & ~mask;
+      i = end;
+    }
+  }
+
+
+  /**
+   * @return How many bits are set from {@code from} up to but not including {@code to}.
+   */
+  private int countRange(int from, int to) {
+    int count = 0;
+    for (int i = from; i < to; ) {
+      final int word = i >>> 6;
+      final int end = Math.min(to, (word + 1) << 6);
+      final long mask = -1L >>> (64 - (end - i)) << (i & 63);
+
+      count += Long.bitCount(words[word] & mask);
+      i = end;
+    }
+    return count;
+  }
+}
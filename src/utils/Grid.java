@@ -0,0 +1,77 @@
+package utils;
+
+/**
+ * What every grid has in common. A grid's elements are stored row by row in a single array, and a
+ * grid may be a view of part of another grid's array, reading it through its own offset and stride.
+ * A view of a view is just another offset into the same array, so however deeply views are taken,
+ * reaching an element only takes one bounds check and one array access.
+ */
+abstract class Grid {
+
+  final Dimension dimension;
+
+  // Where the first element of the grid lies in the array, and how far apart its rows are.
+  final int offset;
+  final int stride;
+
+
+  Grid(Dimension dimension, int offset, int stride) {
+    this.dimension = dimension;
+    this.offset = offset;
+    this.stride = stride;
+  }
+
+
+  /**
+   * Returns the size of this grid.
+   */
+  public Dimension getDimension() {
+    return dimension;
+  }
+
+
+  /**
+   * @return Where the element at the given position lies in the array.
+   * @throws IndexOutOfBoundsException If the position is outside this grid.
+   */
+  final int indexOf(int x, int y) {
+    if (!dimension.getCoordinateIsWithinBounds(x, y)) {
+      throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is outside a grid of "
+          + dimension.getWidth() + "x" + dimension.getHeight() + ".");
+    }
+    return offset + y * stride + x;
+  }
+
+
+  /**
+   * @return Where the first element of the given row lies in the array.
+   */
+  final int rowStart(int y) {
+    return offset + y * stride;
+  }
+
+
+  /**
+   * @return Where a view of the given size and position within this grid starts in the array.
+   * @throws IndexOutOfBoundsException If the view would extend past this grid's boundaries.
+   */
+  final int viewOffset(Dimension viewport, int offX, int offY) {
+    if (offX < 0 || offY < 0 || viewport.getWidth() < 0 || viewport.getHeight() < 0
+        || offX + viewport.getWidth() > dimension.getWidth()
+        || offY + viewport.getHeight() > dimension.getHeight()) {
+      throw new IndexOutOfBoundsException("View would extend past backing array boundaries.");
+    }
+    return rowStart(offY) + offX;
+  }
+
+
+  /**
+   * @throws IllegalArgumentException If the given grid is not the same size as this one.
+   */
+  final void sizeCheck(Grid other) {
+    if (other.dimension.getWidth() != dimension.getWidth()
+        || other.dimension.getHeight() != dimension.getHeight()) {
+      throw new IllegalArgumentException("Grids differ in size.");
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package utils;
+
+import java.io.IOException;
+
+/**
+ * A stream of random numbers that can be written to a snapshot and read back, to carry on exactly
+ * where it left off. Draws are made the same way as by SplitMix64, the generator behind
+ * SplittableRandom, whose whole state is a single number that steps on by a fixed amount per draw.
+ * Writing the stream only reads that number, so saving a game never changes what it draws next.
+ * <p>
+ * Not thread-safe, so each stream should be owned by whatever single thing draws from it.
+ */
+public final class RandomStream {
+
+  // The increment used by SplittableRandom itself, which spreads consecutive states evenly.
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private long state;
+
+
+  public RandomStream(long seed) {
+    this.state = seed;
+  }
+
+
+  public long nextLong() {
+    return mix64(state += GOLDEN_GAMMA);
+  }
+
+
+  public int nextInt() {
+    return (int) (mix64(state += GOLDEN_GAMMA) >>> 32);
+  }
+
+
+  /**
+   * @return A number from zero up to, but not including, the given bound, which must be positive.
+   */
+  public int nextInt(int bound) {
+    if (bound <= 0) {
+      throw new IllegalArgumentException("Bound must be positive: " + bound);
+    }
+
+    // Draw again whenever the draw falls in the uneven remainder at the top of the range.
+    int drawn = nextInt() >>> 1;
+    int value = drawn % bound;
+    while (drawn - value + (bound - 1) < 0) {
+      drawn = nextInt() >>> 1;
+      value = drawn % bound;
+    }
+    return value;
+  }
+
+
+  /**
+   * @return A number from zero up to, but not including, one.
+   */
+  public double nextDouble() {
+    return (nextLong() >>> 11) * 0x1.0p-53;
+  }
+
+
+  public boolean nextBoolean() {
+    return nextInt() < 0;
+  }
+
+
+  public void writeTo(SnapshotWriter out) throws IOException {
+    out.writeLong(state);
+  }
+
+
+  public void readFrom(SnapshotReader in) throws IOException {
+    state = in.readLong();
+  }
+
+
+  /**
+   * The finalizer from SplitMix64. Scrambles the bits of the given value so that consecutive states
+   * give unrelated numbers.
+   */
+  private static long mix64(long value) {
+    value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+    value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+    return value ^ (value >>> 31);
+  }
+}
@@ -0,0 +1,79 @@
+package utils;
+
+import java.util.SplittableRandom;
+
+/**
+ * Hands out independent random number streams, all derived from a single seed. Each stream is
+ * identified by the subsystem it serves and, where a subsystem needs many streams, an index within
+ * it (an area's position in the world, an actor's number, and so on).
+ * <p>
+ * A stream's seed depends only on the root seed and its identity, never on which streams were
+ * handed out before it or by which thread. So a given root seed always reproduces the same world
+ * and the same run of play, however the work is split up. Streams are not thread-safe, so each one
+ * should be owned by whatever single thing draws from it.
+ */
+public class RandomStreams {
+
+  /**
+   * The subsystems that draw random numbers. Each has its own family of streams.
+   */
+  public enum Subsystem {
+    WORLD,
+    AREA,
+    POPULATION,
+    ACTOR
+  }
+
+
+  // The increment used by SplittableRandom itself, which spreads consecutive keys evenly.
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  private final long seed;
+
+
+  public RandomStreams(long seed) {
+    this.seed = seed;
+  }
+
+
+  /**
+   * @return A root seed taken from a fresh, unseeded source, for games that need not be repeated.
+   */
+  public static long makeSeed() {
+    return new SplittableRandom().nextLong();
+  }
+
+
+  public long getSeed() {
+    return seed;
+  }
+
+
+  /**
+   * @return A new stream for the given subsystem, for subsystems that only need one.
+   */
+  public SplittableRandom getStream(Subsystem subsystem) {
+    return getStream(subsystem, 0);
+  }
+
+
+  /**
+   * @return A new stream for the given index within the given subsystem. Asking twice for the same
+   * stream returns two streams that produce the same sequence.
+   */
+  public SplittableRandom getStream(Subsystem subsystem, long index) {
+    final long subsystemSeed = mix(seed + GOLDEN_GAMMA * (subsystem.ordinal() + 1));
+    return new SplittableRandom(mix(subsystemSeed + GOLDEN_GAMMA * (index + 1)));
+  }
+
+
+  /**
+   * The finalizer from SplitMix64. Scrambles the bits of the given value so that related keys give
+   * unrelated seeds.
+   */
+  private static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+    value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+    return value ^ (value >>> 31);
+  }
+}
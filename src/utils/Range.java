@@ -1,7 +1,7 @@
 package utils;
 
 import java.security.InvalidParameterException;
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.function.Function;
 
 /**
@@ -36,11 +36,15 @@ public abstract class Range<E> {
     return clamping;
   }
 
-  public E getRandomWithin(Random random) {
+  public E getRandomWithin(SplittableRandom random) {
 
     // The +1 here is necessary to make the maximum value inclusive.
     return getTypeValue.apply(random.nextInt(1+maximum-minimum)+minimum);
 
   }
 
+  public E getRandomWithin(RandomStream random) {
+    return getTypeValue.apply(random.nextInt(1+maximum-minimum)+minimum);
+  }
+
 }
@@ -0,0 +1,102 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * A grid of shorts, stored row by row in a single array without boxing. Views share the array of
+ * the grid they were taken from, so taking one copies nothing.
+ * <p>
+ * Whole rows can be worked through with {@code forEachRow()}, which hands over each row as a span
+ * of the array itself, for loops that would rather not go through {@code get()} for every element.
+ */
+public class ShortGrid extends Grid {
+
+  /**
+   * Receives one row of a grid: the elements of row {@code y} are {@code values[start]} up to but
+   * not including {@code values[end]}, in order. Writing to them writes to the grid.
+   */
+  @FunctionalInterface
+  public interface RowAction {
+
+    void accept(int y, short[] values, int start, int end);
+  }
+
+
+  private final short[] values;
+
+
+  private ShortGrid(short[] values, Dimension dimension, int offset, int stride) {
+    super(dimension, offset, stride);
+    this.values = values;
+  }
+
+
+  /**
+   * Constructs this grid with all values set to zero.
+   */
+  public ShortGrid(Dimension dimension) {
+    this(new short[dimension.getArea()], dimension, 0, dimension.getWidth());
+  }
+
+
+  public short get(int x, int y) {
+    return values[indexOf(x, y)];
+  }
+
+
+  /**
+   * Assigns a value to the given index. Returns the value that was already there.
+   */
+  public short put(short value, int x, int y) {
+    final int index = indexOf(x, y);
+    final short replaced = values[index];
+    values[index] = value;
+    return replaced;
+  }
+
+
+  /**
+   * Sets every value in this grid to the given value.
+   */
+  public ShortGrid fill(short value) {
+    for (int y = 0; y < dimension.getHeight(); y++) {
+      final int start = rowStart(y);
+      Arrays.fill(values, start, start + dimension.getWidth(), value);
+    }
+    return this;
+  }
+
+
+  /**
+   * Copies every value of the given grid, which must be the same size, into this one, a row at a
+   * time.
+   */
+  public ShortGrid copyFrom(ShortGrid source) {
+    sizeCheck(source);
+    for (int y = 0; y < dimension.getHeight(); y++) {
+      System.arraycopy(source.values, source.rowStart(y), values, rowStart(y),
+          dimension.getWidth());
+    }
+    return this;
+  }
+
+
+  /**
+   * Returns a view of the specified portion of this grid. The view is backed by this one, so
+   * changes in either will affect the other.
+   */
+  public ShortGrid view(Dimension viewport, int offX, int offY) {
+    return new ShortGrid(values, viewport, viewOffset(viewport, offX, offY), stride);
+  }
+
+
+  /**
+   * Hands each row of this grid to the given action in turn, top to bottom.
+   */
+  public void forEachRow(RowAction action) {
+    for (int y = 0; y < dimension.getHeight(); y++) {
+      final int start = rowStart(y);
+      action.accept(y, values, start, start + dimension.getWidth());
+    }
+  }
+}
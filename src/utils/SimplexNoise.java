@@ -0,0 +1,104 @@
+package utils;
+
+import java.util.SplittableRandom;
+
+/**
+ * Two-dimensional simplex noise: a smooth field of values from -1.0 to 1.0 that varies on a scale
+ * of about one unit, with no visible grid. The field is fixed by the stream it is made from, so the
+ * same stream always makes the same field.
+ * <p>
+ * Values are best taken a row at a time with {@code addRow()}, which works through the row in one
+ * tight loop over arrays of primitives.
+ */
+public final class SimplexNoise {
+
+  private static final double F2 = 0.5 * (Math.sqrt(3.0) - 1.0);
+  private static final double G2 = (3.0 - Math.sqrt(3.0)) / 6.0;
+
+  // The directions of the gradients at each corner of the lattice.
+  private static final double[] GRADIENT_X = {1, -1, 1, -1, 1, -1, 1, -1, 0, 0, 0, 0};
+  private static final double[] GRADIENT_Y = {1, 1, -1, -1, 0, 0, 0, 0, 1, -1, 1, -1};
+
+  // A shuffled permutation of 0-255, repeated so that lookups need not wrap.
+  private final int[] permutation = new int[512];
+  private final int[] gradients = new int[512];
+
+
+  public SimplexNoise(SplittableRandom random) {
+    final int[] shuffled = new int[256];
+    for (int i = 0; i < shuffled.length; i++) {
+      shuffled[i] = i;
+    }
+    for (int i = shuffled.length - 1; i > 0; i--) {
+      final int j = random.nextInt(i + 1);
+      final int swapped = shuffled[i];
+      shuffled[i] = shuffled[j];
+      shuffled[j] = swapped;
+    }
+
+    for (int i = 0; i < permutation.length; i++) {
+      permutation[i] = shuffled[i & 255];
+      gradients[i] = permutation[i] % GRADIENT_X.length;
+    }
+  }
+
+
+  /**
+   * @return The value of the field at the given point.
+   */
+  public double sample(double x, double y) {
+
+    // Find which simplex (triangle) of the skewed lattice the point lies in.
+    final double skew = (x + y) * F2;
+    final int i = floor(x + skew);
+    final int j = floor(y + skew);
+    final double unskew = (i + j) * G2;
+    final double x0 = x - (i - unskew);
+    final double y0 = y - (j - unskew);
+
+    // The middle corner is one step along whichever axis the point is further along.
+    final int i1 = x0 > y0 ? 1 : 0;
+    final int j1 = 1 - i1;
+
+    final double x1 = x0 - i1 + G2;
+    final double y1 = y0 - j1 + G2;
+    final double x2 = x0 - 1.0 + 2.0 * G2;
+    final double y2 = y0 - 1.0 + 2.0 * G2;
+
+    // Add up the contribution of each corner, scaled to fill the range -1.0 to 1.0.
+    final int ii = i & 255;
+    final int jj = j & 255;
+    return 70.0 * (corner(gradients[ii + permutation[jj]], x0, y0)
+        + corner(gradients[ii + i1 + permutation[jj + j1]], x1, y1)
+        + corner(gradients[ii + 1 + permutation[jj + 1]], x2, y2));
+  }
+
+
+  /**
+   * Adds the value of the field at each of {@code count} points along a row, scaled by the given
+   * amplitude, to {@code values[start]} onward. The points start at ({@code x}, {@code y}) and are
+   * {@code step} apart.
+   */
+  public void addRow(double[] values, int start, int count, double x, double y, double step,
+      double amplitude) {
+    for (int i = 0; i < count; i++) {
+      values[start + i] += amplitude * sample(x + i * step, y);
+    }
+  }
+
+
+  private static double corner(int gradient, double x, double y) {
+    final double falloff = 0.5 - x * x - y * y;
+    if (falloff <= 0) {
+      return 0;
+    }
+    final double squared = falloff * falloff;
+    return squared * squared * (GRADIENT_X[gradient] * x + GRADIENT_Y[gradient] * y);
+  }
+
+
+  private static int floor(double value) {
+    final int truncated = (int) value;
+    return value < truncated ? truncated - 1 : truncated;
+  }
+}
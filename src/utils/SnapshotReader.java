@@ -0,0 +1,245 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads back a snapshot written by a {@code SnapshotWriter}, value for value in the order they were
+ * written. The channel is read a buffer at a time, and compressed sections are inflated whole as
+ * they are begun, so reading never waits on the channel for each value.
+ * <p>
+ * Whatever registered an object while writing must register the object it reads back at the same
+ * point, so that references to it read back as the same object.
+ * <p>
+ * Not thread-safe.
+ */
+public class SnapshotReader implements Closeable {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final ReadableByteChannel channel;
+  private final ByteBuffer channelBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+  // Values are read from here, which is the channel buffer outside of a compressed section.
+  private ByteBuffer buffer = channelBuffer;
+  private ByteBuffer sectionBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+  private ByteBuffer compressedBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+  private final Inflater inflater = new Inflater();
+
+  private final List<String> names = new ArrayList<>();
+  private final List<Object> references = new ArrayList<>();
+
+
+  public SnapshotReader(ReadableByteChannel channel) {
+    this.channel = channel;
+    channelBuffer.limit(0);
+  }
+
+
+  /**
+   * Makes sure the buffer holds at least the given number of bytes, reading more from the channel
+   * if it needs to. Outside of a section, larger runs of values must be read a piece at a time.
+   *
+   * @throws EOFException If the channel or the section runs out first.
+   */
+  private void require(int bytes) throws IOException {
+    if (buffer.remaining() >= bytes) {
+      return;
+    }
+    if (buffer != channelBuffer) {
+      throw new EOFException("Read past the end of a compressed section.");
+    }
+    if (bytes > channelBuffer.capacity()) {
+      throw new IllegalArgumentException("Too large to buffer at once: " + bytes + " bytes.");
+    }
+
+    channelBuffer.compact();
+    while (channelBuffer.position() < bytes) {
+      if (channel.read(channelBuffer) < 0) {
+        throw new EOFException("Snapshot ended unexpectedly.");
+      }
+    }
+    channelBuffer.flip();
+  }
+
+
+  public int readByte() throws IOException {
+    require(1);
+    return buffer.get();
+  }
+
+
+  public boolean readBoolean() throws IOException {
+    return readByte() != 0;
+  }
+
+
+  public short readShort() throws IOException {
+    require(2);
+    return buffer.getShort();
+  }
+
+
+  public int readInt() throws IOException {
+    require(4);
+    return buffer.getInt();
+  }
+
+
+  public long readLong() throws IOException {
+    require(8);
+    return buffer.getLong();
+  }
+
+
+  /**
+   * Fills what remains of the given buffer with shorts written by {@code
+   * SnapshotWriter.writeShorts()}, leaving its position where it was.
+   */
+  public void readShorts(ShortBuffer values) throws IOException {
+    final ShortBuffer remaining = values.duplicate();
+    while (remaining.hasRemaining()) {
+      require(2);
+      final int count = Math.min(buffer.remaining() / 2, remaining.remaining());
+      final ShortBuffer piece = buffer.asShortBuffer();
+      piece.limit(count);
+      remaining.put(piece);
+      buffer.position(buffer.position() + count * 2);
+    }
+  }
+
+
+  public String readString() throws IOException {
+    final byte[] bytes = new byte[readInt()];
+    readBytes(ByteBuffer.wrap(bytes));
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+
+  private void readBytes(ByteBuffer bytes) throws IOException {
+    while (bytes.hasRemaining()) {
+      require(1);
+      final int count = Math.min(buffer.remaining(), bytes.remaining());
+      final ByteBuffer piece = buffer.slice();
+      piece.limit(count);
+      bytes.put(piece);
+      buffer.position(buffer.position() + count);
+    }
+  }
+
+
+  public String readName() throws IOException {
+    final int number = readInt();
+    if (number < names.size()) {
+      return names.get(number);
+    }
+    if (number != names.size()) {
+      throw new IOException("Name " + number + " read before it was defined.");
+    }
+
+    final String name = readString();
+    names.add(name);
+    return name;
+  }
+
+
+  /**
+   * Numbers the given object, as the writer numbered the object it was read from.
+   */
+  public void register(Object object) {
+    references.add(object);
+  }
+
+
+  /**
+   * Reads a reference to a registered object, or to null.
+   *
+   * @throws IOException If the reference does not lead to an object of the given type.
+   */
+  public <T> T readReference(Class<T> type) throws IOException {
+    final int number = readInt();
+    if (number == -1) {
+      return null;
+    }
+    if (number < 0 || number >= references.size() || !type.isInstance(references.get(number))) {
+      throw new IOException("Reference " + number + " does not lead to a " + type.getSimpleName());
+    }
+    return type.cast(references.get(number));
+  }
+
+
+  /**
+   * Reads and inflates a whole compressed section, which is then read from until it is ended.
+   */
+  public void beginCompressedSection() throws IOException {
+    if (buffer != channelBuffer) {
+      throw new IllegalStateException("Compressed sections do not nest.");
+    }
+
+    final int compressedSize = readInt();
+    final int rawSize = readInt();
+
+    if (compressedBuffer.capacity() < compressedSize) {
+      compressedBuffer = ByteBuffer.allocate(compressedSize);
+    }
+    compressedBuffer.clear().limit(compressedSize);
+    readBytes(compressedBuffer);
+    compressedBuffer.flip();
+
+    if (sectionBuffer.capacity() < rawSize) {
+      sectionBuffer = ByteBuffer.allocate(rawSize);
+    }
+    sectionBuffer.clear().limit(rawSize);
+
+    inflater.reset();
+    inflater.setInput(compressedBuffer);
+    try {
+      while (sectionBuffer.hasRemaining() && !inflater.finished()) {
+        if (inflater.inflate(sectionBuffer) == 0 && inflater.needsInput()) {
+          throw new EOFException("Compressed section ended unexpectedly.");
+        }
+      }
+    }
+    catch (DataFormatException e) {
+      throw new IOException("Compressed section is corrupt.", e);
+    }
+
+    if (sectionBuffer.hasRemaining()) {
+      throw new EOFException("Compressed section is shorter than recorded.");
+    }
+    sectionBuffer.flip();
+    buffer = sectionBuffer;
+  }
+
+
+  /**
+   * Goes back to reading from the channel, after checking the whole section was read.
+   */
+  public void endCompressedSection() throws IOException {
+    if (buffer == channelBuffer) {
+      throw new IllegalStateException("No compressed section to end.");
+    }
+    if (buffer.hasRemaining()) {
+      throw new IOException("Compressed section was not read in full.");
+    }
+    buffer = channelBuffer;
+  }
+
+
+  /**
+   * Releases the inflater. The channel itself is left open.
+   */
+  @Override
+  public void close() {
+    inflater.end();
+  }
+}
@@ -0,0 +1,268 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a snapshot of game state to a channel as compact binary, to be read back in the same order
+ * by a {@code SnapshotReader}. Values are gathered in a direct buffer and handed to the channel a
+ * buffer at a time, so writing never waits on the channel for each value.
+ * <p>
+ * Names that recur, such as template IDs, are written out in full the first time and by number
+ * after that. Objects that others refer to, such as actors, are registered as they are written, and
+ * can then be referred to by number as well. A run of values can be compressed as a section of its
+ * own, which is how large, repetitive blocks such as an area's terrain are kept small.
+ * <p>
+ * Not thread-safe.
+ */
+public class SnapshotWriter implements Closeable {
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final WritableByteChannel channel;
+  private final ByteBuffer channelBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+  // Values are written here, which is the channel buffer outside of a compressed section.
+  private ByteBuffer buffer = channelBuffer;
+  private ByteBuffer sectionBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+  private ByteBuffer compressedBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+  private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+  private final Map<String, Integer> names = new HashMap<>();
+  private final Map<Object, Integer> references = new IdentityHashMap<>();
+
+
+  public SnapshotWriter(WritableByteChannel channel) {
+    this.channel = channel;
+  }
+
+
+  /**
+   * Makes room in the buffer for the given number of bytes, by handing what it holds to the channel
+   * or, within a compressed section, by growing it. Outside of a section, larger runs of values
+   * must be written a piece at a time.
+   */
+  private void ensure(int bytes) throws IOException {
+    if (buffer.remaining() >= bytes) {
+      return;
+    }
+
+    if (buffer == channelBuffer) {
+      flush();
+      if (bytes > buffer.capacity()) {
+        throw new IllegalArgumentException("Too large to buffer at once: " + bytes + " bytes.");
+      }
+    }
+    else {
+      sectionBuffer = grow(sectionBuffer, bytes);
+      buffer = sectionBuffer;
+    }
+  }
+
+
+  private static ByteBuffer grow(ByteBuffer full, int bytes) {
+    final ByteBuffer grown =
+        ByteBuffer.allocate(Math.max(full.capacity() * 2, full.position() + bytes));
+    full.flip();
+    grown.put(full);
+    return grown;
+  }
+
+
+  private void flush() throws IOException {
+    channelBuffer.flip();
+    while (channelBuffer.hasRemaining()) {
+      channel.write(channelBuffer);
+    }
+    channelBuffer.clear();
+  }
+
+
+  public void writeByte(int value) throws IOException {
+    ensure(1);
+    buffer.put((byte) value);
+  }
+
+
+  public void writeBoolean(boolean value) throws IOException {
+    writeByte(value ? 1 : 0);
+  }
+
+
+  public void writeShort(int value) throws IOException {
+    ensure(2);
+    buffer.putShort((short) value);
+  }
+
+
+  public void writeInt(int value) throws IOException {
+    ensure(4);
+    buffer.putInt(value);
+  }
+
+
+  public void writeLong(long value) throws IOException {
+    ensure(8);
+    buffer.putLong(value);
+  }
+
+
+  /**
+   * Writes the shorts remaining in the given buffer, without their count, leaving its position
+   * where it was.
+   */
+  public void writeShorts(ShortBuffer values) throws IOException {
+    final ShortBuffer remaining = values.duplicate();
+    while (remaining.hasRemaining()) {
+      ensure(2);
+      final int count = Math.min(buffer.remaining() / 2, remaining.remaining());
+      final ShortBuffer piece = remaining.slice();
+      piece.limit(count);
+      buffer.asShortBuffer().put(piece);
+      buffer.position(buffer.position() + count * 2);
+      remaining.position(remaining.position() + count);
+    }
+  }
+
+
+  public void writeString(String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeInt(bytes.length);
+    writeBytes(ByteBuffer.wrap(bytes));
+  }
+
+
+  private void writeBytes(ByteBuffer bytes) throws IOException {
+    while (bytes.hasRemaining()) {
+      ensure(1);
+      final int count = Math.min(buffer.remaining(), bytes.remaining());
+      final ByteBuffer piece = bytes.slice();
+      piece.limit(count);
+      buffer.put(piece);
+      bytes.position(bytes.position() + count);
+    }
+  }
+
+
+  /**
+   * Writes a name that is likely to recur, in full only the first time it is written.
+   */
+  public void writeName(String name) throws IOException {
+    final Integer number = names.get(name);
+    if (number != null) {
+      writeInt(number);
+    }
+    else {
+      writeInt(names.size());
+      names.put(name, names.size());
+      writeString(name);
+    }
+  }
+
+
+  /**
+   * Numbers the given object, in the order objects are registered, so that whatever is written
+   * after it can refer to it with {@code writeReference()}. The reader must register it at the same
+   * point.
+   */
+  public void register(Object object) {
+    if (references.putIfAbsent(object, references.size()) != null) {
+      throw new IllegalStateException("Object already registered: " + object);
+    }
+  }
+
+
+  /**
+   * @return {@code true} if the given object has been registered, and so can be referred to.
+   */
+  public boolean isRegistered(Object object) {
+    return references.containsKey(object);
+  }
+
+
+  /**
+   * Writes the number of the given registered object, or of null.
+   *
+   * @throws IllegalStateException If the object has not been registered.
+   */
+  public void writeReference(Object object) throws IOException {
+    if (object == null) {
+      writeInt(-1);
+      return;
+    }
+
+    final Integer number = references.get(object);
+    if (number == null) {
+      throw new IllegalStateException("Object was never registered: " + object);
+    }
+    writeInt(number);
+  }
+
+
+  /**
+   * Starts a section that is compressed as a whole once it is ended. Sections do not nest.
+   */
+  public void beginCompressedSection() {
+    if (buffer != channelBuffer) {
+      throw new IllegalStateException("Compressed sections do not nest.");
+    }
+    sectionBuffer.clear();
+    buffer = sectionBuffer;
+  }
+
+
+  /**
+   * Compresses the current section and writes it, preceded by its compressed and original sizes.
+   */
+  public void endCompressedSection() throws IOException {
+    if (buffer == channelBuffer) {
+      throw new IllegalStateException("No compressed section to end.");
+    }
+
+    sectionBuffer.flip();
+    final int rawSize = sectionBuffer.remaining();
+
+    deflater.reset();
+    deflater.setInput(sectionBuffer);
+    deflater.finish();
+
+    compressedBuffer.clear();
+    while (!deflater.finished()) {
+      if (!compressedBuffer.hasRemaining()) {
+        compressedBuffer = grow(compressedBuffer, BUFFER_SIZE);
+      }
+      deflater.deflate(compressedBuffer);
+    }
+    compressedBuffer.flip();
+
+    buffer = channelBuffer;
+    writeInt(compressedBuffer.remaining());
+    writeInt(rawSize);
+    writeBytes(compressedBuffer);
+  }
+
+
+  /**
+   * Hands anything still buffered to the channel. The channel itself is left open.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (buffer != channelBuffer) {
+        throw new IllegalStateException("A compressed section was never ended.");
+      }
+      flush();
+    }
+    finally {
+      deflater.end();
+    }
+  }
+}
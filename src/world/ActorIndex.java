@@ -0,0 +1,166 @@
+package world;
+
+import actor.Actor;
+import game.Direction;
+import utils.Dimension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A spatial index of the live actors in the world. Actors are bucketed into square cells a fraction
+ * of the size of an area, so that asking what is near a point only looks at the handful of cells
+ * that overlap it, rather than at every actor in the area.
+ * <p>
+ * Queries fill a list supplied by the caller instead of returning a new collection, so callers that
+ * keep their list around can query as often as they like without allocating.
+ * <p>
+ * The index does not watch actors itself. Whatever places, moves or kills an actor must tell the
+ * index, and must do so before the actor's stored coordinate changes.
+ * <p>
+ * Like the rest of the world, the index may only be used by whatever is running the game's beats.
+ * Anything on another thread, such as the display, must be handed a copy taken there.
+ */
+public class ActorIndex {
+
+  private static final int CELL_SIZE = 8;
+
+  private final Dimension globalSizeInSquares;
+  private final int cellsWide;
+  private final int cellsHigh;
+  private final List<List<Actor>> cells;
+
+
+  ActorIndex(Dimension globalSizeInSquares) {
+    this.globalSizeInSquares = globalSizeInSquares;
+    this.cellsWide = (globalSizeInSquares.getWidth() + CELL_SIZE - 1) / CELL_SIZE;
+    this.cellsHigh = (globalSizeInSquares.getHeight() + CELL_SIZE - 1) / CELL_SIZE;
+
+    this.cells = new ArrayList<>(cellsWide * cellsHigh);
+    for (int i = 0; i < cellsWide * cellsHigh; i++) {
+      cells.add(new ArrayList<>());
+    }
+  }
+
+
+  private List<Actor> getCell(Coordinate coordinate) {
+    return cells.get(coordinate.globalY / CELL_SIZE * cellsWide + coordinate.globalX / CELL_SIZE);
+  }
+
+
+  /**
+   * Adds the actor to the index at its current coordinate.
+   */
+  public void add(Actor actor) {
+    getCell(actor.getCoordinate()).add(actor);
+  }
+
+
+  /**
+   * Removes the actor from the index, looking for it at its current coordinate.
+   */
+  public void remove(Actor actor) {
+    getCell(actor.getCoordinate()).remove(actor);
+  }
+
+
+  /**
+   * Moves the actor between the cells holding the given coordinates, if they differ.
+   */
+  public void move(Actor actor, Coordinate from, Coordinate to) {
+    final List<Actor> fromCell = getCell(from);
+    final List<Actor> toCell = getCell(to);
+
+    if (fromCell != toCell && fromCell.remove(actor)) {
+      toCell.add(actor);
+    }
+  }
+
+
+  /**
+   * @return The live actor at the given coordinate, or null if there isn't one.
+   */
+  public Actor getActorAt(Coordinate coordinate) {
+    final List<Actor> cell = getCell(coordinate);
+
+    for (int i = 0; i < cell.size(); i++) {
+      final Actor actor = cell.get(i);
+      if (actor != null && actor.getCoordinate().equalTo(coordinate)) {
+        return actor;
+      }
+    }
+    return null;
+  }
+
+
+  /**
+   * Fills {@code results} with every live actor inside the given rectangle of global squares,
+   * replacing whatever the list held before.
+   */
+  public void getActorsWithin(int globalX, int globalY, int width, int height,
+      List<Actor> results) {
+    results.clear();
+    collectActorsWithin(globalX, globalY, globalX + width - 1, globalY + height - 1, results);
+  }
+
+
+  /**
+   * Fills {@code results} with every live actor within the given Chebyshev distance of the center,
+   * including any actor at the center itself, replacing whatever the list held before.
+   */
+  public void getActorsWithinRange(Coordinate center, int radius, List<Actor> results) {
+    results.clear();
+    collectActorsWithin(center.globalX - radius, center.globalY - radius,
+        center.globalX + radius, center.globalY + radius, results);
+  }
+
+
+  /**
+   * Fills {@code results} with every live actor within the given Chebyshev distance of the center
+   * that lies in the facing direction or either of its neighbors, replacing whatever the list held
+   * before. This is the same cone that {@code Perception} uses for sight.
+   */
+  public void getActorsInCone(Coordinate center, Direction facing, int radius,
+      List<Actor> results) {
+    getActorsWithinRange(center, radius, results);
+
+    for (int i = results.size() - 1; i >= 0; i--) {
+      final Direction towards = center.getDirectionTo(results.get(i).getCoordinate());
+
+      if (towards != facing && towards != facing.getLeftNeighbor()
+          && towards != facing.getRightNeighbor()) {
+        results.remove(i);
+      }
+    }
+  }
+
+
+  /**
+   * Adds to {@code results} every actor in the given inclusive bounds, visiting only the cells the
+   * bounds overlap.
+   */
+  private void collectActorsWithin(int minX, int minY, int maxX, int maxY, List<Actor> results) {
+
+    // Clip to the world, then find the cells that overlap what's left.
+    minX = Math.max(minX, 0);
+    minY = Math.max(minY, 0);
+    maxX = Math.min(maxX, globalSizeInSquares.getWidth() - 1);
+    maxY = Math.min(maxY, globalSizeInSquares.getHeight() - 1);
+
+    for (int cellY = minY / CELL_SIZE; cellY <= maxY / CELL_SIZE && cellY < cellsHigh; cellY++) {
+      for (int cellX = minX / CELL_SIZE; cellX <= maxX / CELL_SIZE && cellX < cellsWide; cellX++) {
+
+        final List<Actor> cell = cells.get(cellY * cellsWide + cellX);
+
+        for (int i = 0; i < cell.size(); i++) {
+          final Actor actor = cell.get(i);
+          final Coordinate at = actor.getCoordinate();
+          if (at.globalX >= minX && at.globalX <= maxX && at.globalY >= minY
+              && at.globalY <= maxY) {
+            results.add(actor);
+          }
+        }
+      }
+    }
+  }
+}
@@ -1,21 +1,23 @@
 package world;
 
-import utils.Array2D;
-
 /**
  *
  */
 public final class Area {
 
   private final Biome biome;
+  private final int index;
 
-  private final Array2D<Square> squares;
+  // Null while the area's contents are not held in memory. Written by the world's area cache.
+  private volatile AreaContents contents = null;
+  private volatile boolean modified = false;
+  private volatile int sceneryVersion = 0;
 
 
-  Area(Biome biome, Array2D<Square> squares) {
+  Area(Biome biome, int index) {
 
     this.biome = biome;
-    this.squares = squares;
+    this.index = index;
   }
 
 
@@ -24,7 +26,72 @@ public final class Area {
   }
 
 
+  /**
+   * @return This area's position in the world, counting across each row of areas in turn.
+   */
+  public int getIndex() {
+    return index;
+  }
+
+
+  /**
+   * Only valid while the area is in memory. Callers should go through the world, which brings the
+   * area back into memory first if it needs to.
+   */
   Square getSquare(AreaCoordinate coordinate) {
-    return squares.get(coordinate.areaX, coordinate.areaY);
+    final AreaContents contents = this.contents;
+    return new Square(this, contents, contents.getIndex(coordinate.areaX, coordinate.areaY));
+  }
+
+
+  AreaContents getContents() {
+    return contents;
+  }
+
+
+  void setContents(AreaContents contents) {
+    this.contents = contents;
+  }
+
+
+  /**
+   * Records that this area's contents have changed in a way that regenerating it would not
+   * reproduce, such as a thing being picked up or an actor dying. Changes made while the area is
+   * still being generated don't count.
+   * <p>
+   * Every such change also moves the area on to a new scenery version. Only the thread updating the
+   * area's actors changes it, so the version is never bumped from two threads at once.
+   */
+  public void markModified() {
+    if (contents != null) {
+      modified = true;
+      sceneryVersion++;
+    }
+  }
+
+
+  /**
+   * @return A count that goes up whenever anything other than a live actor comes or goes in this
+   * area, so that anything worked out from the area's layout can tell when it is out of date.
+   */
+  int getSceneryVersion() {
+    return sceneryVersion;
+  }
+
+
+  /**
+   * @return {@code true} if this area's contents have changed since generation, so it must be kept
+   * in memory rather than regenerated.
+   */
+  boolean getIsModified() {
+    return modified;
+  }
+
+
+  /**
+   * Marks an area read back from a snapshot as modified, as it was when it was written.
+   */
+  void restoreModified() {
+    modified = true;
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,276 @@
+package world;
+
+import actor.Actor;
+import game.physical.PhysicalFlag;
+import utils.Dimension;
+import utils.RandomStreams;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Holds the contents of a bounded number of areas in memory, generating the rest on demand. Areas
+ * are generated from their own random streams, so an area that is dropped and later generated again
+ * comes back exactly as it was first made. Live actors are not part of that, but the actor index
+ * knows where they are, so they are put back into an area whenever it is generated.
+ * <p>
+ * Anything else that changes an area, such as a thing being picked up or an actor dying, could not
+ * be reproduced that way, so a modified area is only dropped once its contents have been written
+ * to the area store, and is restored from there rather than generated. Without a store, or if an
+ * area has too much on it to be stored, modified areas are never dropped.
+ * <p>
+ * Areas can be generated from any thread. Dropping areas is left to whoever owns the world's
+ * update, at a point where nothing else is reading squares from far away.
+ * <p>
+ * Areas that are about to be needed can be prefetched: their contents are generated in the
+ * background, and only brought into memory once something asks for them, at which point the actors
+ * within them are put in as usual. So prefetching never touches anything the game is reading or
+ * changing, and only saves the time it would have taken to generate them.
+ */
+class AreaCache {
+
+  private final int capacity;
+  private final Dimension areaSizeInSquares;
+  private final int worldWidthInAreas;
+  private final RandomStreams randomStreams;
+  private final WorldGenerator generator;
+  private final ActorIndex actorIndex;
+  private final AreaStore areaStore;
+
+  // Areas currently in memory, least recently used first.
+  private final Set<Area> residentAreas = new LinkedHashSet<>();
+
+  // Contents being generated in the background for areas about to be needed, not yet in memory.
+  private final Map<Area, CompletableFuture<AreaContents>> prefetched = new ConcurrentHashMap<>();
+
+
+  AreaCache(int capacity, Dimension areaSizeInSquares, Dimension worldSizeInAreas,
+      RandomStreams randomStreams, WorldGenerator generator, ActorIndex actorIndex,
+      AreaStore areaStore) {
+    this.capacity = capacity;
+    this.areaSizeInSquares = areaSizeInSquares;
+    this.worldWidthInAreas = worldSizeInAreas.getWidth();
+    this.randomStreams = randomStreams;
+    this.generator = generator;
+    this.actorIndex = actorIndex;
+    this.areaStore = areaStore;
+  }
+
+
+  /**
+   * @return The contents of the given area, generating or restoring them first if the area is not
+   * in memory.
+   */
+  AreaContents getContents(Area area) {
+    final AreaContents contents = area.getContents();
+    if (contents != null) {
+      return contents;
+    }
+
+    bringIntoMemory(area);
+    return area.getContents();
+  }
+
+
+  /**
+   * Generates or restores every one of the given areas that is not already in memory, spread across
+   * the given pool. Null entries are ignored.
+   */
+  void load(Collection<Area> areas, ForkJoinPool pool) {
+    final List<Area> missing = new ArrayList<>();
+    for (Area area : areas) {
+      if (area != null && area.getContents() == null) {
+        missing.add(area);
+      }
+    }
+
+    pool.submit(() -> missing.parallelStream().forEach(this::bringIntoMemory))
+        .join();
+  }
+
+
+  /**
+   * Starts generating the contents of any of the given areas that are not in memory, on the given
+   * executor, without bringing them into memory yet. Only the latest areas given are worth keeping,
+   * so any prefetched before that are not among them are abandoned. Null entries are ignored.
+   * <p>
+   * Modified areas are left alone, since restoring one is cheap and must not be done twice.
+   */
+  void prefetch(Collection<Area> areas, Executor executor) {
+    prefetched.entrySet().removeIf(entry -> {
+      if (areas.contains(entry.getKey())) {
+        return false;
+      }
+      entry.getValue().cancel(false);
+      return true;
+    });
+
+    for (Area area : areas) {
+      if (area != null && area.getContents() == null && !area.getIsModified()
+          && !prefetched.containsKey(area)) {
+        prefetched.put(area, CompletableFuture.supplyAsync(() -> generate(area), executor));
+      }
+    }
+  }
+
+
+  /**
+   * Marks the given areas as the most recently used, then drops the least recently used of the
+   * others until no more than the capacity remain in memory. Modified areas are written to the area
+   * store as they are dropped. Areas in use, and modified areas that can't be stored, are never
+   * dropped, so if there are too many of those, more than the capacity will remain.
+   */
+  synchronized void trim(Set<Area> inUse) {
+    for (Area area : inUse) {
+      if (residentAreas.remove(area)) {
+        residentAreas.add(area);
+      }
+    }
+
+    final Iterator<Area> iterator = residentAreas.iterator();
+    while (residentAreas.size() > capacity && iterator.hasNext()) {
+      final Area area = iterator.next();
+      if (!inUse.contains(area) && (!area.getIsModified() || store(area))) {
+        area.setContents(null);
+        iterator.remove();
+      }
+    }
+  }
+
+
+  /**
+   * Closes the area store, if there is one. Areas dropped into it can't be brought back afterwards.
+   */
+  synchronized void close() throws IOException {
+    if (areaStore != null) {
+      areaStore.close();
+    }
+  }
+
+
+  synchronized int getResidentCount() {
+    return residentAreas.size();
+  }
+
+
+  /**
+   * Brings the given area into memory with contents read back from a snapshot rather than
+   * generated.
+   */
+  void restore(Area area, AreaContents contents) {
+    install(area, contents);
+  }
+
+
+  AreaContents makeContents() {
+    return new AreaContents(areaSizeInSquares.getWidth(), areaSizeInSquares.getHeight());
+  }
+
+
+  /**
+   * Generates the given area, or takes its prefetched contents, or restores it from the area store
+   * if it was modified before it was dropped.
+   */
+  private void bringIntoMemory(Area area) {
+    if (area.getIsModified()) {
+      restoreFromStore(area);
+    }
+    else {
+      install(area, takePrefetched(area));
+    }
+  }
+
+
+  /**
+   * @return The contents prefetched for the given area, waiting for them if they are still being
+   * generated, or freshly generated contents if it was not prefetched.
+   */
+  private AreaContents takePrefetched(Area area) {
+    final CompletableFuture<AreaContents> contents = prefetched.remove(area);
+    if (contents == null) {
+      return generate(area);
+    }
+    return contents.join();
+  }
+
+
+  /**
+   * Writes the contents of the given modified area to the area store.
+   *
+   * @return {@code false} if there is no store, or the area has too much on it to be stored.
+   */
+  private boolean store(Area area) {
+    if (areaStore == null) {
+      return false;
+    }
+
+    try {
+      return areaStore.store(area.getIndex(), area.getContents());
+    }
+    catch (IOException e) {
+      throw new IllegalStateException("Could not store area " + area.getIndex(), e);
+    }
+  }
+
+
+  /**
+   * Restores a modified area that was dropped. Restoring and installing happen as one, since
+   * restoring an area twice would hand out the same physicals twice.
+   */
+  private synchronized void restoreFromStore(Area area) {
+    if (area.getContents() != null) {
+      return;
+    }
+
+    try {
+      install(area, areaStore.restore(area.getIndex()));
+    }
+    catch (IOException e) {
+      throw new IllegalStateException("Could not restore area " + area.getIndex(), e);
+    }
+  }
+
+
+  private AreaContents generate(Area area) {
+    return AreaFactory.generate(generator, area.getBiome(), areaSizeInSquares,
+        randomStreams.getStream(RandomStreams.Subsystem.AREA, area.getIndex()));
+  }
+
+
+  /**
+   * Puts the live actors within the area back into its freshly generated contents and brings it
+   * into memory, unless another thread got there first.
+   */
+  private synchronized void install(Area area, AreaContents contents) {
+    if (area.getContents() != null) {
+      return;
+    }
+
+    final int originX = area.getIndex() % worldWidthInAreas * areaSizeInSquares.getWidth();
+    final int originY = area.getIndex() / worldWidthInAreas * areaSizeInSquares.getHeight();
+
+    final List<Actor> actors = new ArrayList<>();
+    actorIndex.getActorsWithin(originX, originY, areaSizeInSquares.getWidth(),
+        areaSizeInSquares.getHeight(), actors);
+
+    for (Actor actor : actors) {
+      if (!actor.hasFlag(PhysicalFlag.DEAD)) {
+        final Coordinate at = actor.getCoordinate();
+        contents.put(contents.getIndex(at.globalX - originX, at.globalY - originY), actor);
+      }
+    }
+
+    area.setContents(contents);
+    residentAreas.add(area);
+  }
+}
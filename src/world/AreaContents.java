@@ -0,0 +1,376 @@
+package world;
+
+import actor.Actor;
+import game.physical.Physical;
+import game.physical.PhysicalFlag;
+import thing.ThingFactory;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
+
+import java.io.IOException;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The contents of one area, stored densely by square index (x + y * width). Terrain is a flat array
+ * of terrain variation IDs. Physicals are kept only for the squares that have any, in a map from
+ * square index to either the lone physical on that square or, if there are several, a list of them
+ * sorted by visual priority, highest first. Most squares hold nothing, and most of the rest hold a
+ * single prop, so most squares cost two bytes and few need a list.
+ * <p>
+ * Whether each square is blocked is also kept as one bit per square, packed into longs, and brought
+ * up to date whenever a physical is put or pulled. Passability checks are then a single bit test.
+ * Anything that changes whether a physical blocks while it lies here must call
+ * {@code updateBlocked()} itself.
+ * <p>
+ * The physicals map may be read from one thread, such as the display, while another changes it.
+ */
+final class AreaContents {
+
+  private final int width;
+  private final ShortBuffer terrainIDs;
+  private final Map<Integer, Object> physicals = new ConcurrentHashMap<>();
+  private final long[] blocked;
+
+
+  AreaContents(int width, int height) {
+    this(width, height, ShortBuffer.allocate(width * height));
+  }
+
+
+  /**
+   * Makes contents whose terrain is read from and written to the given buffer, which may be mapped
+   * from a file, rather than an array of their own.
+   */
+  AreaContents(int width, int height, ShortBuffer terrainIDs) {
+    this.width = width;
+    this.terrainIDs = terrainIDs;
+    this.blocked = new long[(width * height + 63) >>> 6];
+  }
+
+
+  int getIndex(int areaX, int areaY) {
+    return areaY * width + areaX;
+  }
+
+
+  Terrain getTerrain(int index) {
+    return Terrain.getByID(terrainIDs.get(index));
+  }
+
+
+  void setTerrain(int index, Terrain terrain) {
+    terrainIDs.put(index, terrain.getID());
+  }
+
+
+  boolean isBlocked(int index) {
+    return (blocked[index >>> 6] & (1L << index)) != 0;
+  }
+
+
+  /**
+   * @return {@code true} if the square at the given index is blocked by something other than a live
+   * actor, such as a tree or a boulder.
+   */
+  @SuppressWarnings("unchecked")
+  boolean isBlockedByScenery(int index) {
+    if (!isBlocked(index)) {
+      return false;
+    }
+
+    final Object located = physicals.get(index);
+    if (located instanceof List) {
+      final List<Physical> locatedHere = (List<Physical>) located;
+      for (int i = 0; i < locatedHere.size(); i++) {
+        if (isBlockingScenery(locatedHere.get(i))) {
+          return true;
+        }
+      }
+      return false;
+    }
+    return located != null && isBlockingScenery((Physical) located);
+  }
+
+
+  private static boolean isBlockingScenery(Physical physical) {
+    return isScenery(physical) && physical.hasFlag(PhysicalFlag.BLOCKING);
+  }
+
+
+  /**
+   * Anything but a live actor is scenery. The bodies of dead actors stay where they fell.
+   */
+  private static boolean isScenery(Physical physical) {
+    return !(physical instanceof Actor) || physical.hasFlag(PhysicalFlag.DEAD);
+  }
+
+
+  /**
+   * Brings the blocked bit for the square at the given index up to date with its physicals.
+   */
+  void updateBlocked(int index) {
+    if (anyHasFlag(index, PhysicalFlag.BLOCKING)) {
+      blocked[index >>> 6] |= 1L << index;
+    }
+    else {
+      blocked[index >>> 6] &= ~(1L << index);
+    }
+  }
+
+
+  /**
+   * @return The physical with the highest visual priority on the square at the given index, or null
+   * if there are none.
+   */
+  @SuppressWarnings("unchecked")
+  Physical peek(int index) {
+    final Object located = physicals.get(index);
+    if (located instanceof List) {
+      final List<Physical> locatedHere = (List<Physical>) located;
+      return locatedHere.isEmpty() ? null : locatedHere.get(0);
+    }
+    return (Physical) located;
+  }
+
+
+  /**
+   * @return The physical with the highest visual priority on the square at the given index, other
+   * than a live actor, or null if there are none.
+   */
+  @SuppressWarnings("unchecked")
+  Physical peekScenery(int index) {
+    final Object located = physicals.get(index);
+    if (located instanceof List) {
+      final List<Physical> locatedHere = (List<Physical>) located;
+      for (int i = 0; i < locatedHere.size(); i++) {
+        if (isScenery(locatedHere.get(i))) {
+          return locatedHere.get(i);
+        }
+      }
+      return null;
+    }
+    return located != null && isScenery((Physical) located) ? (Physical) located : null;
+  }
+
+
+  /**
+   * @return {@code true} if any physical on the square at the given index has the given flag.
+   */
+  @SuppressWarnings("unchecked")
+  boolean anyHasFlag(int index, PhysicalFlag flag) {
+    final Object located = physicals.get(index);
+    if (located instanceof List) {
+      final List<Physical> locatedHere = (List<Physical>) located;
+      for (int i = 0; i < locatedHere.size(); i++) {
+        if (locatedHere.get(i).hasFlag(flag)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    return located != null && ((Physical) located).hasFlag(flag);
+  }
+
+
+  /**
+   * @return {@code true} if the given physical is on the square at the given index.
+   */
+  @SuppressWarnings("unchecked")
+  boolean contains(int index, Physical physical) {
+    final Object located = physicals.get(index);
+    if (located instanceof List) {
+      return ((List<Physical>) located).contains(physical);
+    }
+    return located == physical;
+  }
+
+
+  /**
+   * Adds the physicals on the square at the given index to {@code results}, highest visual priority
+   * first.
+   */
+  @SuppressWarnings("unchecked")
+  void collect(int index, List<Physical> results) {
+    final Object located = physicals.get(index);
+    if (located instanceof List) {
+      results.addAll((List<Physical>) located);
+    }
+    else if (located != null) {
+      results.add((Physical) located);
+    }
+  }
+
+
+  /**
+   * Adds the bodies of dead actors lying anywhere in this area to {@code results}, in order of the
+   * squares they lie on.
+   */
+  void collectCorpses(List<Actor> results) {
+    final List<Physical> locatedHere = new ArrayList<>();
+    for (int index : getOccupiedIndices()) {
+      locatedHere.clear();
+      collect(index, locatedHere);
+
+      for (Physical physical : locatedHere) {
+        if (physical instanceof Actor && physical.hasFlag(PhysicalFlag.DEAD)) {
+          results.add((Actor) physical);
+        }
+      }
+    }
+  }
+
+
+  /**
+   * @return The index of every square holding any physicals, in order.
+   */
+  private List<Integer> getOccupiedIndices() {
+    final List<Integer> indices = new ArrayList<>(physicals.keySet());
+    indices.sort(null);
+    return indices;
+  }
+
+
+  /**
+   * @return The index of every square holding anything other than a live actor, in order.
+   */
+  List<Integer> getSceneryIndices() {
+    final List<Integer> indices = getOccupiedIndices();
+    indices.removeIf(index -> peekScenery(index) == null);
+    return indices;
+  }
+
+
+  /**
+   * Adds the physicals on the square at the given index other than live actors to {@code results},
+   * highest visual priority first.
+   */
+  void collectScenery(int index, List<Physical> results) {
+    final int start = results.size();
+    collect(index, results);
+
+    for (int i = results.size() - 1; i >= start; i--) {
+      if (!isScenery(results.get(i))) {
+        results.remove(i);
+      }
+    }
+  }
+
+
+  /**
+   * @return The terrain variation IDs of every square, by index, as the buffer they are kept in.
+   */
+  ShortBuffer getTerrainIDs() {
+    return terrainIDs;
+  }
+
+
+  /**
+   * Writes the terrain of every square, then every square's scenery, highest visual priority first.
+   * Live actors are left out, since they are put back from the actor index as with any generated
+   * area.
+   */
+  void writeTo(SnapshotWriter out) throws IOException {
+    out.writeShorts(terrainIDs);
+
+    final List<Physical> scenery = new ArrayList<>();
+    final List<Integer> indices = getSceneryIndices();
+
+    out.writeInt(indices.size());
+    for (int index : indices) {
+      scenery.clear();
+      collectScenery(index, scenery);
+
+      out.writeShort(index);
+      out.writeShort(scenery.size());
+      for (Physical physical : scenery) {
+        ThingFactory.writePhysical(out, physical);
+      }
+    }
+  }
+
+
+  /**
+   * Reads back the terrain and scenery written by {@code writeTo()} into these empty contents.
+   */
+  void readFrom(SnapshotReader in) throws IOException {
+    in.readShorts(terrainIDs);
+
+    final List<Physical> scenery = new ArrayList<>();
+    final int squareCount = in.readInt();
+
+    for (int i = 0; i < squareCount; i++) {
+      final int index = in.readShort() & 0xFFFF;
+      if (index < 0 || index >= terrainIDs.capacity()) {
+        throw new IOException("Square index out of range: " + index);
+      }
+
+      scenery.clear();
+      final int count = in.readShort() & 0xFFFF;
+      for (int j = 0; j < count; j++) {
+        scenery.add(ThingFactory.readPhysical(in));
+      }
+
+      // Put lowest first, so that physicals of equal priority keep the order they were written in.
+      for (int j = scenery.size() - 1; j >= 0; j--) {
+        put(index, scenery.get(j));
+      }
+    }
+  }
+
+
+  @SuppressWarnings("unchecked")
+  void put(int index, Physical putting) {
+    final Object located = physicals.get(index);
+    if (located == null) {
+      physicals.put(index, putting);
+      updateBlocked(index);
+      return;
+    }
+
+    // A second physical turns the square's entry into a list.
+    final List<Physical> locatedHere;
+    if (located instanceof List) {
+      locatedHere = (List<Physical>) located;
+    }
+    else {
+      locatedHere = new ArrayList<>(2);
+      locatedHere.add((Physical) located);
+    }
+
+    int i = 0;
+    while (i < locatedHere.size()
+        && putting.getVisualPriority() < locatedHere.get(i).getVisualPriority()) {
+      i++;
+    }
+    locatedHere.add(i, putting);
+    physicals.put(index, locatedHere);
+    updateBlocked(index);
+  }
+
+
+  @SuppressWarnings("unchecked")
+  boolean pull(int index, Physical pulling) {
+    final Object located = physicals.get(index);
+
+    if (located == pulling) {
+      physicals.remove(index);
+      updateBlocked(index);
+      return true;
+    }
+    if (!(located instanceof List) || !((List<Physical>) located).remove(pulling)) {
+      return false;
+    }
+
+    // Back down to one physical, store it alone again.
+    final List<Physical> locatedHere = (List<Physical>) located;
+    if (locatedHere.size() == 1) {
+      physicals.put(index, locatedHere.get(0));
+    }
+    updateBlocked(index);
+    return true;
+  }
+}
@@ -1,12 +1,12 @@
 package world;
 
-import game.Game;
+import game.io.GameResources;
 import game.physical.Physical;
-import thing.ThingFactory;
 import utils.Array2D;
 import utils.Dimension;
 import world.blueprint.Blueprint;
-import world.blueprint.BlueprintFactory;
+
+import java.util.SplittableRandom;
 
 /**
  *
@@ -17,71 +17,39 @@ class AreaFactory {
   private static final double STDGEN_PATCH_PATCHINESS = 0.300; // % of patch candidates to discard.
 
 
-  public static Area standardGeneration(Biome biome, Dimension areaSizeInSquares) {
+  /**
+   * Generates the contents of an area of the given biome, laid out by the given generator. Every
+   * random choice is drawn from the given stream, so the same stream always generates the same
+   * contents.
+   */
+  public static AreaContents generate(WorldGenerator generator, Biome biome,
+      Dimension areaSizeInSquares, SplittableRandom random) {
 
     // Get a Blueprint
     final Blueprint<BiomeTerrain> terrainBlueprint =
-        BlueprintFactory.generateWithCrawler(areaSizeInSquares, biome.getBiomeTerrain());
+        generator.generateTerrain(biome, areaSizeInSquares, random);
 
     // Generate Props
-    final Array2D<Physical> physicals = generateProps(biome, terrainBlueprint, areaSizeInSquares);
+    final Array2D<Physical> physicals = generator.generateProps(biome, terrainBlueprint, random);
 
-    // Produce square map from Blueprint
-    final Array2D<Square> squares =
-        terrainBlueprint.build().map(biomeTerrain -> new Square(biomeTerrain.getTerrainTypeID()));
+    // Produce terrain from Blueprint, then add props to it.
+    final AreaContents contents =
+        new AreaContents(areaSizeInSquares.getWidth(), areaSizeInSquares.getHeight());
 
-    // Add props to square map.
     for (int y = 0; y < areaSizeInSquares.getHeight(); y++) {
       for (int x = 0; x < areaSizeInSquares.getWidth(); x++) {
-        final Physical physical = physicals.get(x, y);
-        if (physical != null) {
-          squares.get(x, y).put(physical);
-        }
+        final String terrainTypeID = terrainBlueprint.get(x, y).getTerrainTypeID();
+        contents.setTerrain(contents.getIndex(x, y),
+            GameResources.getTerrainTypeByID(terrainTypeID).getRandomVariation(random));
       }
     }
 
-    return new Area(biome, squares.unmodifiableView(squares.getDimension(), 0, 0));
-  }
-
-
-  private static Array2D<Physical> generateProps(Biome biome, Blueprint<BiomeTerrain> blueprint,
-      Dimension dimension) {
-
-    final Array2D<Physical> physicals = new Array2D<>(dimension);
-
-    // For each terrain classification in the biome...
-    for (BiomeTerrain biomeTerrain : biome.getBiomeTerrain()) {
-
-      // For each prop classification in the terrain...
-      for (BiomeProp biomeProp : biomeTerrain.getBiomeProps()) {
-
-        // Retrieve the feature ID and calculate how many of the feature we should try to place.
-        final String featureID = biomeProp.getThingTemplateID();
-        int featureCount =
-            (int) (blueprint.getFeatureCount(biomeTerrain) * biomeProp.getFrequency());
-
-        // Pick random points until we've picked a matching terrain that has no physicals, then
-        // place the feature and continue the search--until we've placed all the features or we've
-        // searched for too long.
-        int searchLimit = 10000;
-        while (featureCount > 0 && searchLimit > 0) {
-          searchLimit--;
-
-          int x = Game.RANDOM.nextInt(dimension.getWidth());
-          int y = Game.RANDOM.nextInt(dimension.getHeight());
-
-          if (blueprint.get(x, y) == biomeTerrain && physicals.get(x, y) == null) {
-            physicals.put(ThingFactory.makeThing(featureID), x, y);
-            featureCount--;
-            searchLimit = 10000;
-          }
-        }
-        if (searchLimit == 0) {
-          System.out.println("Failed to find spot for " + featureID + ". Frequency too high?");
-        }
+    physicals.forEach((x, y, physical) -> {
+      if (physical != null) {
+        contents.put(contents.getIndex(x, y), physical);
       }
-    }
+    });
 
-    return physicals;
+    return contents;
   }
 }
\ No newline at end of file
@@ -0,0 +1,519 @@
+package world;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A coarse graph of the world for planning routes too long for the pathfinder, in the style of
+ * HPA*. Wherever a run of open squares crosses the edge between two areas, the square in the middle
+ * of the run becomes an entrance, with a node on each side of the edge. Within each area, the
+ * number of steps between each pair of its nodes is worked out once and cached. A long route is
+ * then planned by searching this graph, which has a handful of nodes per area instead of thousands
+ * of squares, and only the first leg of it is worked out square by square.
+ * <p>
+ * Like flow fields, the graph only counts scenery as blocking. Each edge between areas remembers
+ * the scenery versions of the two areas it was worked out from, and each area the versions of
+ * itself and of its edges, and anything out of date is worked out again the next time a search
+ * comes across it.
+ * <p>
+ * Searches may come from any thread, and take turns. A search only reads the areas it works the
+ * graph out for and those beside them, so a thread updating part of the world alongside others
+ * confines its searches to bounds that nothing else is changing.
+ */
+class AreaGraph {
+
+  private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  // How many areas beyond those holding the start and goal a search may wander through.
+  private static final int SEARCH_MARGIN_IN_AREAS = 1;
+  private static final int MAX_EXPANSIONS = 4096;
+
+  private final World world;
+  private final int worldWidthInSquares;
+  private final int areasWide;
+  private final int areasHigh;
+  private final int areaWidth;
+  private final int areaHeight;
+
+  // The edges along the east and south side of each area, by area index. Null along the world's
+  // own edge.
+  private final Edge[] eastEdges;
+  private final Edge[] southEdges;
+  private final Cluster[] clusters;
+
+  // Scratch space for searching within one area.
+  private final boolean[] localBlocked;
+  private final int[] localDistances;
+  private final int[] localQueue;
+
+
+  AreaGraph(World world) {
+    this.world = world;
+    this.worldWidthInSquares = world.getGlobalSizeInSquares().getWidth();
+    this.areasWide = world.getWorldSizeInAreas().getWidth();
+    this.areasHigh = world.getWorldSizeInAreas().getHeight();
+    this.areaWidth = world.getAreaSizeInSquares().getWidth();
+    this.areaHeight = world.getAreaSizeInSquares().getHeight();
+
+    final int areaCount = areasWide * areasHigh;
+    this.eastEdges = new Edge[areaCount];
+    this.southEdges = new Edge[areaCount];
+    this.clusters = new Cluster[areaCount];
+
+    for (int areaY = 0; areaY < areasHigh; areaY++) {
+      for (int areaX = 0; areaX < areasWide; areaX++) {
+        final int index = areaY * areasWide + areaX;
+        if (areaX < areasWide - 1) {
+          eastEdges[index] = new Edge(areaX, areaY, true);
+        }
+        if (areaY < areasHigh - 1) {
+          southEdges[index] = new Edge(areaX, areaY, false);
+        }
+      }
+    }
+
+    this.localBlocked = new boolean[areaWidth * areaHeight];
+    this.localDistances = new int[areaWidth * areaHeight];
+    this.localQueue = new int[areaWidth * areaHeight];
+  }
+
+
+  /**
+   * Plans a route between the given coordinates across the graph, and picks the last point along it
+   * that is no further than {@code reach} from the start, for the pathfinder to head for.
+   *
+   * @param bounds The areas, as min x, min y, max x and max y, the search must stay within, or null
+   * for none beyond the usual margin.
+   * @return The point to head for, or null if the graph has no route.
+   */
+  synchronized Coordinate findWaypoint(Coordinate from, Coordinate to, int reach, int[] bounds) {
+    final List<Integer> route = findRoute(from, to, bounds);
+    if (route == null) {
+      return null;
+    }
+
+    Coordinate waypoint = null;
+    for (int i = 1; i < route.size(); i++) {
+      final int square = route.get(i);
+      final Coordinate at = new Coordinate(square % worldWidthInSquares,
+          square / worldWidthInSquares);
+
+      if (from.getDistance(at) > reach) {
+        break;
+      }
+      waypoint = at;
+    }
+    return waypoint;
+  }
+
+
+  /**
+   * Searches the graph with A*, starting from the given coordinate and finishing at the other, each
+   * joined to the nodes of their own area by a search within it. Nodes are keyed by the index of
+   * their square in the world.
+   *
+   * @return The squares of each node on the route, from start to goal, or null if there is none,
+   * or if either lies outside the given bounds.
+   */
+  private List<Integer> findRoute(Coordinate from, Coordinate to, int[] bounds) {
+    final int fromArea = getAreaIndex(from.globalX, from.globalY);
+    final int toArea = getAreaIndex(to.globalX, to.globalY);
+    final int start = from.globalY * worldWidthInSquares + from.globalX;
+    final int goal = to.globalY * worldWidthInSquares + to.globalX;
+
+    // Confine the search to the areas around the start and goal, and to the given bounds.
+    int minAreaX = Math.max(0, Math.min(fromArea % areasWide, toArea % areasWide)
+        - SEARCH_MARGIN_IN_AREAS);
+    int maxAreaX = Math.min(areasWide - 1, Math.max(fromArea % areasWide,
+        toArea % areasWide) + SEARCH_MARGIN_IN_AREAS);
+    int minAreaY = Math.max(0, Math.min(fromArea / areasWide, toArea / areasWide)
+        - SEARCH_MARGIN_IN_AREAS);
+    int maxAreaY = Math.min(areasHigh - 1, Math.max(fromArea / areasWide,
+        toArea / areasWide) + SEARCH_MARGIN_IN_AREAS);
+
+    if (bounds != null) {
+      if (!isWithin(fromArea, bounds) || !isWithin(toArea, bounds)) {
+        return null;
+      }
+      minAreaX = Math.max(minAreaX, bounds[0]);
+      minAreaY = Math.max(minAreaY, bounds[1]);
+      maxAreaX = Math.min(maxAreaX, bounds[2]);
+      maxAreaY = Math.min(maxAreaY, bounds[3]);
+    }
+
+    // Find how far the start and goal are from each node of their own area. The start and goal
+    // might also share an area and be joined within it.
+    final Cluster fromCluster = getCluster(fromArea);
+    final int[] startCosts = findCostsWithinArea(fromArea, start, goal, fromCluster);
+    final Cluster toCluster = getCluster(toArea);
+    final int[] goalCosts = findCostsWithinArea(toArea, goal, goal, toCluster);
+
+    if (fromArea == toArea && localDistances[from.globalY % areaHeight * areaWidth
+        + from.globalX % areaWidth] != UNREACHABLE) {
+      final List<Integer> route = new ArrayList<>();
+      route.add(start);
+      route.add(goal);
+      return route;
+    }
+
+    final Map<Integer, Integer> costs = new HashMap<>();
+    final Map<Integer, Integer> parents = new HashMap<>();
+    final PriorityQueue<Long> open = new PriorityQueue<>();
+
+    costs.put(start, 0);
+    open.add(toEntry(estimate(start, to), start));
+
+    int expansions = 0;
+    while (!open.isEmpty() && expansions < MAX_EXPANSIONS) {
+      final long entry = open.poll();
+      final int square = (int) entry;
+      final int cost = costs.get(square);
+
+      if ((int) (entry >>> 32) != cost + estimate(square, to)) {
+        continue; // A stale entry for a square since reached more cheaply.
+      }
+      if (square == goal) {
+        return buildRoute(parents, goal);
+      }
+      expansions++;
+
+      final int area = getAreaIndex(square % worldWidthInSquares, square / worldWidthInSquares);
+
+      // Edges from the start to each node of its area.
+      if (square == start) {
+        for (int j = 0; j < fromCluster.nodeCount; j++) {
+          relax(square, fromCluster.nodeSquares[j], cost, startCosts[j], to, costs, parents, open);
+        }
+      }
+
+      // Edges from a node to each other node of its area, across the area's edge, and to the goal.
+      final Cluster cluster = getCluster(area);
+      final int i = cluster.indexOf(square);
+
+      if (i != -1) {
+        for (int j = 0; j < cluster.nodeCount; j++) {
+          relax(square, cluster.nodeSquares[j], cost, cluster.costs[i * cluster.nodeCount + j], to,
+              costs, parents, open);
+
+          if (cluster.nodeSquares[j] == square) {
+            final int across = cluster.acrossSquares[j];
+            final int acrossArea = getAreaIndex(across % worldWidthInSquares,
+                across / worldWidthInSquares);
+
+            if (acrossArea % areasWide >= minAreaX && acrossArea % areasWide <= maxAreaX
+                && acrossArea / areasWide >= minAreaY && acrossArea / areasWide <= maxAreaY) {
+              relax(square, across, cost, 1, to, costs, parents, open);
+            }
+          }
+        }
+      }
+
+      final int goalIndex = area == toArea ? toCluster.indexOf(square) : -1;
+      if (goalIndex != -1) {
+        relax(square, goal, cost, goalCosts[goalIndex], to, costs, parents, open);
+      }
+    }
+
+    return null;
+  }
+
+
+  private void relax(int square, int next, int cost, int stepCost, Coordinate to,
+      Map<Integer, Integer> costs, Map<Integer, Integer> parents, PriorityQueue<Long> open) {
+
+    if (stepCost == UNREACHABLE || next == square) {
+      return;
+    }
+
+    final int nextCost = cost + stepCost;
+    final Integer known = costs.get(next);
+
+    if (known == null || nextCost < known) {
+      costs.put(next, nextCost);
+      parents.put(next, square);
+      open.add(toEntry(nextCost + estimate(next, to), next));
+    }
+  }
+
+
+  /**
+   * Packs an estimated total cost over a square, so that entries order by cost first.
+   */
+  private static long toEntry(int estimate, int square) {
+    return ((long) estimate << 32) | square;
+  }
+
+
+  private int estimate(int square, Coordinate to) {
+    return Math.max(Math.abs(square % worldWidthInSquares - to.globalX),
+        Math.abs(square / worldWidthInSquares - to.globalY));
+  }
+
+
+  private static List<Integer> buildRoute(Map<Integer, Integer> parents, int goal) {
+    final List<Integer> route = new ArrayList<>();
+    Integer square = goal;
+    while (square != null) {
+      route.add(square);
+      square = parents.get(square);
+    }
+
+    // Put the route the right way round.
+    for (int i = 0, j = route.size() - 1; i < j; i++, j--) {
+      route.set(j, route.set(i, route.get(j)));
+    }
+    return route;
+  }
+
+
+  private boolean isWithin(int area, int[] bounds) {
+    return area % areasWide >= bounds[0] && area / areasWide >= bounds[1]
+        && area % areasWide <= bounds[2] && area / areasWide <= bounds[3];
+  }
+
+
+  private int getAreaIndex(int globalX, int globalY) {
+    return globalY / areaHeight * areasWide + globalX / areaWidth;
+  }
+
+
+  /**
+   * @return The given area's cluster, first working it out again if it is out of date.
+   */
+  private Cluster getCluster(int area) {
+    final int areaX = area % areasWide;
+    final int areaY = area / areasWide;
+    final Cluster cluster = clusters[area];
+
+    final int[] north = areaY > 0 ? getEntrances(southEdges[area - areasWide]) : null;
+    final int[] south = areaY < areasHigh - 1 ? getEntrances(southEdges[area]) : null;
+    final int[] west = areaX > 0 ? getEntrances(eastEdges[area - 1]) : null;
+    final int[] east = areaX < areasWide - 1 ? getEntrances(eastEdges[area]) : null;
+    final int version = world.getArea(areaX, areaY).getSceneryVersion();
+
+    if (cluster != null && cluster.version == version && cluster.north == north
+        && cluster.south == south && cluster.west == west && cluster.east == east) {
+      return cluster;
+    }
+
+    // Gather up this area's side of each entrance, and the square across the edge from it.
+    final int originX = areaX * areaWidth;
+    final int originY = areaY * areaHeight;
+    final Cluster rebuilt = new Cluster(version, north, south, west, east);
+
+    addNodes(rebuilt, north, originX, originY, 1, 0, -worldWidthInSquares);
+    addNodes(rebuilt, south, originX, originY + areaHeight - 1, 1, 0, worldWidthInSquares);
+    addNodes(rebuilt, west, originX, originY, 0, 1, -1);
+    addNodes(rebuilt, east, originX + areaWidth - 1, originY, 0, 1, 1);
+
+    // Then find the number of steps between each pair of them.
+    final int count = rebuilt.nodeCount;
+    for (int i = 0; i < count; i++) {
+      final int[] costs = findCostsWithinArea(area, rebuilt.nodeSquares[i], -1, rebuilt);
+      System.arraycopy(costs, 0, rebuilt.costs, i * count, count);
+    }
+
+    clusters[area] = rebuilt;
+    return rebuilt;
+  }
+
+
+  private static int getLength(int[] entrances) {
+    return entrances == null ? 0 : entrances.length;
+  }
+
+
+  private void addNodes(Cluster cluster, int[] entrances, int x, int y, int stepX, int stepY,
+      int across) {
+    if (entrances == null) {
+      return;
+    }
+
+    for (int offset : entrances) {
+      final int square = (y + offset * stepY) * worldWidthInSquares + x + offset * stepX;
+      cluster.nodeSquares[cluster.nodeCount] = square;
+      cluster.acrossSquares[cluster.nodeCount] = square + across;
+      cluster.nodeCount++;
+    }
+  }
+
+
+  /**
+   * Searches outwards from the given square without leaving its area, leaving the distance to every
+   * square of the area in {@code localDistances}.
+   *
+   * @param open A square to count as open even if blocked, or -1 for none.
+   * @return The distance to each of the cluster's nodes.
+   */
+  private int[] findCostsWithinArea(int area, int square, int open, Cluster cluster) {
+    final int originX = area % areasWide * areaWidth;
+    final int originY = area / areasWide * areaHeight;
+
+    for (int y = 0; y < areaHeight; y++) {
+      for (int x = 0; x < areaWidth; x++) {
+        final int global = (originY + y) * worldWidthInSquares + originX + x;
+        localBlocked[y * areaWidth + x] =
+            global != open && world.isBlockedByScenery(originX + x, originY + y);
+      }
+    }
+
+    Arrays.fill(localDistances, UNREACHABLE);
+    final int start = (square / worldWidthInSquares - originY) * areaWidth
+        + square % worldWidthInSquares - originX;
+    localDistances[start] = 0;
+    localQueue[0] = start;
+    int head = 0;
+    int tail = 1;
+
+    while (head < tail) {
+      final int node = localQueue[head++];
+      final int nodeX = node % areaWidth;
+      final int nodeY = node / areaWidth;
+
+      for (int dy = -1; dy <= 1; dy++) {
+        for (int dx = -1; dx <= 1; dx++) {
+          final int x = nodeX + dx;
+          final int y = nodeY + dy;
+
+          if (x >= 0 && x < areaWidth && y >= 0 && y < areaHeight) {
+            final int next = y * areaWidth + x;
+            if (localDistances[next] == UNREACHABLE && !localBlocked[next]) {
+              localDistances[next] = localDistances[node] + 1;
+              localQueue[tail++] = next;
+            }
+          }
+        }
+      }
+    }
+
+    final int[] costs = new int[cluster.nodeCount];
+    for (int i = 0; i < cluster.nodeCount; i++) {
+      final int nodeSquare = cluster.nodeSquares[i];
+      costs[i] = localDistances[(nodeSquare / worldWidthInSquares - originY) * areaWidth
+          + nodeSquare % worldWidthInSquares - originX];
+    }
+    return costs;
+  }
+
+
+  /**
+   * @return The offsets along the given edge of each of its entrances, first working them out again
+   * if either area beside it has changed.
+   */
+  private int[] getEntrances(Edge edge) {
+    final Area first = world.getArea(edge.areaX, edge.areaY);
+    final Area second = edge.isEast ? world.getArea(edge.areaX + 1, edge.areaY)
+        : world.getArea(edge.areaX, edge.areaY + 1);
+
+    if (edge.entrances != null && edge.firstVersion == first.getSceneryVersion()
+        && edge.secondVersion == second.getSceneryVersion()) {
+      return edge.entrances;
+    }
+
+    edge.firstVersion = first.getSceneryVersion();
+    edge.secondVersion = second.getSceneryVersion();
+
+    // Walk along the edge, with the squares either side of it, finding each run of open pairs.
+    final int length = edge.isEast ? areaHeight : areaWidth;
+    final int firstX = edge.isEast ? (edge.areaX + 1) * areaWidth - 1 : edge.areaX * areaWidth;
+    final int firstY = edge.isEast ? edge.areaY * areaHeight : (edge.areaY + 1) * areaHeight - 1;
+    final int stepX = edge.isEast ? 0 : 1;
+    final int stepY = edge.isEast ? 1 : 0;
+    final int acrossX = edge.isEast ? 1 : 0;
+    final int acrossY = edge.isEast ? 0 : 1;
+
+    final List<Integer> entrances = new ArrayList<>();
+    int runStart = -1;
+
+    for (int offset = 0; offset <= length; offset++) {
+      final int x = firstX + offset * stepX;
+      final int y = firstY + offset * stepY;
+      final boolean isOpen = offset < length && !world.isBlockedByScenery(x, y)
+          && !world.isBlockedByScenery(x + acrossX, y + acrossY);
+
+      if (isOpen && runStart == -1) {
+        runStart = offset;
+      }
+      else if (!isOpen && runStart != -1) {
+        entrances.add((runStart + offset - 1) / 2);
+        runStart = -1;
+      }
+    }
+
+    edge.entrances = new int[entrances.size()];
+    for (int i = 0; i < entrances.size(); i++) {
+      edge.entrances[i] = entrances.get(i);
+    }
+    return edge.entrances;
+  }
+
+
+  /**
+   * The edge between an area and the area to its east or south.
+   */
+  private static final class Edge {
+
+    final int areaX;
+    final int areaY;
+    final boolean isEast;
+
+    int firstVersion;
+    int secondVersion;
+    int[] entrances;
+
+
+    Edge(int areaX, int areaY, boolean isEast) {
+      this.areaX = areaX;
+      this.areaY = areaY;
+      this.isEast = isEast;
+    }
+  }
+
+
+  /**
+   * The nodes of one area, and the number of steps between each pair of them. Never changed once
+   * worked out, so a search can hold on to one while another takes its place.
+   */
+  private static final class Cluster {
+
+    // What the cluster was worked out from.
+    final int version;
+    final int[] north;
+    final int[] south;
+    final int[] west;
+    final int[] east;
+
+    final int[] nodeSquares;
+    final int[] acrossSquares;
+    final int[] costs;
+    int nodeCount = 0;
+
+
+    Cluster(int version, int[] north, int[] south, int[] west, int[] east) {
+      this.version = version;
+      this.north = north;
+      this.south = south;
+      this.west = west;
+      this.east = east;
+
+      final int count = getLength(north) + getLength(south) + getLength(west) + getLength(east);
+      this.nodeSquares = new int[count];
+      this.acrossSquares = new int[count];
+      this.costs = new int[count * count];
+    }
+
+
+    int indexOf(int square) {
+      for (int i = 0; i < nodeCount; i++) {
+        if (nodeSquares[i] == square) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+}
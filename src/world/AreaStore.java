@@ -0,0 +1,240 @@
+package world;
+
+import game.physical.Physical;
+import thing.Thing;
+import thing.ThingFactory;
+import utils.Dimension;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the contents of modified areas in a memory-mapped file, so that the area cache can drop
+ * them from the heap like any other area instead of holding onto them for good. However much of
+ * the world is changed, only the areas in use need to be in memory.
+ * <p>
+ * Each area has a slot of its own in the file, at a fixed offset found from its index, holding its
+ * terrain followed by its scenery. Terrain is never copied back out: contents restored from a slot
+ * read and write their terrain in place, through a view of the mapped file, so restoring an area
+ * only costs as much as the scenery lying on it. Things are stored as a number standing for their
+ * template's ID and the number of their appearance, and made again when restored. Anything else,
+ * such as the body of an actor, can't be made again, so the object itself is kept on the heap
+ * while its area is stored, and the slot only holds a handle to it.
+ * <p>
+ * A slot only has room for so much scenery. An area with more than that is not stored, and must
+ * stay in memory. Slots are mapped a segment at a time as they are first needed, so the file only
+ * grows as far as the areas stored in it.
+ * <p>
+ * Storing and restoring are synchronized, since areas may be restored from any thread.
+ */
+final class AreaStore {
+
+  private static final int SLOTS_PER_SEGMENT = 64;
+
+  // How many bytes of scenery each slot has room for, per square of the area.
+  private static final int SCENERY_BYTES_PER_SQUARE = 8;
+
+  private static final int KIND_THING = 0;
+  private static final int KIND_HANDLE = 1;
+
+  private final FileChannel channel;
+  private final int width;
+  private final int height;
+  private final int terrainBytes;
+  private final int slotSize;
+  private final MappedByteBuffer[] segments;
+
+  private final List<String> templateIDs = new ArrayList<>();
+  private final Map<String, Integer> templateNumbers = new HashMap<>();
+
+  private final List<Physical> handles = new ArrayList<>();
+  private final Deque<Integer> freeHandles = new ArrayDeque<>();
+
+  private final List<Physical> scenery = new ArrayList<>();
+
+
+  private AreaStore(FileChannel channel, Dimension areaSizeInSquares, int areaCount) {
+    this.channel = channel;
+    this.width = areaSizeInSquares.getWidth();
+    this.height = areaSizeInSquares.getHeight();
+    this.terrainBytes = areaSizeInSquares.getArea() * Short.BYTES;
+    this.slotSize = terrainBytes + Integer.BYTES
+        + areaSizeInSquares.getArea() * SCENERY_BYTES_PER_SQUARE;
+    this.segments = new MappedByteBuffer[(areaCount + SLOTS_PER_SEGMENT - 1) / SLOTS_PER_SEGMENT];
+  }
+
+
+  /**
+   * Opens a store in a new temporary file, which is deleted again once the store is closed or,
+   * failing that, when the program exits.
+   */
+  static AreaStore openTemporary(Dimension areaSizeInSquares, int areaCount) throws IOException {
+    final Path path = Files.createTempFile("coinage-areas", ".bin");
+    path.toFile().deleteOnExit();
+
+    final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ,
+        StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+    return new AreaStore(channel, areaSizeInSquares, areaCount);
+  }
+
+
+  /**
+   * Closes the store's file, which deletes it. Nothing can be stored or restored afterwards.
+   */
+  synchronized void close() throws IOException {
+    Arrays.fill(segments, null);
+    handles.clear();
+    freeHandles.clear();
+    channel.close();
+  }
+
+
+  /**
+   * @return A view of the given area's slot, starting at its terrain, mapping the segment it lies
+   * in first if it hasn't been already.
+   */
+  private ByteBuffer getSlot(int index) throws IOException {
+    final int segment = index / SLOTS_PER_SEGMENT;
+    if (segments[segment] == null) {
+      final long segmentSize = (long) slotSize * SLOTS_PER_SEGMENT;
+      segments[segment] =
+          channel.map(FileChannel.MapMode.READ_WRITE, segment * segmentSize, segmentSize);
+    }
+
+    final ByteBuffer slot = segments[segment].duplicate();
+    slot.position(index % SLOTS_PER_SEGMENT * slotSize).limit(slot.position() + slotSize);
+    return slot.slice();
+  }
+
+
+  /**
+   * Writes the given contents of the area with the given index to its slot, other than any live
+   * actors.
+   *
+   * @return {@code false} if the area has too much scenery to fit, in which case it was not stored.
+   */
+  synchronized boolean store(int index, AreaContents contents) throws IOException {
+    final ByteBuffer slot = getSlot(index);
+    final List<Integer> indices = contents.getSceneryIndices();
+    final List<Integer> heldHandles = new ArrayList<>();
+
+    slot.position(terrainBytes + Integer.BYTES);
+    for (int squareIndex : indices) {
+      scenery.clear();
+      contents.collectScenery(squareIndex, scenery);
+
+      if (slot.remaining() < Short.BYTES * 2 + scenery.size() * (Byte.BYTES + Integer.BYTES)) {
+        for (int handle : heldHandles) {
+          takeHandle(handle);
+        }
+        return false;
+      }
+
+      slot.putShort((short) squareIndex);
+      slot.putShort((short) scenery.size());
+      for (Physical physical : scenery) {
+        if (physical instanceof Thing) {
+          final Thing thing = (Thing) physical;
+          slot.put((byte) KIND_THING);
+          slot.putShort((short) getTemplateNumber(thing.getTemplateID()));
+          slot.put((byte) thing.getAppearanceNumber());
+          slot.put((byte) 0);
+        }
+        else {
+          slot.put((byte) KIND_HANDLE);
+          final int handle = makeHandle(physical);
+          slot.putInt(handle);
+          heldHandles.add(handle);
+        }
+      }
+    }
+
+    // The terrain may already be a view of this very slot, in which case this copies it onto
+    // itself.
+    final ShortBuffer terrain = contents.getTerrainIDs().duplicate();
+    terrain.clear();
+    slot.clear();
+    slot.asShortBuffer().put(terrain);
+    slot.putInt(terrainBytes, indices.size());
+    return true;
+  }
+
+
+  /**
+   * @return New contents for the area with the given index, as it was last stored. Its terrain is
+   * read from the slot in place. Live actors are not included.
+   */
+  synchronized AreaContents restore(int index) throws IOException {
+    final ByteBuffer slot = getSlot(index);
+    slot.limit(terrainBytes);
+    final AreaContents contents = new AreaContents(width, height, slot.slice().asShortBuffer());
+
+    slot.clear().position(terrainBytes);
+    final int squareCount = slot.getInt();
+
+    for (int i = 0; i < squareCount; i++) {
+      final int squareIndex = slot.getShort() & 0xFFFF;
+      final int count = slot.getShort() & 0xFFFF;
+
+      scenery.clear();
+      for (int j = 0; j < count; j++) {
+        if (slot.get() == KIND_THING) {
+          final String templateID = templateIDs.get(slot.getShort() & 0xFFFF);
+          final int appearanceNumber = slot.get() & 0xFF;
+          slot.get();
+          scenery.add(ThingFactory.makeThing(templateID, appearanceNumber));
+        }
+        else {
+          scenery.add(takeHandle(slot.getInt()));
+        }
+      }
+
+      // Put lowest first, so that physicals of equal priority keep the order they were stored in.
+      for (int j = scenery.size() - 1; j >= 0; j--) {
+        contents.put(squareIndex, scenery.get(j));
+      }
+    }
+
+    return contents;
+  }
+
+
+  private int getTemplateNumber(String templateID) {
+    return templateNumbers.computeIfAbsent(templateID, id -> {
+      templateIDs.add(id);
+      return templateIDs.size() - 1;
+    });
+  }
+
+
+  private int makeHandle(Physical physical) {
+    if (freeHandles.isEmpty()) {
+      handles.add(physical);
+      return handles.size() - 1;
+    }
+
+    final int handle = freeHandles.pop();
+    handles.set(handle, physical);
+    return handle;
+  }
+
+
+  private Physical takeHandle(int handle) {
+    final Physical physical = handles.set(handle, null);
+    freeHandles.push(handle);
+    return physical;
+  }
+}
@@ -6,7 +6,8 @@ import world.blueprint.BlueprintFeature;
 import java.awt.Color;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -81,12 +82,13 @@ public enum Biome implements BlueprintFeature {
   Biome(int weight, Appearance worldMapAppearance, BiomeTerrain... biomeTerrain) {
     this.weight = weight;
     this.worldMapAppearance = worldMapAppearance;
-    this.biomeTerrain = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(biomeTerrain)));
+    this.biomeTerrain =
+        Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(biomeTerrain)));
   }
 
 
   public static Set<Biome> getAll() {
-    return new HashSet<>(Arrays.asList(values()));
+    return EnumSet.allOf(Biome.class);
   }
 
 
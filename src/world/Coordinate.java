@@ -4,7 +4,9 @@ import game.Direction;
 import utils.Utils;
 
 /**
- *
+ * A square's position in the world. Loops that go through many squares can use the overloads on
+ * World that take plain global X and Y instead, so that stepping from square to square makes
+ * nothing to collect.
  */
 public class Coordinate {
 
@@ -16,7 +18,13 @@ public class Coordinate {
     this.globalY = globalY;
   }
 
+  /**
+   * @return This coordinate if both offsets are zero, or otherwise a new one.
+   */
   public Coordinate offset(int offX, int offY) {
+    if (offX == 0 && offY == 0) {
+      return this;
+    }
     return new Coordinate(globalX+offX, globalY+offY);
   }
 
@@ -0,0 +1,228 @@
+package world;
+
+import java.util.Arrays;
+
+/**
+ * The squares one viewer has a clear line of sight to, out to a given range, worked out by
+ * recursive shadowcasting. Each of the eight octants around the viewer is scanned row by row moving
+ * outwards, and whenever a row meets scenery that blocks, the rest of the octant is split around
+ * the shadow it casts, so that no square is looked at twice and no rays are traced.
+ * <p>
+ * The result is kept as one bit per square of the square window around the viewer, and only worked
+ * out again when the viewer moves, its range changes, or the scenery version of an area under the
+ * window changes. It covers every direction, so turning never costs anything; whether something is
+ * in front of the viewer is left to {@code Perception}.
+ * <p>
+ * Each viewer owns its own field of view, and only refreshes it from the thread updating the
+ * viewer. Another thread, such as the display, reads it between {@code beginReading()} and
+ * {@code endReading()}. The result is worked out into a spare buffer and then swapped in, and a
+ * buffer held for reading is never worked out into until it is let go.
+ */
+public class FieldOfView {
+
+  // Turns an octant's row and column into x and y offsets from the viewer, one column per octant.
+  private static final int[][] OCTANTS = {
+      {1, 0, 0, -1, -1, 0, 0, 1},
+      {0, 1, -1, 0, 0, -1, 1, 0},
+      {0, 1, 1, 0, 0, -1, -1, 0},
+      {1, 0, 0, 1, -1, 0, 0, -1}
+  };
+
+  // Guards which buffer is current, spare, and held for reading.
+  private final Object lock = new Object();
+  private Visibility current = new Visibility();
+  private Visibility spare = new Visibility();
+  private Visibility reading;
+
+  private World world;
+  private int originX;
+  private int originY;
+  private int radius = -1;
+  private long sceneryVersion;
+
+
+  /**
+   * @return {@code true} if the viewer could see the given square when this was last refreshed.
+   */
+  public boolean isVisible(int globalX, int globalY) {
+    return current.isVisible(globalX, globalY);
+  }
+
+
+  public boolean isVisible(Coordinate coordinate) {
+    return isVisible(coordinate.globalX, coordinate.globalY);
+  }
+
+
+  /**
+   * Holds the current field of view for reading from a thread other than the viewer's, until
+   * {@code endReading()}. Refreshes in the meantime leave it as it is.
+   */
+  public Visibility beginReading() {
+    synchronized (lock) {
+      reading = current;
+      return reading;
+    }
+  }
+
+
+  /**
+   * Lets go of the field of view held by {@code beginReading()}.
+   */
+  public void endReading() {
+    synchronized (lock) {
+      reading = null;
+    }
+  }
+
+
+  /**
+   * Works out what can be seen from the given square out to the given range, unless that has not
+   * changed since the last refresh.
+   *
+   * @return {@code true} if it was worked out again.
+   */
+  boolean refresh(World world, Coordinate origin, int radius) {
+    final int minX = origin.globalX - radius;
+    final int minY = origin.globalY - radius;
+    final long version =
+        world.getSceneryVersion(minX, minY, origin.globalX + radius, origin.globalY + radius);
+
+    if (world == this.world && origin.globalX == originX && origin.globalY == originY
+        && radius == this.radius && version == sceneryVersion) {
+      return false;
+    }
+
+    this.world = world;
+    this.originX = origin.globalX;
+    this.originY = origin.globalY;
+    this.radius = radius;
+    this.sceneryVersion = version;
+
+    // Work out the new field of view in the spare buffer, unless it is still being read, then swap
+    // it in.
+    final Visibility filling;
+    synchronized (lock) {
+      filling = spare != reading ? spare : new Visibility();
+    }
+    filling.clear(minX, minY, radius * 2 + 1);
+    filling.setVisible(originX, originY);
+
+    for (int octant = 0; octant < 8; octant++) {
+      castLight(filling, 1, 1.0, 0.0, OCTANTS[0][octant], OCTANTS[1][octant],
+          OCTANTS[2][octant], OCTANTS[3][octant]);
+    }
+
+    synchronized (lock) {
+      spare = current;
+      current = filling;
+    }
+    return true;
+  }
+
+
+  /**
+   * Scans one octant outwards from the given row, between the given slopes, marking each square
+   * that can be seen. On meeting blocking scenery, the part of the octant before it is scanned
+   * further out by a recursive call, and this scan carries on past it.
+   */
+  private void castLight(Visibility filling, int row, double startSlope, double endSlope,
+      int xx, int xy, int yx, int yy) {
+
+    if (startSlope < endSlope) {
+      return;
+    }
+
+    double nextStartSlope = startSlope;
+
+    for (int distance = row; distance <= radius; distance++) {
+      boolean isBlocked = false;
+
+      for (int dx = -distance, dy = -distance; dx <= 0; dx++) {
+        final double leftSlope = (dx - 0.5) / (dy + 0.5);
+        final double rightSlope = (dx + 0.5) / (dy - 0.5);
+
+        if (startSlope < rightSlope) {
+          continue;
+        }
+        else if (endSlope > leftSlope) {
+          break;
+        }
+
+        final int x = originX + dx * xx + dy * xy;
+        final int y = originY + dx * yx + dy * yy;
+        filling.setVisible(x, y);
+
+        final boolean isOpaque = world.isBlockedByScenery(x, y);
+
+        if (isBlocked) {
+          if (isOpaque) {
+            nextStartSlope = rightSlope;
+          }
+          else {
+            isBlocked = false;
+            startSlope = nextStartSlope;
+          }
+        }
+        else if (isOpaque && distance < radius) {
+          isBlocked = true;
+          castLight(filling, distance + 1, startSlope, leftSlope, xx, xy, yx, yy);
+          nextStartSlope = rightSlope;
+        }
+      }
+
+      if (isBlocked) {
+        break;
+      }
+    }
+  }
+
+
+  /**
+   * One bit per square of a square window of the world.
+   */
+  public static final class Visibility {
+
+    private int minX;
+    private int minY;
+    private int size;
+    private long[] bits = new long[0];
+
+
+    void clear(int minX, int minY, int size) {
+      this.minX = minX;
+      this.minY = minY;
+      this.size = size;
+
+      final int words = (size * size + 63) >>> 6;
+      if (bits.length < words) {
+        bits = new long[words];
+      }
+      else {
+        Arrays.fill(bits, 0, words, 0L);
+      }
+    }
+
+
+    void setVisible(int globalX, int globalY) {
+      final int index = (globalY - minY) * size + (globalX - minX);
+      bits[index >>> 6] |= 1L << index;
+    }
+
+
+    /**
+     * @return {@code true} if the viewer could see the given square.
+     */
+    public boolean isVisible(int globalX, int globalY) {
+      final int x = globalX - minX;
+      final int y = globalY - minY;
+
+      if (x < 0 || x >= size || y < 0 || y >= size) {
+        return false;
+      }
+
+      final int index = y * size + x;
+      return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+  }
+}
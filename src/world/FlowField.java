@@ -0,0 +1,306 @@
+package world;
+
+import actor.Actor;
+import game.Direction;
+
+import java.util.Arrays;
+
+/**
+ * A map of how many steps it takes to reach one target from each square around it, also known as a
+ * Dijkstra map. However many actors are chasing or fleeing the target, the map is only worked out
+ * once, and each of them then picks its next step by looking at the squares next to it and taking
+ * the one that is closest.
+ * <p>
+ * Fleeing uses a second map worked out from the first. Stepping to whichever square is furthest
+ * from the target would lead a fleeing actor into the nearest dead end, so instead each square's
+ * distance is scaled by {@code -FLEE_SCALE} and the result smoothed out so that no square is more
+ * than one step's worth above its lowest neighbor. Fleeing is then a matter of stepping downhill on
+ * that map, which leads towards open ground, and past the target if that is the only way out.
+ * <p>
+ * The map covers a square window centered on the target, {@code RADIUS} squares to each side, which
+ * is further than any actor can track. It only counts scenery as blocking, not actors, since actors
+ * move constantly and would otherwise have the map worked out again every beat. Actors are stepped
+ * around when a step is picked instead.
+ * <p>
+ * A map is only worked out again when its target has moved to another square or the scenery within
+ * the window has changed, which is detected through the scenery versions of the areas it covers.
+ * The world refreshes its maps between beats, so during a beat they are only ever read.
+ */
+public class FlowField {
+
+  /**
+   * The distance reported for squares that are blocked, cut off from the target, or outside the
+   * window.
+   */
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  private static final int RADIUS = 48;
+  private static final int SIZE = RADIUS * 2 + 1;
+
+  // Marks squares found to be blocked during a fill, so that each is only looked up once.
+  private static final int BLOCKED = UNREACHABLE - 1;
+
+  // The flee map is kept in fifths of a step, and starts from six fifths of each square's distance.
+  private static final int FLEE_STEP = 5;
+  private static final int FLEE_SCALE = 6;
+
+  private final World world;
+  private final Actor target;
+
+  private final int[] distances = new int[SIZE * SIZE];
+  private final int[] fleeValues = new int[SIZE * SIZE];
+  private final int[] fleeQueueNodes = new int[SIZE * SIZE];
+  private final int[] fleeQueueValues = new int[SIZE * SIZE];
+
+  // Every reachable square, in the order the fill reached them, which is nearest first.
+  private final int[] queue = new int[SIZE * SIZE];
+  private int reachedCount;
+
+  private boolean isFilled = false;
+  private int targetX;
+  private int targetY;
+  private int minX;
+  private int minY;
+  private long sceneryVersion;
+
+
+  FlowField(World world, Actor target) {
+    this.world = world;
+    this.target = target;
+  }
+
+
+  public Actor getTarget() {
+    return target;
+  }
+
+
+  /**
+   * @return The number of steps from the given square to the target, or {@code UNREACHABLE}.
+   */
+  public int getDistance(int globalX, int globalY) {
+    final int x = globalX - minX;
+    final int y = globalY - minY;
+
+    if (!isFilled || x < 0 || x >= SIZE || y < 0 || y >= SIZE) {
+      return UNREACHABLE;
+    }
+
+    final int distance = distances[y * SIZE + x];
+    return distance == BLOCKED ? UNREACHABLE : distance;
+  }
+
+
+  /**
+   * @return The direction of an open square next to the given coordinate that is closer to the
+   * target, preferring the closest, or null if there is none. The target's own square counts as
+   * open.
+   */
+  public Direction getStepTowards(Coordinate from) {
+    final int fromDistance = getDistance(from.globalX, from.globalY);
+    if (fromDistance == UNREACHABLE) {
+      return null;
+    }
+
+    Direction best = null;
+    int bestDistance = fromDistance;
+
+    for (Direction direction : Direction.values()) {
+      final int x = from.globalX + direction.relativeX;
+      final int y = from.globalY + direction.relativeY;
+      final int distance = getDistance(x, y);
+
+      if (distance < bestDistance && (distance == 0 || !world.isBlocked(x, y))) {
+        best = direction;
+        bestDistance = distance;
+      }
+    }
+    return best;
+  }
+
+
+  /**
+   * @return The direction of an open square next to the given coordinate that leads away from the
+   * target, following the flee map, or null if there is none.
+   */
+  public Direction getStepAway(Coordinate from) {
+    if (getDistance(from.globalX, from.globalY) == UNREACHABLE) {
+      return null;
+    }
+
+    Direction best = null;
+    int bestValue = getFleeValue(from.globalX, from.globalY);
+
+    for (Direction direction : Direction.values()) {
+      final int x = from.globalX + direction.relativeX;
+      final int y = from.globalY + direction.relativeY;
+
+      if (getDistance(x, y) != UNREACHABLE) {
+        final int value = getFleeValue(x, y);
+        if (value < bestValue && !world.isBlocked(x, y)) {
+          best = direction;
+          bestValue = value;
+        }
+      }
+    }
+    return best;
+  }
+
+
+  /**
+   * Only valid for squares whose distance is not {@code UNREACHABLE}.
+   */
+  private int getFleeValue(int globalX, int globalY) {
+    return fleeValues[(globalY - minY) * SIZE + (globalX - minX)];
+  }
+
+
+  /**
+   * Works the map out again if the target has moved to another square or the scenery around it has
+   * changed since it was last worked out.
+   *
+   * @return {@code true} if the map was worked out again.
+   */
+  boolean refresh() {
+    final Coordinate targetAt = target.getCoordinate();
+
+    if (isFilled && targetAt.globalX == targetX && targetAt.globalY == targetY
+        && getSceneryVersion() == sceneryVersion) {
+      return false;
+    }
+
+    targetX = targetAt.globalX;
+    targetY = targetAt.globalY;
+    minX = targetX - RADIUS;
+    minY = targetY - RADIUS;
+    sceneryVersion = getSceneryVersion();
+    fill();
+    fillFleeValues();
+    isFilled = true;
+    return true;
+  }
+
+
+  private long getSceneryVersion() {
+    return world.getSceneryVersion(minX, minY, minX + SIZE - 1, minY + SIZE - 1);
+  }
+
+
+  /**
+   * Fills in every distance with a breadth-first search outwards from the target. Every step costs
+   * the same, diagonals included, so the first time a square is reached is by its shortest route.
+   */
+  private void fill() {
+    Arrays.fill(distances, UNREACHABLE);
+
+    final int start = RADIUS * SIZE + RADIUS;
+    distances[start] = 0;
+    queue[0] = start;
+    int head = 0;
+    int tail = 1;
+
+    while (head < tail) {
+      final int node = queue[head++];
+      final int nodeX = node % SIZE;
+      final int nodeY = node / SIZE;
+      final int nextDistance = distances[node] + 1;
+
+      for (int dy = -1; dy <= 1; dy++) {
+        final int y = nodeY + dy;
+        if (y < 0 || y >= SIZE) {
+          continue;
+        }
+
+        for (int dx = -1; dx <= 1; dx++) {
+          final int x = nodeX + dx;
+          if (x < 0 || x >= SIZE) {
+            continue;
+          }
+
+          final int next = y * SIZE + x;
+          if (distances[next] != UNREACHABLE) {
+            continue; // Already reached, or already found to be blocked.
+          }
+
+          if (world.isBlockedByScenery(x + minX, y + minY)) {
+            distances[next] = BLOCKED;
+          }
+          else {
+            distances[next] = nextDistance;
+            queue[tail++] = next;
+          }
+        }
+      }
+    }
+
+    reachedCount = tail;
+  }
+
+
+  /**
+   * Works out the flee map from the distances. Each reachable square starts at its scaled distance,
+   * then a Dijkstra search, starting from every square at once, lowers each square to the cheapest
+   * value it can reach plus the cost of the steps to get there.
+   * <p>
+   * No priority queue is needed. Taken furthest first, the order the fill reached squares in is the
+   * order of their starting values, and since every step costs the same, squares lowered by the
+   * search are lowered in order too. So the search only has to merge two lists that are already in
+   * order, and settles each square once.
+   */
+  private void fillFleeValues() {
+    for (int i = 0; i < reachedCount; i++) {
+      final int node = queue[i];
+      fleeValues[node] = -distances[node] * FLEE_SCALE;
+    }
+
+    int nextStart = reachedCount - 1;
+    int head = 0;
+    int tail = 0;
+
+    while (nextStart >= 0 || head < tail) {
+
+      // Take whichever is lower, the next starting square or the next lowered square.
+      final int node;
+      final int value;
+
+      if (head < tail && (nextStart < 0
+          || fleeQueueValues[head] <= -distances[queue[nextStart]] * FLEE_SCALE)) {
+        node = fleeQueueNodes[head];
+        value = fleeQueueValues[head++];
+      }
+      else {
+        node = queue[nextStart--];
+        value = -distances[node] * FLEE_SCALE;
+      }
+
+      if (value != fleeValues[node]) {
+        continue; // Lowered since, and so already taken at its lower value.
+      }
+
+      final int nodeX = node % SIZE;
+      final int nodeY = node / SIZE;
+      final int nextValue = value + FLEE_STEP;
+
+      for (int dy = -1; dy <= 1; dy++) {
+        final int y = nodeY + dy;
+        if (y < 0 || y >= SIZE) {
+          continue;
+        }
+
+        for (int dx = -1; dx <= 1; dx++) {
+          final int x = nodeX + dx;
+          if (x < 0 || x >= SIZE) {
+            continue;
+          }
+
+          final int next = y * SIZE + x;
+          if (distances[next] < BLOCKED && nextValue < fleeValues[next]) {
+            fleeValues[next] = nextValue;
+            fleeQueueNodes[tail] = next;
+            fleeQueueValues[tail++] = nextValue;
+          }
+        }
+      }
+    }
+  }
+}
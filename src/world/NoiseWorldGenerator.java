@@ -0,0 +1,136 @@
+package world;
+
+import game.physical.Physical;
+import thing.ThingFactory;
+import utils.Array2D;
+import utils.BitGrid;
+import utils.Dimension;
+import world.blueprint.Blueprint;
+import world.blueprint.BlueprintFactory;
+
+import java.util.SplittableRandom;
+
+/**
+ * Lays out biomes and terrain from gradient noise, then spreads props out evenly over their
+ * terrain. Nothing here searches until it succeeds, so laying out an area takes much the same time
+ * whatever its biome.
+ */
+final class NoiseWorldGenerator implements WorldGenerator {
+
+  private static final double BIOME_REGION_SIZE = 8.0; // In areas.
+  private static final double TERRAIN_REGION_SIZE = 12.0; // In squares.
+  private static final int NOISE_OCTAVES = 2;
+
+  // How far apart props of one kind stand, relative to the spacing they would have if spread out
+  // perfectly evenly, and the furthest apart they are ever kept.
+  private static final double PROP_SPACING = 0.7;
+  private static final int PROP_SPACING_LIMIT = 6;
+
+
+  @Override
+  public String getName() {
+    return "NOISE";
+  }
+
+
+  @Override
+  public Blueprint<Biome> generateBiomes(Dimension worldSizeInAreas, SplittableRandom random) {
+    return BlueprintFactory.generateWithNoise(worldSizeInAreas, Biome.getAll(), BIOME_REGION_SIZE,
+        NOISE_OCTAVES, random);
+  }
+
+
+  @Override
+  public Blueprint<BiomeTerrain> generateTerrain(Biome biome, Dimension areaSizeInSquares,
+      SplittableRandom random) {
+    return BlueprintFactory.generateWithNoise(areaSizeInSquares, biome.getBiomeTerrain(),
+        TERRAIN_REGION_SIZE, NOISE_OCTAVES, random);
+  }
+
+
+  /**
+   * Places props as Poisson-disk samples. Each prop draws the squares of its terrain in a random
+   * order, each square at most once, and takes every square that is free and not too close to
+   * another of the same prop, until it has placed enough or run out of squares. How close is worked
+   * out from how thinly the prop is spread, so sparse props stand apart rather than clumping by
+   * chance, and dense props are placed wherever there is room.
+   */
+  @Override
+  public Array2D<Physical> generateProps(Biome biome, Blueprint<BiomeTerrain> terrain,
+      SplittableRandom random) {
+
+    final Dimension dimension = terrain.getDimension();
+    final int width = dimension.getWidth();
+    final Array2D<Physical> physicals = new Array2D<>(dimension);
+    final BitGrid placed = new BitGrid(dimension);
+    final int[] candidates = new int[dimension.getArea()];
+
+    for (BiomeTerrain biomeTerrain : biome.getBiomeTerrain()) {
+
+      // Gather the squares of this terrain.
+      int candidateCount = 0;
+      for (int y = 0; y < dimension.getHeight(); y++) {
+        for (int x = 0; x < width; x++) {
+          if (terrain.get(x, y) == biomeTerrain) {
+            candidates[candidateCount++] = y * width + x;
+          }
+        }
+      }
+
+      for (BiomeProp biomeProp : biomeTerrain.getBiomeProps()) {
+        final String featureID = biomeProp.getThingTemplateID();
+        final int featureCount =
+            (int) (terrain.getFeatureCount(biomeTerrain) * biomeProp.getFrequency());
+        if (featureCount == 0) {
+          continue;
+        }
+
+        final int spacing = Math.min(PROP_SPACING_LIMIT,
+            (int) (Math.sqrt(candidateCount / (double) featureCount) * PROP_SPACING));
+        placed.fill(false);
+
+        // Draw the squares in a random order, shuffling them as they are drawn.
+        int placedCount = 0;
+        for (int i = 0; i < candidateCount && placedCount < featureCount; i++) {
+          final int j = i + random.nextInt(candidateCount - i);
+          final int index = candidates[j];
+          candidates[j] = candidates[i];
+          candidates[i] = index;
+
+          final int x = index % width;
+          final int y = index / width;
+          if (physicals.get(x, y) == null && !isNearAny(placed, x, y, spacing)) {
+            physicals.put(ThingFactory.makeThing(featureID, random), x, y);
+            placed.put(true, x, y);
+            placedCount++;
+          }
+        }
+      }
+    }
+
+    return physicals;
+  }
+
+
+  /**
+   * @return {@code true} if any square set in the given grid is closer than {@code spacing} to the
+   * given square.
+   */
+  private static boolean isNearAny(BitGrid grid, int x, int y, int spacing) {
+    final Dimension dimension = grid.getDimension();
+    final int reach = spacing - 1;
+    final int maxX = Math.min(x + reach, dimension.getWidth() - 1);
+    final int maxY = Math.min(y + reach, dimension.getHeight() - 1);
+
+    for (int nearY = Math.max(y - reach, 0); nearY <= maxY; nearY++) {
+      for (int nearX = Math.max(x - reach, 0); nearX <= maxX; nearX++) {
+        final int offX = nearX - x;
+        final int offY = nearY - y;
+        if (offX * offX + offY * offY < spacing * spacing && grid.get(nearX, nearY)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
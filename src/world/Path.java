@@ -0,0 +1,205 @@
+package world;
+
+import game.Direction;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A route through the world, stored as the squares to step onto in order, ending at the goal. Paths
+ * are meant to be kept by whoever follows them and refilled by the pathfinder as needed, so their
+ * arrays are reused rather than reallocated with each new route.
+ * <p>
+ * A path may cover only the first leg of a longer route, in which case it ends short of the
+ * destination it is heading for. It still counts as leading there until it runs out.
+ */
+public class Path {
+
+  private int[] stepXs = new int[32];
+  private int[] stepYs = new int[32];
+  private int length = 0;
+  private int nextStep = 0;
+
+  private boolean hasGoal = false;
+  private int goalX;
+  private int goalY;
+
+  // Where the path is headed, if it ends short of it.
+  private boolean isPartial = false;
+  private int destinationX;
+  private int destinationY;
+
+
+  /**
+   * Forgets the current route, so that the next query finds a new one.
+   */
+  public void clear() {
+    length = 0;
+    nextStep = 0;
+    hasGoal = false;
+    isPartial = false;
+  }
+
+
+  /**
+   * @return {@code true} if this path currently ends at the given coordinate.
+   */
+  public boolean leadsTo(Coordinate goal) {
+    if (isPartial) {
+      return goal.globalX == destinationX && goal.globalY == destinationY;
+    }
+    return hasGoal && goal.globalX == goalX && goal.globalY == goalY;
+  }
+
+
+  /**
+   * Follows a goal that has moved. If the new goal is next to the old one, it is simply added on as
+   * one more step, which saves a search when chasing something that moves a square at a time. A
+   * path covering only the first leg of a route just heads for the new goal instead, since the
+   * rest of the route will be searched for when it runs out anyway.
+   *
+   * @return {@code true} if this path now leads to the given goal.
+   */
+  public boolean extendTo(Coordinate goal) {
+    if (!hasGoal || leadsTo(goal)) {
+      return hasGoal;
+    }
+
+    if (isPartial) {
+      if (Math.abs(goal.globalX - destinationX) > 1 || Math.abs(goal.globalY - destinationY) > 1) {
+        return false;
+      }
+      destinationX = goal.globalX;
+      destinationY = goal.globalY;
+      return true;
+    }
+
+    if (Math.abs(goal.globalX - goalX) > 1 || Math.abs(goal.globalY - goalY) > 1) {
+      return false;
+    }
+
+    addStep(goal.globalX, goal.globalY);
+    goalX = goal.globalX;
+    goalY = goal.globalY;
+    return true;
+  }
+
+
+  /**
+   * Moves past any steps the follower has already taken, then gives the direction of the step after
+   * that.
+   *
+   * @return The direction to step in from the given coordinate, or null if the path is finished or
+   * the coordinate is not on it.
+   */
+  public Direction getNextStep(Coordinate from) {
+    while (nextStep < length && stepXs[nextStep] == from.globalX
+        && stepYs[nextStep] == from.globalY) {
+      nextStep++;
+    }
+
+    if (nextStep >= length || Math.abs(stepXs[nextStep] - from.globalX) > 1
+        || Math.abs(stepYs[nextStep] - from.globalY) > 1) {
+      return null;
+    }
+    return Direction.fromPointToPoint(from.globalX, from.globalY, stepXs[nextStep],
+        stepYs[nextStep]);
+  }
+
+
+  /**
+   * @return The number of steps left to take, assuming the next step has not been taken yet.
+   */
+  public int getStepsRemaining() {
+    return length - nextStep;
+  }
+
+
+  /**
+   * Writes the steps still to be taken and where they lead, so that a follower read back from a
+   * snapshot carries on along the same route.
+   */
+  public void writeTo(SnapshotWriter out) throws IOException {
+    out.writeInt(length - nextStep);
+    for (int i = nextStep; i < length; i++) {
+      out.writeInt(stepXs[i]);
+      out.writeInt(stepYs[i]);
+    }
+
+    out.writeBoolean(hasGoal);
+    out.writeInt(goalX);
+    out.writeInt(goalY);
+    out.writeBoolean(isPartial);
+    out.writeInt(destinationX);
+    out.writeInt(destinationY);
+  }
+
+
+  /**
+   * Reads back a route written by {@code writeTo()} in place of this one.
+   */
+  public void readFrom(SnapshotReader in) throws IOException {
+    clear();
+    final int steps = in.readInt();
+    if (steps < 0) {
+      throw new IOException("Negative path length: " + steps);
+    }
+    for (int i = 0; i < steps; i++) {
+      addStep(in.readInt(), in.readInt());
+    }
+
+    hasGoal = in.readBoolean();
+    goalX = in.readInt();
+    goalY = in.readInt();
+    isPartial = in.readBoolean();
+    destinationX = in.readInt();
+    destinationY = in.readInt();
+  }
+
+
+  /**
+   * Starts a new route to the given goal. Steps are then added in reverse, from the goal back
+   * towards the start, and put the right way round by {@code finish()}.
+   */
+  void begin(int goalX, int goalY) {
+    clear();
+    this.goalX = goalX;
+    this.goalY = goalY;
+  }
+
+
+  /**
+   * Marks this path as the first leg of a route to the given destination.
+   */
+  void headFor(Coordinate destination) {
+    isPartial = true;
+    destinationX = destination.globalX;
+    destinationY = destination.globalY;
+  }
+
+
+  void addStep(int x, int y) {
+    if (length == stepXs.length) {
+      stepXs = Arrays.copyOf(stepXs, length * 2);
+      stepYs = Arrays.copyOf(stepYs, length * 2);
+    }
+    stepXs[length] = x;
+    stepYs[length] = y;
+    length++;
+  }
+
+
+  void finish() {
+    for (int i = 0, j = length - 1; i < j; i++, j--) {
+      final int x = stepXs[i];
+      final int y = stepYs[i];
+      stepXs[i] = stepXs[j];
+      stepYs[i] = stepYs[j];
+      stepXs[j] = x;
+      stepYs[j] = y;
+    }
+    hasGoal = true;
+  }
+}
@@ -0,0 +1,390 @@
+package world;
+
+import java.util.Arrays;
+
+/**
+ * Finds routes across the world with jump point search, a form of A* for uniform grids that skips
+ * over runs of open squares instead of adding each one to the open set. Only squares where the
+ * route might have to bend, such as beside the corner of an obstacle, are ever queued.
+ * <p>
+ * The search is confined to a window around the start and goal, a little larger than the rectangle
+ * between them, and gives up after a fixed number of expansions, so a failed search stays cheap.
+ * The window never reaches further than {@code MAX_REACH} from the start, so goals further away
+ * than that are refused outright. This also keeps a search well inside the neighborhood of the
+ * searching actor that a parallel update leaves alone (see {@code GameControllers}).
+ * <p>
+ * Nodes are identified by their index within the window, and all per-node state lives in arrays
+ * that are allocated once and reused. Rather than clearing those arrays between searches, each
+ * search takes a new stamp, and any node not marked with the current stamp counts as unvisited.
+ * <p>
+ * Every step costs the same in this world, but diagonal steps are costed a little higher during the
+ * search, which favors straight runs and keeps routes looking natural. The goal square is treated
+ * as open even if it is blocked, since it is usually occupied by whatever is being approached.
+ * <p>
+ * A pathfinder is not thread-safe. The world hands each thread its own.
+ */
+public class Pathfinder {
+
+  static final int MAX_REACH = 48;
+  private static final int MAX_WINDOW_SIZE = MAX_REACH * 2 + 1;
+  private static final int WINDOW_MARGIN = 16;
+  private static final int MAX_EXPANSIONS = 2048;
+
+  private static final int STRAIGHT_COST = 10;
+  private static final int DIAGONAL_COST = 14;
+
+  private final World world;
+
+  private final int[] costs = new int[MAX_WINDOW_SIZE * MAX_WINDOW_SIZE];
+  private final int[] parents = new int[MAX_WINDOW_SIZE * MAX_WINDOW_SIZE];
+  private final int[] seenStamps = new int[MAX_WINDOW_SIZE * MAX_WINDOW_SIZE];
+  private final int[] closedStamps = new int[MAX_WINDOW_SIZE * MAX_WINDOW_SIZE];
+  private int stamp = 0;
+
+  // Open set, as a binary min-heap of nodes keyed on estimated total cost. Nodes whose cost
+  // improves are pushed again rather than moved, and their stale entries skipped once closed.
+  private int[] openNodes = new int[256];
+  private int[] openEstimates = new int[256];
+  private int openCount;
+
+  // Directions to search from the node being expanded, as pairs of x and y.
+  private final int[] directions = new int[16];
+
+  private int minX;
+  private int minY;
+  private int maxX;
+  private int maxY;
+  private int windowWidth;
+  private int goalX;
+  private int goalY;
+
+
+  Pathfinder(World world) {
+    this.world = world;
+  }
+
+
+  /**
+   * Searches for a route from one coordinate to another and, if one is found, fills the given path
+   * with it.
+   *
+   * @return {@code true} if a route was found. If not, the path is left empty.
+   */
+  public boolean findPath(Coordinate from, Coordinate to, Path path) {
+    path.clear();
+
+    if (!world.validateCoordinate(from) || !world.validateCoordinate(to)) {
+      return false;
+    }
+
+    if (from.getDistance(to) > MAX_REACH) {
+      return false;
+    }
+
+    // Fit the window around both ends, inside both the world and our reach.
+    final int reachMinX = Math.max(0, from.globalX - MAX_REACH);
+    final int reachMinY = Math.max(0, from.globalY - MAX_REACH);
+    final int reachMaxX = Math.min(world.getGlobalSizeInSquares().getWidth() - 1,
+        from.globalX + MAX_REACH);
+    final int reachMaxY = Math.min(world.getGlobalSizeInSquares().getHeight() - 1,
+        from.globalY + MAX_REACH);
+
+    minX = Math.max(reachMinX, Math.min(from.globalX, to.globalX) - WINDOW_MARGIN);
+    minY = Math.max(reachMinY, Math.min(from.globalY, to.globalY) - WINDOW_MARGIN);
+    maxX = Math.min(reachMaxX, Math.max(from.globalX, to.globalX) + WINDOW_MARGIN);
+    maxY = Math.min(reachMaxY, Math.max(from.globalY, to.globalY) + WINDOW_MARGIN);
+    windowWidth = maxX - minX + 1;
+
+    goalX = to.globalX;
+    goalY = to.globalY;
+    beginSearch();
+
+    final int start = toNode(from.globalX, from.globalY);
+    final int goal = toNode(goalX, goalY);
+    costs[start] = 0;
+    parents[start] = -1;
+    seenStamps[start] = stamp;
+    push(start, estimate(from.globalX, from.globalY));
+
+    int expansions = 0;
+    while (openCount > 0 && expansions < MAX_EXPANSIONS) {
+      final int node = pop();
+
+      if (closedStamps[node] == stamp) {
+        continue; // A stale entry for a node we have already expanded more cheaply.
+      }
+      if (node == goal) {
+        buildPath(goal, path);
+        return true;
+      }
+
+      closedStamps[node] = stamp;
+      expand(node);
+      expansions++;
+    }
+
+    return false;
+  }
+
+
+  private void beginSearch() {
+    stamp++;
+    if (stamp == Integer.MAX_VALUE) {
+      Arrays.fill(seenStamps, 0);
+      Arrays.fill(closedStamps, 0);
+      stamp = 1;
+    }
+    openCount = 0;
+  }
+
+
+  private int toNode(int x, int y) {
+    return (y - minY) * windowWidth + (x - minX);
+  }
+
+
+  private int getNodeX(int node) {
+    return node % windowWidth + minX;
+  }
+
+
+  private int getNodeY(int node) {
+    return node / windowWidth + minY;
+  }
+
+
+  private boolean isOpen(int x, int y) {
+    if (x < minX || x > maxX || y < minY || y > maxY) {
+      return false;
+    }
+    return (x == goalX && y == goalY) || !world.isBlocked(x, y);
+  }
+
+
+  private static int getCost(int deltaX, int deltaY) {
+    final int absX = Math.abs(deltaX);
+    final int absY = Math.abs(deltaY);
+    final int diagonal = Math.min(absX, absY);
+    return diagonal * DIAGONAL_COST + (Math.max(absX, absY) - diagonal) * STRAIGHT_COST;
+  }
+
+
+  private int estimate(int x, int y) {
+    return getCost(goalX - x, goalY - y);
+  }
+
+
+  /**
+   * Jumps from the node in every direction worth searching, and queues each jump point found.
+   */
+  private void expand(int node) {
+    final int x = getNodeX(node);
+    final int y = getNodeY(node);
+    final int directionCount = findDirectionsToSearch(node, x, y);
+
+    for (int i = 0; i < directionCount; i += 2) {
+      final int jumpPoint = jump(x, y, directions[i], directions[i + 1]);
+      if (jumpPoint == -1 || closedStamps[jumpPoint] == stamp) {
+        continue;
+      }
+
+      final int jumpX = getNodeX(jumpPoint);
+      final int jumpY = getNodeY(jumpPoint);
+      final int cost = costs[node] + getCost(jumpX - x, jumpY - y);
+
+      if (seenStamps[jumpPoint] != stamp || cost < costs[jumpPoint]) {
+        seenStamps[jumpPoint] = stamp;
+        costs[jumpPoint] = cost;
+        parents[jumpPoint] = node;
+        push(jumpPoint, cost + estimate(jumpX, jumpY));
+      }
+    }
+  }
+
+
+  /**
+   * Fills {@code directions} with the directions that could lead anywhere the node's parent could
+   * not have reached as cheaply itself: straight on, plus any direction forced open by an obstacle
+   * beside us. The start node searches in every direction.
+   *
+   * @return The number of values written, two per direction.
+   */
+  private int findDirectionsToSearch(int node, int x, int y) {
+    int count = 0;
+
+    if (parents[node] == -1) {
+      for (int dy = -1; dy <= 1; dy++) {
+        for (int dx = -1; dx <= 1; dx++) {
+          if (dx != 0 || dy != 0) {
+            directions[count++] = dx;
+            directions[count++] = dy;
+          }
+        }
+      }
+      return count;
+    }
+
+    final int parent = parents[node];
+    final int dx = Integer.signum(x - getNodeX(parent));
+    final int dy = Integer.signum(y - getNodeY(parent));
+
+    if (dx != 0 && dy != 0) {
+      count = addDirection(count, dx, dy);
+      count = addDirection(count, dx, 0);
+      count = addDirection(count, 0, dy);
+      if (!isOpen(x - dx, y)) {
+        count = addDirection(count, -dx, dy);
+      }
+      if (!isOpen(x, y - dy)) {
+        count = addDirection(count, dx, -dy);
+      }
+    }
+    else if (dx != 0) {
+      count = addDirection(count, dx, 0);
+      if (!isOpen(x, y + 1)) {
+        count = addDirection(count, dx, 1);
+      }
+      if (!isOpen(x, y - 1)) {
+        count = addDirection(count, dx, -1);
+      }
+    }
+    else {
+      count = addDirection(count, 0, dy);
+      if (!isOpen(x + 1, y)) {
+        count = addDirection(count, 1, dy);
+      }
+      if (!isOpen(x - 1, y)) {
+        count = addDirection(count, -1, dy);
+      }
+    }
+
+    return count;
+  }
+
+
+  private int addDirection(int count, int dx, int dy) {
+    directions[count] = dx;
+    directions[count + 1] = dy;
+    return count + 2;
+  }
+
+
+  /**
+   * Walks from the given square in the given direction until reaching the goal, a square with a
+   * forced neighbor, or (when moving diagonally) a square from which a straight walk finds either
+   * of those.
+   *
+   * @return The node walked to, or -1 if the walk ran into an obstacle or out of the window.
+   */
+  private int jump(int x, int y, int dx, int dy) {
+    while (true) {
+      x += dx;
+      y += dy;
+
+      if (!isOpen(x, y)) {
+        return -1;
+      }
+      if (x == goalX && y == goalY) {
+        return toNode(x, y);
+      }
+
+      if (dx != 0 && dy != 0) {
+        if ((!isOpen(x - dx, y) && isOpen(x - dx, y + dy))
+            || (!isOpen(x, y - dy) && isOpen(x + dx, y - dy))
+            || jump(x, y, dx, 0) != -1 || jump(x, y, 0, dy) != -1) {
+          return toNode(x, y);
+        }
+      }
+      else if (dx != 0) {
+        if ((!isOpen(x, y + 1) && isOpen(x + dx, y + 1))
+            || (!isOpen(x, y - 1) && isOpen(x + dx, y - 1))) {
+          return toNode(x, y);
+        }
+      }
+      else {
+        if ((!isOpen(x + 1, y) && isOpen(x + 1, y + dy))
+            || (!isOpen(x - 1, y) && isOpen(x - 1, y + dy))) {
+          return toNode(x, y);
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Walks back from the goal through each jump point's parent, filling in the straight or diagonal
+   * run of squares between each pair.
+   */
+  private void buildPath(int goal, Path path) {
+    path.begin(goalX, goalY);
+
+    int node = goal;
+    while (parents[node] != -1) {
+      final int parent = parents[node];
+      final int parentX = getNodeX(parent);
+      final int parentY = getNodeY(parent);
+      final int dx = Integer.signum(parentX - getNodeX(node));
+      final int dy = Integer.signum(parentY - getNodeY(node));
+
+      for (int x = getNodeX(node), y = getNodeY(node); x != parentX || y != parentY;
+          x += dx, y += dy) {
+        path.addStep(x, y);
+      }
+      node = parent;
+    }
+
+    path.finish();
+  }
+
+
+  private void push(int node, int estimate) {
+    if (openCount == openNodes.length) {
+      openNodes = Arrays.copyOf(openNodes, openCount * 2);
+      openEstimates = Arrays.copyOf(openEstimates, openCount * 2);
+    }
+
+    // Sift up.
+    int i = openCount++;
+    while (i > 0) {
+      final int parent = (i - 1) / 2;
+      if (openEstimates[parent] <= estimate) {
+        break;
+      }
+      openNodes[i] = openNodes[parent];
+      openEstimates[i] = openEstimates[parent];
+      i = parent;
+    }
+    openNodes[i] = node;
+    openEstimates[i] = estimate;
+  }
+
+
+  private int pop() {
+    final int top = openNodes[0];
+    final int lastNode = openNodes[--openCount];
+    final int lastEstimate = openEstimates[openCount];
+
+    // Sift the last entry down from the root.
+    int i = 0;
+    while (true) {
+      int child = i * 2 + 1;
+      if (child >= openCount) {
+        break;
+      }
+      if (child + 1 < openCount && openEstimates[child + 1] < openEstimates[child]) {
+        child++;
+      }
+      if (openEstimates[child] >= lastEstimate) {
+        break;
+      }
+      openNodes[i] = openNodes[child];
+      openEstimates[i] = openEstimates[child];
+      i = child;
+    }
+    if (openCount > 0) {
+      openNodes[i] = lastNode;
+      openEstimates[i] = lastEstimate;
+    }
+    return top;
+  }
+}
@@ -1,6 +1,6 @@
 package world;
 
-import game.io.GameResources;
+import actor.Actor;
 import game.physical.Physical;
 import game.physical.PhysicalFlag;
 
@@ -8,16 +8,29 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- *
+ * A view of one square of an area. Squares hold no state of their own, and the world makes a new
+ * one each time a square is asked for, so they should be used and then let go rather than kept.
  */
 public class Square {
 
-  private final Terrain terrain;
-  private final List<Physical> locatedHere;
+  private final Area area;
+  private final AreaContents contents;
+  private final int index;
 
-  Square(String terrainTypeID) {
-    this.terrain = GameResources.getTerrainTypeByID(terrainTypeID).getRandomVariation();
-    this.locatedHere = new ArrayList<>();
+
+  Square(Area area, AreaContents contents, int index) {
+    this.area = area;
+    this.contents = contents;
+    this.index = index;
+  }
+
+
+  /**
+   * Live actors come and go without changing the area, since the world puts them back from its
+   * actor index whenever the area is regenerated. Anything else does change it.
+   */
+  private static boolean getIsModifiedBy(Physical physical) {
+    return !(physical instanceof Actor) || physical.hasFlag(PhysicalFlag.DEAD);
   }
 
 
@@ -29,23 +42,20 @@ public class Square {
       throw new IllegalArgumentException("Attempted to put null to Square.");
     }
 
-    for (int i = 0; i < locatedHere.size(); i++) {
-      Physical comparePhysical = locatedHere.get(i);
-
-      if (putting.getVisualPriority()
-          >= comparePhysical.getVisualPriority()) {
-        locatedHere.add(i,putting);
-        return;
-      }
+    if (getIsModifiedBy(putting)) {
+      area.markModified();
     }
-    locatedHere.add(putting);
+    contents.put(index, putting);
   }
 
   /**
    * Remove a physical from this square. Returns true if the physical was found and removed.
    */
   public boolean pull(Physical pulling) {
-    return locatedHere.remove(pulling);
+    if (getIsModifiedBy(pulling)) {
+      area.markModified();
+    }
+    return contents.pull(index, pulling);
   }
 
 
@@ -55,10 +65,23 @@ public class Square {
    * get the terrain for this square.
    */
   public Physical peek() {
-    if (locatedHere.isEmpty()) {
-      return terrain;
+    final Physical located = contents.peek(index);
+    if (located == null) {
+      return contents.getTerrain(index);
+    } else {
+      return located;
+    }
+  }
+
+  /**
+   * As {@code peek()}, but passing over live actors, for showing a square as it was last seen.
+   */
+  public Physical peekScenery() {
+    final Physical located = contents.peekScenery(index);
+    if (located == null) {
+      return contents.getTerrain(index);
     } else {
-      return locatedHere.get(0);
+      return located;
     }
   }
 
@@ -66,21 +89,25 @@ public class Square {
    * Returns true if there are any blocking physicals here.
    */
   public boolean isBlocked() {
-    for(Physical physical : locatedHere) {
-      if (physical.hasFlag(PhysicalFlag.BLOCKING)) {
-        return true;
-      }
-    }
-    return false;
+    return contents.isBlocked(index);
+  }
+
+
+  /**
+   * Rechecks whether this square is blocked, for when a physical here has changed its flags.
+   */
+  void updateBlocked() {
+    contents.updateBlocked(index);
   }
 
   /**
    * Returns a list containing all physicals located here, including the terrain for this square.
    */
   public List<Physical> getAll() {
-    List<Physical> list = new ArrayList<>(locatedHere);
-    list.add(terrain);
+    List<Physical> list = new ArrayList<>();
+    contents.collect(index, list);
+    list.add(contents.getTerrain(index));
     return list;
   }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package world;
+
+import game.physical.Physical;
+import thing.ThingFactory;
+import utils.Array2D;
+import utils.Dimension;
+import world.blueprint.Blueprint;
+import world.blueprint.BlueprintFactory;
+
+import java.util.SplittableRandom;
+
+/**
+ * Lays out biomes in random patches and terrain with random walks, then places props by picking
+ * squares at random until each finds enough free squares of its terrain.
+ */
+final class StandardWorldGenerator implements WorldGenerator {
+
+  private static final int STDGEN_PATCH_RADIUS_LIMIT = 4;
+  private static final double STDGEN_PATCH_PATCHINESS = 0.000; // % of patch candidates to discard.
+
+
+  @Override
+  public String getName() {
+    return "STANDARD";
+  }
+
+
+  @Override
+  public Blueprint<Biome> generateBiomes(Dimension worldSizeInAreas, SplittableRandom random) {
+    return BlueprintFactory.generateWithPatches(worldSizeInAreas, Biome.getAll(),
+        STDGEN_PATCH_RADIUS_LIMIT, STDGEN_PATCH_PATCHINESS, random);
+  }
+
+
+  @Override
+  public Blueprint<BiomeTerrain> generateTerrain(Biome biome, Dimension areaSizeInSquares,
+      SplittableRandom random) {
+    return BlueprintFactory.generateWithCrawler(areaSizeInSquares, biome.getBiomeTerrain(), random);
+  }
+
+
+  @Override
+  public Array2D<Physical> generateProps(Biome biome, Blueprint<BiomeTerrain> blueprint,
+      SplittableRandom random) {
+
+    final Dimension dimension = blueprint.getDimension();
+    final Array2D<Physical> physicals = new Array2D<>(dimension);
+
+    // For each terrain classification in the biome...
+    for (BiomeTerrain biomeTerrain : biome.getBiomeTerrain()) {
+
+      // For each prop classification in the terrain...
+      for (BiomeProp biomeProp : biomeTerrain.getBiomeProps()) {
+
+        // Retrieve the feature ID and calculate how many of the feature we should try to place.
+        final String featureID = biomeProp.getThingTemplateID();
+        int featureCount =
+            (int) (blueprint.getFeatureCount(biomeTerrain) * biomeProp.getFrequency());
+
+        // Pick random points until we've picked a matching terrain that has no physicals, then
+        // place the feature and continue the search--until we've placed all the features or we've
+        // searched for too long.
+        int searchLimit = 10000;
+        while (featureCount > 0 && searchLimit > 0) {
+          searchLimit--;
+
+          int x = random.nextInt(dimension.getWidth());
+          int y = random.nextInt(dimension.getHeight());
+
+          if (blueprint.get(x, y) == biomeTerrain && physicals.get(x, y) == null) {
+            physicals.put(ThingFactory.makeThing(featureID, random), x, y);
+            featureCount--;
+            searchLimit = 10000;
+          }
+        }
+        if (searchLimit == 0) {
+          System.out.println("Failed to find spot for " + featureID + ". Frequency too high?");
+        }
+      }
+    }
+
+    return physicals;
+  }
+}
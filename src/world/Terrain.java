@@ -4,14 +4,52 @@ import game.physical.Appearance;
 import game.physical.Physical;
 import game.physical.PhysicalFlag;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
- *
+ * Every terrain variation is created once, as terrain types are loaded, and numbered in the order
+ * it was created. Areas store those numbers rather than references, two bytes to a square.
  */
 class Terrain extends Physical {
 
+  private static final List<Terrain> BY_ID = new ArrayList<>();
+
+  private final short id;
+
+
   Terrain(String name, Appearance appearance) {
     super(name, appearance);
     addFlag(PhysicalFlag.IMMOVABLE);
+
+    synchronized (BY_ID) {
+      if (BY_ID.size() > Short.MAX_VALUE) {
+        throw new IllegalStateException("Too many terrain variations to number.");
+      }
+      this.id = (short) BY_ID.size();
+      BY_ID.add(this);
+    }
   }
 
-}
\ No newline at end of file
+
+  short getID() {
+    return id;
+  }
+
+
+  static Terrain getByID(short id) {
+    return BY_ID.get(id);
+  }
+
+
+  /**
+   * @return How many terrain variations have been numbered. Areas written with one count of
+   * variations can only be read back with the same count, or their numbers would mean other
+   * terrain.
+   */
+  static int getCount() {
+    synchronized (BY_ID) {
+      return BY_ID.size();
+    }
+  }
+}
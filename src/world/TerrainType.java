@@ -1,12 +1,12 @@
 package world;
 
-import game.Game;
 import game.physical.Appearance;
 
 import java.awt.Color;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.SplittableRandom;
 
 /**
  *
@@ -41,7 +41,7 @@ public class TerrainType {
   }
 
 
-  Terrain getRandomVariation() {
-    return variations.get(Game.RANDOM.nextInt(variations.size()));
+  Terrain getRandomVariation(SplittableRandom random) {
+    return variations.get(random.nextInt(variations.size()));
   }
 }
\ No newline at end of file
@@ -1,11 +1,30 @@
 package world;
 
-import game.Game;
+import actor.Actor;
+import actor.attribute.Attribute;
+import actor.attribute.Perception;
+import game.Direction;
+import game.physical.Physical;
+import game.physical.PhysicalFlag;
 import utils.Array2D;
 import utils.Dimension;
+import utils.RandomStreams;
+import utils.SnapshotReader;
+import utils.SnapshotWriter;
 import utils.Utils;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 /**
  *
@@ -18,12 +37,39 @@ public class World {
   private final Dimension areaSizeInSquares;
   private final Dimension globalSizeInSquares;
 
+  // Every area's map coordinate, by area index, and every square's area coordinate, by its index
+  // within an area. Both are immutable, so conversions hand these out rather than making new ones.
+  private final MapCoordinate[] mapCoordinates;
+  private final AreaCoordinate[] areaCoordinates;
+
+  private final ActorIndex actorIndex;
+  private final WorldGenerator generator;
+  private final AreaCache areaCache;
+  private final AreaGraph areaGraph;
+
+  // Each thread that updates actors gets its own pathfinder, and keeps it for reuse.
+  private final ThreadLocal<Pathfinder> pathfinders =
+      ThreadLocal.withInitial(() -> new Pathfinder(this));
+
+  // Each thread that moves actors gets its own list to gather who might sense them in.
+  private final ThreadLocal<List<Actor>> sensoryEventObservers =
+      ThreadLocal.withInitial(ArrayList::new);
+
+  // The areas, as min x, min y, max x and max y, that each thread's route searches may work out
+  // the area graph for. Unset for a thread whose searches may range anywhere.
+  private final ThreadLocal<int[]> searchBounds = new ThreadLocal<>();
+
+  // Shared flow fields, by target. Only changed between beats, so read freely during one.
+  private final Map<Actor, FlowField> flowFields = new LinkedHashMap<>();
+
   private final Informer informer = new Informer();
 
 
-  World(Array2D<Area> areas, Dimension areaSizeInSquares) {
+  World(Array2D<Area> areas, Dimension areaSizeInSquares, RandomStreams randomStreams,
+      WorldGenerator generator, int areaCacheCapacity, AreaStore areaStore) {
 
     this.areas = areas;
+    this.generator = generator;
 
     this.worldSizeInAreas = areas.getDimension();
     this.areaSizeInSquares = areaSizeInSquares;
@@ -32,12 +78,28 @@ public class World {
     int worldHeightInSquares = worldSizeInAreas.getHeight() * areaSizeInSquares.getHeight();
 
     this.globalSizeInSquares = new Dimension(worldWidthInSquares, worldHeightInSquares);
+
+    this.mapCoordinates = new MapCoordinate[worldSizeInAreas.getArea()];
+    for (int i = 0; i < mapCoordinates.length; i++) {
+      mapCoordinates[i] = new MapCoordinate(i % worldSizeInAreas.getWidth(),
+          i / worldSizeInAreas.getWidth());
+    }
+    this.areaCoordinates = new AreaCoordinate[areaSizeInSquares.getArea()];
+    for (int i = 0; i < areaCoordinates.length; i++) {
+      areaCoordinates[i] = new AreaCoordinate(i % areaSizeInSquares.getWidth(),
+          i / areaSizeInSquares.getWidth());
+    }
+
+    this.actorIndex = new ActorIndex(globalSizeInSquares);
+    this.areaCache = new AreaCache(areaCacheCapacity, areaSizeInSquares, worldSizeInAreas,
+        randomStreams, generator, actorIndex, areaStore);
+    this.areaGraph = new AreaGraph(this);
   }
 
 
-  public Coordinate makeRandomCoordinate() {
-    return new Coordinate(Game.RANDOM.nextInt(globalSizeInSquares.getWidth()),
-        Game.RANDOM.nextInt(globalSizeInSquares.getHeight()));
+  public Coordinate makeRandomCoordinate(SplittableRandom random) {
+    return new Coordinate(random.nextInt(globalSizeInSquares.getWidth()),
+        random.nextInt(globalSizeInSquares.getHeight()));
   }
 
 
@@ -60,22 +122,290 @@ public class World {
 
 
   public Square getSquare(Coordinate coordinate) {
-    try {
-      final Area area = getArea(coordinate);
-      if (area == null) {
-        return null;
+    return coordinate == null ? null : getSquare(coordinate.globalX, coordinate.globalY);
+  }
+
+
+  /**
+   * As {@code getSquare(Coordinate)}, but without a coordinate to ask about.
+   *
+   * @return The square, or null if there is no such square.
+   */
+  public Square getSquare(int globalX, int globalY) {
+    if (!validateCoordinate(globalX, globalY)) {
+      return null;
+    }
+
+    final int areaWidth = areaSizeInSquares.getWidth();
+    final int areaHeight = areaSizeInSquares.getHeight();
+    final Area area = areas.get(globalX / areaWidth, globalY / areaHeight);
+    final AreaContents contents = areaCache.getContents(area);
+    return new Square(area, contents, contents.getIndex(globalX % areaWidth, globalY % areaHeight));
+  }
+
+
+  /**
+   * As {@code getSquare(globalX, globalY).peek()}, but without a square to ask. Drawing the map
+   * asks this of every square on screen, every frame.
+   *
+   * @return What shows on the square, or null if there is no such square.
+   */
+  public Physical peek(int globalX, int globalY) {
+    if (!validateCoordinate(globalX, globalY)) {
+      return null;
+    }
+
+    final AreaContents contents = getContents(globalX, globalY);
+    final int index = getIndexWithinArea(contents, globalX, globalY);
+    final Physical located = contents.peek(index);
+    return located != null ? located : contents.getTerrain(index);
+  }
+
+
+  /**
+   * As {@code getSquare(globalX, globalY).peekScenery()}, but without a square to ask.
+   *
+   * @return What shows on the square, other than live actors, or null if there is no such square.
+   */
+  public Physical peekScenery(int globalX, int globalY) {
+    if (!validateCoordinate(globalX, globalY)) {
+      return null;
+    }
+
+    final AreaContents contents = getContents(globalX, globalY);
+    final int index = getIndexWithinArea(contents, globalX, globalY);
+    final Physical located = contents.peekScenery(index);
+    return located != null ? located : contents.getTerrain(index);
+  }
+
+
+  /**
+   * @return {@code true} if the given physical is on the square at the given coordinate, without
+   * gathering up everything there to look through.
+   */
+  public boolean isAt(Physical physical, int globalX, int globalY) {
+    if (!validateCoordinate(globalX, globalY)) {
+      return false;
+    }
+
+    final AreaContents contents = getContents(globalX, globalY);
+    return contents.contains(getIndexWithinArea(contents, globalX, globalY), physical);
+  }
+
+
+  /**
+   * Only valid for coordinates within the world.
+   */
+  private AreaContents getContents(int globalX, int globalY) {
+    return areaCache.getContents(areas.get(globalX / areaSizeInSquares.getWidth(),
+        globalY / areaSizeInSquares.getHeight()));
+  }
+
+
+  private int getIndexWithinArea(AreaContents contents, int globalX, int globalY) {
+    return contents.getIndex(globalX % areaSizeInSquares.getWidth(),
+        globalY % areaSizeInSquares.getHeight());
+  }
+
+
+  /**
+   * @return {@code true} if the square at the given coordinate is blocked, or if there is no such
+   * square.
+   */
+  public boolean isBlocked(Coordinate coordinate) {
+    return coordinate == null || isBlocked(coordinate.globalX, coordinate.globalY);
+  }
+
+
+  /**
+   * As {@code isBlocked(Coordinate)}, but without building a coordinate or square to ask about.
+   * This is the query the pathfinder makes for every square it looks at.
+   */
+  public boolean isBlocked(int globalX, int globalY) {
+    if (!globalSizeInSquares.getCoordinateIsWithinBounds(globalX, globalY)) {
+      return true;
+    }
+
+    final AreaContents contents = getContents(globalX, globalY);
+    return contents.isBlocked(getIndexWithinArea(contents, globalX, globalY));
+  }
+
+
+  /**
+   * As {@code isBlocked(int, int)}, but ignoring live actors.
+   */
+  boolean isBlockedByScenery(int globalX, int globalY) {
+    if (!globalSizeInSquares.getCoordinateIsWithinBounds(globalX, globalY)) {
+      return true;
+    }
+
+    final AreaContents contents = getContents(globalX, globalY);
+    return contents.isBlockedByScenery(getIndexWithinArea(contents, globalX, globalY));
+  }
+
+
+  /**
+   * Searches for a route between the given coordinates using this thread's pathfinder, filling the
+   * given path with it if one is found. If the destination is out of the pathfinder's reach, or the
+   * way there leads out of it, the route is planned across the area graph instead, and the path
+   * only filled in as far as the last point on that route within reach. Such a path is marked as
+   * heading for the destination, and must be searched for again once it runs out.
+   * <p>
+   * While this thread's searches are confined, a route across the area graph is only planned if
+   * the start and destination both lie within the bounds, and never leaves them.
+   *
+   * @return {@code true} if a route was found.
+   */
+  public boolean findPath(Coordinate from, Coordinate to, Path path) {
+    final Pathfinder pathfinder = pathfinders.get();
+
+    if (from.getDistance(to) <= Pathfinder.MAX_REACH && pathfinder.findPath(from, to, path)) {
+      return true;
+    }
+    if (!validateCoordinate(from) || !validateCoordinate(to)) {
+      return false;
+    }
+
+    final Coordinate waypoint = areaGraph.findWaypoint(from, to, Pathfinder.MAX_REACH,
+        searchBounds.get());
+
+    if (waypoint == null || waypoint.equalTo(to) || !pathfinder.findPath(from, waypoint, path)) {
+      return false;
+    }
+    path.headFor(to);
+    return true;
+  }
+
+
+  /**
+   * Confines route searches made on this thread to the given areas, until
+   * {@code unconfineSearches()}. Working out the area graph for an area reads the areas beside it
+   * too, so a thread may only confine itself to areas no other thread changes, and whose neighbors
+   * no other thread changes, while it searches.
+   */
+  public void confineSearches(int minAreaX, int minAreaY, int maxAreaX, int maxAreaY) {
+    searchBounds.set(new int[] {minAreaX, minAreaY, maxAreaX, maxAreaY});
+  }
+
+
+  /**
+   * Lets route searches made on this thread range anywhere again.
+   */
+  public void unconfineSearches() {
+    searchBounds.remove();
+  }
+
+
+  /**
+   * @return The sum of the scenery versions of every area overlapping the given inclusive bounds.
+   * Versions only ever go up, so the sum changes whenever any one of them does, and anything worked
+   * out from the scenery within the bounds can compare sums to tell when it is out of date.
+   */
+  long getSceneryVersion(int minX, int minY, int maxX, int maxY) {
+    final int areaWidth = areaSizeInSquares.getWidth();
+    final int areaHeight = areaSizeInSquares.getHeight();
+
+    long version = 0;
+    for (int areaY = Math.max(0, minY) / areaHeight; areaY <= maxY / areaHeight; areaY++) {
+      for (int areaX = Math.max(0, minX) / areaWidth; areaX <= maxX / areaWidth; areaX++) {
+        final Area area = getArea(areaX, areaY);
+        if (area != null) {
+          version += area.getSceneryVersion();
+        }
       }
-      return area.getSquare(convertToAreaCoordinate(coordinate));
     }
-    catch (IndexOutOfBoundsException iob) {
-      return null; // Target is not valid.
+    return version;
+  }
+
+
+  /**
+   * Brings the given field of view up to date for a viewer at the given coordinate, who can see out
+   * to the given range.
+   */
+  public void refreshFieldOfView(FieldOfView fieldOfView, Coordinate origin, int radius) {
+    fieldOfView.refresh(this, origin, radius);
+  }
+
+
+  /**
+   * Called when an actor dies where it stands. Drops it from the actor index, and since its body
+   * stays behind and no longer blocks, marks its area as modified and rechecks its square.
+   */
+  public void onActorDied(Actor actor) {
+    actorIndex.remove(actor);
+    getArea(actor.getCoordinate()).markModified();
+    getSquare(actor.getCoordinate()).updateBlocked();
+  }
+
+
+  /**
+   * Lets every live actor within its own sense range of the given actor know that it has just done
+   * something noticeable, such as moving or attacking. Only the cells of the actor index within the
+   * furthest any actor can sense are looked at, so actors further away cost nothing.
+   */
+  public void broadcastSensoryEvent(Actor source) {
+    final Coordinate sourceAt = source.getCoordinate();
+    final List<Actor> observers = sensoryEventObservers.get();
+    actorIndex.getActorsWithinRange(sourceAt, Perception.MAX_SENSE_RANGE, observers);
+
+    for (int i = 0; i < observers.size(); i++) {
+      final Actor observer = observers.get(i);
+      if (observer == source || observer.getActorObserver() == null) {
+        continue;
+      }
+
+      final int senseRange =
+          Perception.getSenseRange(observer.getAttributeRank(Attribute.PERCEPTION));
+      if (observer.getCoordinate().getDistance(sourceAt) <= senseRange) {
+        observer.getActorObserver().onSensoryEvent(source);
+      }
+    }
+  }
+
+
+  /**
+   * Starts keeping a flow field for the given target, which any number of actors can then use to
+   * chase or flee it. Must be called between beats.
+   */
+  public FlowField trackFlowField(Actor target) {
+    return flowFields.computeIfAbsent(target, t -> new FlowField(this, t));
+  }
+
+
+  /**
+   * @return The flow field kept for the given target, or null if there isn't one.
+   */
+  public FlowField getFlowField(Actor target) {
+    return flowFields.get(target);
+  }
+
+
+  /**
+   * Brings every flow field up to date with its target and the scenery around it, and stops keeping
+   * those whose target has died. Called once at the start of each beat.
+   */
+  public void refreshFlowFields() {
+    final Iterator<FlowField> iterator = flowFields.values().iterator();
+    while (iterator.hasNext()) {
+      final FlowField flowField = iterator.next();
+
+      if (flowField.getTarget().hasFlag(PhysicalFlag.DEAD)) {
+        iterator.remove();
+      }
+      else {
+        flowField.refresh();
+      }
     }
   }
 
 
   public boolean validateCoordinate(Coordinate coordinate) {
-    return coordinate != null && globalSizeInSquares
-        .getCoordinateIsWithinBounds(coordinate.globalX, coordinate.globalY);
+    return coordinate != null && validateCoordinate(coordinate.globalX, coordinate.globalY);
+  }
+
+
+  public boolean validateCoordinate(int globalX, int globalY) {
+    return globalSizeInSquares.getCoordinateIsWithinBounds(globalX, globalY);
   }
 
 
@@ -95,25 +425,185 @@ public class World {
   }
 
 
+  public Dimension getGlobalSizeInSquares() {
+    return globalSizeInSquares;
+  }
+
+
+  /**
+   * @return The coordinate of the area holding the given coordinate. Coordinates outside the world
+   * give a map coordinate outside it as well.
+   */
   public MapCoordinate convertToMapCoordinate(Coordinate coordinate) {
-    return new MapCoordinate(coordinate.globalX / areaSizeInSquares.getWidth(),
-        coordinate.globalY / areaSizeInSquares.getHeight());
+    final int worldAreasX = coordinate.globalX / areaSizeInSquares.getWidth();
+    final int worldAreasY = coordinate.globalY / areaSizeInSquares.getHeight();
+
+    if (validateCoordinate(coordinate)) {
+      return mapCoordinates[worldAreasY * worldSizeInAreas.getWidth() + worldAreasX];
+    }
+    return new MapCoordinate(worldAreasX, worldAreasY);
   }
 
 
+  /**
+   * @return The given coordinate's position within its area.
+   */
   public AreaCoordinate convertToAreaCoordinate(Coordinate coordinate) {
-    return new AreaCoordinate(coordinate.globalX % areaSizeInSquares.getWidth(),
-        coordinate.globalY % areaSizeInSquares.getHeight());
+    final int areaX = coordinate.globalX % areaSizeInSquares.getWidth();
+    final int areaY = coordinate.globalY % areaSizeInSquares.getHeight();
+
+    if (areaX >= 0 && areaY >= 0) {
+      return areaCoordinates[areaY * areaSizeInSquares.getWidth() + areaX];
+    }
+    return new AreaCoordinate(areaX, areaY);
   }
 
 
   public Area getArea(Coordinate coordinate) {
-    if (!validateCoordinate(coordinate)) {
+    return coordinate == null ? null : getAreaContaining(coordinate.globalX, coordinate.globalY);
+  }
+
+
+  /**
+   * As {@code getArea(Coordinate)}, but without a coordinate to ask about.
+   */
+  public Area getAreaContaining(int globalX, int globalY) {
+    if (!validateCoordinate(globalX, globalY)) {
       return null;
     }
+    return areas.get(globalX / areaSizeInSquares.getWidth(),
+        globalY / areaSizeInSquares.getHeight());
+  }
+
+
+  /**
+   * Brings every one of the given areas into memory, generating those that need it in parallel on
+   * the given pool. Null entries are ignored.
+   */
+  public void loadAreas(Collection<Area> areas, ForkJoinPool pool) {
+    areaCache.load(areas, pool);
+  }
+
+
+  /**
+   * Starts generating any of the given areas that are not in memory in the background, on the given
+   * executor, so that they are ready by the time they are loaded or read. Abandons any areas
+   * prefetched before that are not among them. Null entries are ignored.
+   */
+  public void prefetchAreas(Collection<Area> areas, Executor executor) {
+    areaCache.prefetch(areas, executor);
+  }
+
+
+  /**
+   * Lets the world drop the contents of areas other than those given, so that only a bounded number
+   * stay in memory. Must not be called while anything could be reading squares outside the given
+   * areas from another thread.
+   */
+  public void trimAreas(Set<Area> inUse) {
+    areaCache.trim(inUse);
+  }
+
+
+  /**
+   * Releases what the world keeps outside the heap, deleting the file modified areas are stored in,
+   * if there is one. Modified areas that were dropped from memory are lost with it, so the world
+   * must not be used afterwards.
+   */
+  public void close() throws IOException {
+    areaCache.close();
+  }
+
+
+  /**
+   * @return How many areas currently have their contents in memory.
+   */
+  public int getLoadedAreaCount() {
+    return areaCache.getResidentCount();
+  }
+
+
+  /**
+   * Adds the bodies of dead actors lying anywhere in the world to {@code results}. Any area holding
+   * one has been modified, so only those are looked at, restoring any that were stored.
+   */
+  public void collectCorpses(List<Actor> results) {
+    for (Area area : getModifiedAreas()) {
+      areaCache.getContents(area).collectCorpses(results);
+    }
+  }
+
+
+  /**
+   * @return Every area whose contents have changed since it was generated, in row order, whether it
+   * is in memory or stored. Only these need to be saved, since the rest can be generated again. A
+   * large world's rows are scanned in parallel.
+   */
+  private List<Area> getModifiedAreas() {
+    return areas.parallelStream().filter(Area::getIsModified).collect(Collectors.toList());
+  }
+
 
-    final MapCoordinate mapCoordinate = convertToMapCoordinate(coordinate);
-    return getArea(mapCoordinate);
+  /**
+   * Writes the world's layout and the name of its generator, then the contents of every area that
+   * has changed since it was generated, each compressed on its own. Areas that have not changed are
+   * left out, since they are generated again from the seed as they are needed. Everything lying in
+   * the changed areas other than a thing must already have been written.
+   */
+  public void writeTo(SnapshotWriter out) throws IOException {
+    out.writeInt(areaSizeInSquares.getWidth());
+    out.writeInt(areaSizeInSquares.getHeight());
+    out.writeInt(worldSizeInAreas.getWidth());
+    out.writeInt(worldSizeInAreas.getHeight());
+    out.writeString(generator.getName());
+
+    for (int y = 0; y < worldSizeInAreas.getHeight(); y++) {
+      for (int x = 0; x < worldSizeInAreas.getWidth(); x++) {
+        out.writeByte(areas.get(x, y).getBiome().ordinal());
+      }
+    }
+
+    out.writeInt(Terrain.getCount());
+
+    final List<Area> modifiedAreas = getModifiedAreas();
+    out.writeInt(modifiedAreas.size());
+
+    for (Area area : modifiedAreas) {
+      out.writeInt(area.getIndex());
+      out.beginCompressedSection();
+      areaCache.getContents(area).writeTo(out);
+      out.endCompressedSection();
+    }
+  }
+
+
+  /**
+   * Reads back the contents of the areas written by {@code writeTo()}, once the world itself has
+   * been made from the layout written before them.
+   */
+  void readAreasFrom(SnapshotReader in) throws IOException {
+    if (in.readInt() != Terrain.getCount()) {
+      throw new IOException("Snapshot was written with different terrain types.");
+    }
+
+    final int areaCount = in.readInt();
+    for (int i = 0; i < areaCount; i++) {
+      final int index = in.readInt();
+      if (index < 0 || index >= worldSizeInAreas.getArea()) {
+        throw new IOException("Area index out of range: " + index);
+      }
+
+      final Area area = areas.get(index % worldSizeInAreas.getWidth(),
+          index / worldSizeInAreas.getWidth());
+      final AreaContents contents = areaCache.makeContents();
+
+      in.beginCompressedSection();
+      contents.readFrom(in);
+      in.endCompressedSection();
+
+      areaCache.restore(area, contents);
+      area.restoreModified();
+    }
   }
 
 
@@ -122,6 +612,11 @@ public class World {
   }
 
 
+  public ActorIndex getActorIndex() {
+    return actorIndex;
+  }
+
+
   public Area getArea(MapCoordinate mapCoordinate) {
     if (!validateCoordinate(mapCoordinate)) {
       return null;
@@ -130,6 +625,14 @@ public class World {
   }
 
 
+  public Area getArea(int worldAreasX, int worldAreasY) {
+    if (!worldSizeInAreas.getCoordinateIsWithinBounds(worldAreasX, worldAreasY)) {
+      return null;
+    }
+    return areas.get(worldAreasX, worldAreasY);
+  }
+
+
   public class Informer {
 
     public MapCoordinate convertToMapCoordinate(Coordinate coordinate) {
@@ -140,5 +643,51 @@ public class World {
     public Area getArea(Coordinate coordinate) {
       return World.this.getArea(coordinate);
     }
+
+
+    public boolean validateCoordinate(Coordinate coordinate) {
+      return World.this.validateCoordinate(coordinate);
+    }
+
+
+    public boolean validateCoordinate(int globalX, int globalY) {
+      return World.this.validateCoordinate(globalX, globalY);
+    }
+
+
+    public boolean isBlocked(Coordinate coordinate) {
+      return World.this.isBlocked(coordinate);
+    }
+
+
+    public boolean isBlocked(int globalX, int globalY) {
+      return World.this.isBlocked(globalX, globalY);
+    }
+
+
+    public boolean findPath(Coordinate from, Coordinate to, Path path) {
+      return World.this.findPath(from, to, path);
+    }
+
+
+    public FlowField getFlowField(Actor target) {
+      return World.this.getFlowField(target);
+    }
+
+
+    public void refreshFieldOfView(FieldOfView fieldOfView, Coordinate origin, int radius) {
+      World.this.refreshFieldOfView(fieldOfView, origin, radius);
+    }
+
+
+    public void getActorsWithinRange(Coordinate center, int radius, List<Actor> results) {
+      actorIndex.getActorsWithinRange(center, radius, results);
+    }
+
+
+    public void getActorsInCone(Coordinate center, Direction facing, int radius,
+        List<Actor> results) {
+      actorIndex.getActorsInCone(center, facing, radius, results);
+    }
   }
 }
\ No newline at end of file
@@ -1,30 +1,205 @@
 package world;
 
+import actor.Actor;
 import utils.Array2D;
 import utils.Dimension;
+import utils.RandomStreams;
+import utils.SnapshotReader;
 import world.blueprint.Blueprint;
-import world.blueprint.BlueprintFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  *
  */
 public class WorldFactory {
 
-  private static final int STDGEN_PATCH_RADIUS_LIMIT = 4;
-  private static final double STDGEN_PATCH_PATCHINESS = 0.000; // % of patch candidates to discard.
+  private static final int AREA_CACHE_CAPACITY = 1024; // Areas kept in memory at once.
+
+  /**
+   * Lays out biomes in patches and terrain with random walks, searching for room for each prop.
+   */
+  public static final WorldGenerator STANDARD_GENERATOR = new StandardWorldGenerator();
+
+  /**
+   * Lays out biomes and terrain from gradient noise and spreads props out evenly, taking much the
+   * same time for every area.
+   */
+  public static final WorldGenerator NOISE_GENERATOR = new NoiseWorldGenerator();
+
+  // Every generator a saved world may name.
+  private static final List<WorldGenerator> GENERATORS =
+      Arrays.asList(STANDARD_GENERATOR, NOISE_GENERATOR);
+
+
+  /**
+   * Generates a world from the given streams, loading areas in parallel on the common pool.
+   */
+  public static World standardGeneration(Dimension areaSizeInSquares, Dimension worldSizeInAreas,
+      RandomStreams randomStreams) {
+    return generate(areaSizeInSquares, worldSizeInAreas, randomStreams, STANDARD_GENERATOR,
+        ForkJoinPool.commonPool());
+  }
 
 
-  public static World standardGeneration(Dimension areaSizeInSquares, Dimension worldSizeInAreas) {
+  /**
+   * Generates a world from the given streams with the standard generator.
+   */
+  public static World standardGeneration(Dimension areaSizeInSquares, Dimension worldSizeInAreas,
+      RandomStreams randomStreams, ForkJoinPool pool) {
+    return generate(areaSizeInSquares, worldSizeInAreas, randomStreams, STANDARD_GENERATOR, pool);
+  }
+
+
+  /**
+   * Generates a world from the given streams with the given generator, loading areas in parallel on
+   * the common pool.
+   */
+  public static World generate(Dimension areaSizeInSquares, Dimension worldSizeInAreas,
+      RandomStreams randomStreams, WorldGenerator generator) {
+    return generate(areaSizeInSquares, worldSizeInAreas, randomStreams, generator,
+        ForkJoinPool.commonPool());
+  }
+
+
+  /**
+   * Generates a world from the given streams with the given generator. Only the biome map is
+   * generated up front, drawing from the world stream. Each area's contents draw from its own area
+   * stream, indexed by its position in row order, and are generated whenever they are first needed.
+   * So the same seed always generates the same world, whenever and on whichever thread each area
+   * happens to be generated.
+   * <p>
+   * If the whole world fits in the area cache, every area is loaded straight away, in parallel on
+   * the given pool. Larger worlds load their areas as play reaches them.
+   */
+  public static World generate(Dimension areaSizeInSquares, Dimension worldSizeInAreas,
+      RandomStreams randomStreams, WorldGenerator generator, ForkJoinPool pool) {
 
     // Get a Blueprint
-    Blueprint<Biome> blueprint = BlueprintFactory
-        .generateWithPatches(worldSizeInAreas, Biome.getAll(), STDGEN_PATCH_RADIUS_LIMIT,
-            STDGEN_PATCH_PATCHINESS);
+    final Blueprint<Biome> blueprint = generator.generateBiomes(worldSizeInAreas,
+        randomStreams.getStream(RandomStreams.Subsystem.WORLD));
+
+    // Produce areas, without their contents, from Blueprint.
+    final World world =
+        makeWorld(blueprint.build(), areaSizeInSquares, randomStreams, generator);
+    loadAllAreasIfTheyFit(world, pool);
+    return world;
+  }
+
+
+  /**
+   * Reads back a world written by {@code World.writeTo()}. Areas that were written are restored as
+   * they were, and the rest are generated from the given streams, which must be the streams the
+   * world was first generated from, by the generator named in the snapshot. The given live actors,
+   * already read back, are indexed and put into their areas as those come into memory.
+   */
+  public static World readWorld(SnapshotReader in, RandomStreams randomStreams,
+      List<Actor> liveActors) throws IOException {
+
+    final Dimension areaSizeInSquares = new Dimension(in.readInt(), in.readInt());
+    final Dimension worldSizeInAreas = new Dimension(in.readInt(), in.readInt());
+    final String generatorName = in.readString();
+    final WorldGenerator generator;
+    try {
+      generator = getGenerator(generatorName);
+    }
+    catch (IllegalArgumentException e) {
+      throw new IOException("Unknown world generator: " + generatorName, e);
+    }
+
+    final Biome[] allBiomes = Biome.values();
+    final Array2D<Biome> biomes = new Array2D<>(worldSizeInAreas);
+
+    for (int y = 0; y < worldSizeInAreas.getHeight(); y++) {
+      for (int x = 0; x < worldSizeInAreas.getWidth(); x++) {
+        final int ordinal = in.readByte();
+        if (ordinal < 0 || ordinal >= allBiomes.length) {
+          throw new IOException("Unknown biome: " + ordinal);
+        }
+        biomes.put(allBiomes[ordinal], x, y);
+      }
+    }
+
+    final World world = makeWorld(biomes, areaSizeInSquares, randomStreams, generator);
+
+    for (Actor actor : liveActors) {
+      if (!world.validateCoordinate(actor.getCoordinate())) {
+        throw new IOException("Actor out of bounds: " + actor.getName());
+      }
+      world.getActorIndex().add(actor);
+    }
+
+    world.readAreasFrom(in);
+    loadAllAreasIfTheyFit(world, ForkJoinPool.commonPool());
+    return world;
+  }
+
+
+  /**
+   * Finds a generator by the name it is saved under, ignoring case, so that a name given on the
+   * command line may be written either way.
+   *
+   * @throws IllegalArgumentException If no generator goes by the given name.
+   */
+  public static WorldGenerator getGenerator(String name) {
+    for (WorldGenerator generator : GENERATORS) {
+      if (generator.getName().equalsIgnoreCase(name)) {
+        return generator;
+      }
+    }
+    throw new IllegalArgumentException("Unknown world generator: " + name);
+  }
+
+
+  /**
+   * If the whole world fits in the area cache, loads every area straight away, in parallel on the
+   * given pool. Larger worlds load their areas as play reaches them.
+   */
+  private static void loadAllAreasIfTheyFit(World world, ForkJoinPool pool) {
+    final int areaCount = world.getWorldSizeInAreas().getArea();
+    if (areaCount <= AREA_CACHE_CAPACITY) {
+      world.loadAreas(world.getAllAreas(), pool);
+    }
+  }
+
+
+  /**
+   * Makes a world of areas of the given biomes, without their contents.
+   */
+  private static World makeWorld(Array2D<Biome> biomes, Dimension areaSizeInSquares,
+      RandomStreams randomStreams, WorldGenerator generator) {
+
+    final Dimension worldSizeInAreas = biomes.getDimension();
+    final Array2D<Area> areas = new Array2D<>(worldSizeInAreas);
+    final int width = worldSizeInAreas.getWidth();
+
+    biomes.forEach((x, y, biome) -> areas.put(new Area(biome, y * width + x), x, y));
+
+    return new World(areas.unmodifiableView(worldSizeInAreas, 0, 0), areaSizeInSquares,
+        randomStreams, generator, AREA_CACHE_CAPACITY,
+        openAreaStore(areaSizeInSquares, worldSizeInAreas));
+  }
+
 
-    // Produce areas from Blueprint.
-    Array2D<Area> areas =
-        blueprint.build().map(biome -> AreaFactory.standardGeneration(biome, areaSizeInSquares));
+  /**
+   * Opens a store for modified areas, if the world is too large for every area to be kept in
+   * memory.
+   *
+   * @throws IllegalStateException If the store's file could not be opened.
+   */
+  private static AreaStore openAreaStore(Dimension areaSizeInSquares, Dimension worldSizeInAreas) {
+    if (worldSizeInAreas.getArea() <= AREA_CACHE_CAPACITY) {
+      return null;
+    }
 
-    return new World(areas.unmodifiableView(worldSizeInAreas, 0, 0), areaSizeInSquares);
+    try {
+      return AreaStore.openTemporary(areaSizeInSquares, worldSizeInAreas.getArea());
+    }
+    catch (IOException e) {
+      throw new IllegalStateException("Could not open an area store", e);
+    }
   }
-}
\ No newline at end of file
+}
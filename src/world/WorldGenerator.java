@@ -0,0 +1,39 @@
+package world;
+
+import game.physical.Physical;
+import utils.Array2D;
+import utils.Dimension;
+import world.blueprint.Blueprint;
+
+import java.util.SplittableRandom;
+
+/**
+ * Lays out a world: the biome of each area up front, then, as each area is first needed, its
+ * terrain and the props standing on it. Every random choice must be drawn from the stream given, so
+ * that the same stream always lays out the same thing. Areas are laid out on many threads at once,
+ * so a generator must not keep any state between calls.
+ * <p>
+ * A world is saved along with the name of the generator that laid it out, since its unchanged areas
+ * are laid out again when it is read back. {@code WorldFactory} finds the generator by that name.
+ */
+public interface WorldGenerator {
+
+  /**
+   * @return The name this generator is saved and found by, which no other generator may share.
+   */
+  String getName();
+
+
+  Blueprint<Biome> generateBiomes(Dimension worldSizeInAreas, SplittableRandom random);
+
+
+  Blueprint<BiomeTerrain> generateTerrain(Biome biome, Dimension areaSizeInSquares,
+      SplittableRandom random);
+
+
+  /**
+   * @return The prop to put on each square of the given terrain, or null for none.
+   */
+  Array2D<Physical> generateProps(Biome biome, Blueprint<BiomeTerrain> terrain,
+      SplittableRandom random);
+}
@@ -2,8 +2,8 @@ package world.blueprint;
 
 import utils.Array2D;
 import utils.Dimension;
+import utils.ShortGrid;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -14,22 +14,32 @@ import java.util.Set;
  * features in the set. Does not actually distribute the features, only sets itself up as a base and
  * exposes methods that enable easily distributing these features (so that the method of
  * distribution can vary).
+ * <p>
+ * Each feature is numbered by its place in the feature set, and the blueprint works in those
+ * numbers throughout: the layout is a grid of them, and each feature's count and goal are kept in
+ * arrays by number. How many goals are still unmet is kept up to date as features are put, so
+ * placing a feature and checking the goals never hash, box or allocate.
  */
 public class Blueprint<E extends BlueprintFeature> {
 
   private final Set<E> featureSet;
-  private final E mostCommonFeature;
+  private final E[] features;
+  private final Map<E, Integer> featureNumbers = new HashMap<>();
+  private final int mostCommonFeatureNumber;
 
-  private final Array2D<E> featureLayout;
+  private final ShortGrid featureLayout;
 
-  private final Map<E, Integer> featureCountGoals;
-  private final Map<E, Integer> featureCounts;
+  private final int[] featureCountGoals;
+  private final int[] featureCounts;
+  private int unsatisfiedGoalCount;
 
 
   /**
    * Construct a blueprint of the given size. Use the given feature set to determine the count goals
    * for each feature, and start the blueprint full of the most common of these features.
    *
+   * @throws IllegalArgumentException If the feature set is empty, since there would be no feature
+   *                                  to start the blueprint full of.
    * @param strictness A fractional value from 0.0 to 1.0. Each count goal is multiplied by this
    *                   value, so that, as the value approaches zero, we get lower goals and thus
    *                   more "flexible" outcomes--in other words, because all of our goals are lower,
@@ -37,51 +47,67 @@ public class Blueprint<E extends BlueprintFeature> {
    *                   be anything. How this flexibility manifests depends on what method is being
    *                   used to develop the blueprint.
    */
+  @SuppressWarnings("unchecked")
   Blueprint(Dimension dimension, Set<E> featureSet, double strictness) {
+    if (featureSet.isEmpty()) {
+      throw new IllegalArgumentException("A blueprint needs at least one feature");
+    }
+    if (featureSet.size() > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many features for a blueprint: " + featureSet.size());
+    }
 
     // Determine number of squares in the area.
     final int squares = dimension.getArea();
 
-    // Get total of all feature weights (for divisor) and the most common feature.
+    // Number the features, and get total of all feature weights (for divisor) and the most common
+    // feature.
+    features = (E[]) featureSet.toArray(new BlueprintFeature[0]);
     int totalWeight = 0;
-    E mostCommonFeature = null;
+    int mostCommonFeatureNumber = 0;
 
-    for (E feature : featureSet) {
-      totalWeight += feature.getWeight();
-      if (mostCommonFeature == null || feature.getWeight() > mostCommonFeature.getWeight()) {
-        mostCommonFeature = feature;
+    for (int number = 0; number < features.length; number++) {
+      featureNumbers.put(features[number], number);
+      totalWeight += features[number].getWeight();
+      if (features[number].getWeight() > features[mostCommonFeatureNumber].getWeight()) {
+        mostCommonFeatureNumber = number;
       }
     }
 
     // Store the most common feature.
-    this.mostCommonFeature = mostCommonFeature;
+    this.mostCommonFeatureNumber = mostCommonFeatureNumber;
 
     // Determine what the final count of each feature should be, adjusted for strictness.
-    final Map<E, Integer> featureCountGoals = new HashMap<>();
-    featureCounts = new HashMap<>();
-    for (E feature : featureSet) {
-      final int goal = (int) (squares * feature.getWeight() / (double) totalWeight * strictness);
-      featureCountGoals.put(feature, goal);
-      featureCounts.put(feature, 0);
+    featureCountGoals = new int[features.length];
+    featureCounts = new int[features.length];
+    for (int number = 0; number < features.length; number++) {
+      featureCountGoals[number] =
+          (int) (squares * features[number].getWeight() / (double) totalWeight * strictness);
     }
 
     // The map will be filled with the most common feature, so add to that feature's count.
-    featureCounts.put(mostCommonFeature, squares);
+    featureCounts[mostCommonFeatureNumber] = squares;
+    for (int number = 0; number < features.length; number++) {
+      if (!goalIsSatisfied(number)) {
+        unsatisfiedGoalCount++;
+      }
+    }
 
     // Make a base map filled with the heaviest feature index.
     this.featureSet = featureSet;
-    this.featureLayout = new Array2D<>(dimension, mostCommonFeature);
-    this.featureCountGoals = Collections.unmodifiableMap(featureCountGoals);
+    this.featureLayout = new ShortGrid(dimension).fill((short) mostCommonFeatureNumber);
   }
 
 
   /**
-   * Ensures this blueprint only works with features contained in its featureSet.
+   * @return The number of the given feature within this blueprint.
+   * @throws IllegalArgumentException If the feature is not in this blueprint's featureSet.
    */
-  private void containsCheck(E feature) {
-    if (!featureSet.contains(feature)) {
+  int getFeatureNumber(E feature) {
+    final Integer number = featureNumbers.get(feature);
+    if (number == null) {
       throw new IllegalArgumentException("Feature not in blueprint's set: " + feature.toString());
     }
+    return number;
   }
 
 
@@ -90,18 +116,35 @@ public class Blueprint<E extends BlueprintFeature> {
    * decrementing the count of the feature that was replaced.
    */
   void putFeature(E placedFeature, int adjX, int adjY) {
-    containsCheck(placedFeature);
+    putFeature(getFeatureNumber(placedFeature), adjX, adjY);
+  }
+
+
+  /**
+   * As {@code putFeature(E, int, int)}, but given the number of the feature to put.
+   */
+  void putFeature(int placedFeature, int adjX, int adjY) {
 
     // Place the feature, storing the feature that it replaced.
-    final E replacedFeature = featureLayout.put(placedFeature, adjX, adjY);
+    final int replacedFeature = featureLayout.put((short) placedFeature, adjX, adjY);
+    if (replacedFeature == placedFeature) {
+      return;
+    }
+
+    // Increment the placed feature's count, which may meet its goal.
+    if (++featureCounts[placedFeature] == featureCountGoals[placedFeature]) {
+      unsatisfiedGoalCount--;
+    }
+
+    // Decrement the replaced feature's count, which may unmeet its goal.
+    if (featureCounts[replacedFeature]-- == featureCountGoals[replacedFeature]) {
+      unsatisfiedGoalCount++;
+    }
+  }
 
-    // Increment the placed feature's count.
-    final int advancedGoal = featureCounts.get(placedFeature) + 1;
-    featureCounts.put(placedFeature, advancedGoal);
 
-    // Decrement the replaced feature's count.
-    final int reversedGoal = featureCounts.get(replacedFeature) - 1;
-    featureCounts.put(replacedFeature, reversedGoal);
+  public Dimension getDimension() {
+    return featureLayout.getDimension();
   }
 
 
@@ -110,29 +153,44 @@ public class Blueprint<E extends BlueprintFeature> {
   }
 
 
-  E getMostCommonFeature() {
-    return mostCommonFeature;
+  /**
+   * @return How many features there are, which is one more than the highest feature number.
+   */
+  int getFeatureCountTotal() {
+    return features.length;
   }
 
 
-  Map<E, Integer> getFeatureCountGoals() {
-    return featureCountGoals;
+  E getFeature(int number) {
+    return features[number];
   }
 
 
-  Map<E, Integer> getFeatureCounts() {
-    return featureCounts;
+  int getMostCommonFeatureNumber() {
+    return mostCommonFeatureNumber;
   }
 
 
-  boolean goalIsSatisfied(E feature) {
-    containsCheck(feature);
-    return getFeatureCounts().get(feature) >= getFeatureCountGoals().get(feature);
+  int getFeatureCountGoal(int feature) {
+    return featureCountGoals[feature];
+  }
+
+
+  boolean goalIsSatisfied(int feature) {
+    return featureCounts[feature] >= featureCountGoals[feature];
   }
 
 
   boolean allGoalsSatisfied() {
-    return featureSet.stream().allMatch(this::goalIsSatisfied);
+    return unsatisfiedGoalCount == 0;
+  }
+
+
+  /**
+   * Returns the number of the feature at the given location.
+   */
+  int getNumber(int x, int y) {
+    return featureLayout.get(x, y);
   }
 
 
@@ -140,17 +198,22 @@ public class Blueprint<E extends BlueprintFeature> {
    * Returns (a copy of) the Array2D described by this blueprint.
    */
   public Array2D<E> build() {
-    return new Array2D<>(featureLayout);
+    final Array2D<E> built = new Array2D<>(featureLayout.getDimension());
+    featureLayout.forEachRow((y, numbers, start, end) -> {
+      for (int i = start; i < end; i++) {
+        built.put(features[numbers[i]], i - start, y);
+      }
+    });
+    return built;
   }
 
 
   public E get(int x, int y) {
-    return featureLayout.get(x, y);
+    return features[featureLayout.get(x, y)];
   }
 
 
   public int getFeatureCount(E feature) {
-    containsCheck(feature);
-    return featureCountGoals.get(feature);
+    return featureCountGoals[getFeatureNumber(feature)];
   }
 }
\ No newline at end of file
@@ -1,14 +1,14 @@
 package world.blueprint;
 
 import game.Direction;
-import game.Game;
 import utils.Dimension;
 import utils.IntegerRange;
+import utils.SimplexNoise;
 
 import java.awt.Point;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.SplittableRandom;
 
 /**
  * Exposes methods that produce Blueprints via different algorithms. Each method takes a dimension
@@ -20,6 +20,8 @@ public final class BlueprintFactory {
 
   private static final double patchesStrictness = 1.00;
   private static final double crawlerStrictness = 1.00;
+  private static final double noiseStrictness = 1.00;
+  private static final int noiseBuckets = 1024;
   private static final IntegerRange crawlerTurningRadius = new IntegerRange(0, 7);
   private static final IntegerRange crawlerAverageChunkCountRange = new IntegerRange(1, 10);
 
@@ -32,23 +34,22 @@ public final class BlueprintFactory {
    *
    * @param patchMaxRadius  The maximum distance a patch can extend from its center point.
    * @param patchPatchiness The chance each square in a patch will not be applied.
+   * @param random          The stream to draw every random choice from.
    */
   public static <E extends BlueprintFeature> Blueprint<E> generateWithPatches(Dimension dimension,
-      Set<E> featureSet, int patchMaxRadius, double patchPatchiness) {
+      Set<E> featureSet, int patchMaxRadius, double patchPatchiness, SplittableRandom random) {
 
     final Blueprint<E> blueprint = new Blueprint<>(dimension, featureSet, patchesStrictness);
 
-    final List<E> featureList = featureSet.stream().collect(Collectors.toList());
-    int featureIndex = 0;
+    final int featureCount = blueprint.getFeatureCountTotal();
+    int feature = 0;
     boolean goalsUnsatisfied = true;
 
     while (goalsUnsatisfied) {
 
-      final E feature = featureList.get(featureIndex);
-
       // If this feature's goal has not been met, place a patch of it.
       if (!blueprint.goalIsSatisfied(feature)) {
-        placePatch(blueprint, dimension, feature, patchMaxRadius, patchPatchiness);
+        placePatch(blueprint, dimension, feature, patchMaxRadius, patchPatchiness, random);
       }
 
       // If we hit a met goal, check if all goals are met.
@@ -58,7 +59,7 @@ public final class BlueprintFactory {
 
       // If goal is still unmet, prepare for next loop cycle by advancing index.
       if (goalsUnsatisfied) {
-        featureIndex = (featureIndex + 1) % featureList.size();
+        feature = (feature + 1) % featureCount;
       }
     }
 
@@ -67,11 +68,12 @@ public final class BlueprintFactory {
 
 
   private static <T extends BlueprintFeature> void placePatch(Blueprint<T> bundle,
-      Dimension dimension, T placingFeature, int patchMaxRadius, double patchPatchiness) {
+      Dimension dimension, int placingFeature, int patchMaxRadius, double patchPatchiness,
+      SplittableRandom random) {
 
-    final int patchRadius = Game.RANDOM.nextInt(patchMaxRadius);
-    final int x = Game.RANDOM.nextInt(dimension.getWidth());
-    final int y = Game.RANDOM.nextInt(dimension.getHeight());
+    final int patchRadius = random.nextInt(patchMaxRadius);
+    final int x = random.nextInt(dimension.getWidth());
+    final int y = random.nextInt(dimension.getHeight());
 
     // loop through all candidate terrain slots within the patch
     for (int adjY = y - patchRadius; adjY < y + patchRadius; adjY++) {
@@ -83,7 +85,7 @@ public final class BlueprintFactory {
         }
 
         // check if this spot represents a hole in the patch
-        if (Game.RANDOM.nextDouble() > patchPatchiness) {
+        if (random.nextDouble() > patchPatchiness) {
           bundle.putFeature(placingFeature, adjX, adjY);
         }
       }
@@ -96,20 +98,23 @@ public final class BlueprintFactory {
    * series of random walks across the map, drawing that feature in its wake until its goal is
    * reached, then moving to the next feature until all are done. It will not overwrite a feature it
    * has already added, and will jump to a random new position if it has too many of these
-   * collisions in a row or it walks off the edge of the map.
+   * collisions in a row or it walks off the edge of the map. Every random choice is drawn from the
+   * given stream.
    */
   public static <T extends BlueprintFeature> Blueprint<T> generateWithCrawler(Dimension dimension,
-      Set<T> featureSet) {
+      Set<T> featureSet, SplittableRandom random) {
 
     final Blueprint<T> blueprint = new Blueprint<>(dimension, featureSet, crawlerStrictness);
 
     final int width = dimension.getWidth();
     final int height = dimension.getHeight();
 
+    final int mostCommonFeature = blueprint.getMostCommonFeatureNumber();
+
     // For each feature, draw random walks across the map until its goal is met.
-    for (T feature : featureSet) {
+    for (int feature = 0; feature < blueprint.getFeatureCountTotal(); feature++) {
 
-      if (feature == blueprint.getMostCommonFeature()) {
+      if (feature == mostCommonFeature) {
         continue; // Skip the most common feature since the map was filled with this already.
       }
 
@@ -118,21 +123,21 @@ public final class BlueprintFactory {
       // clumps. Large numbers produce few large clumps. This number should be less than the
       // maximum quantity for the feature being placed.
       // The divisor determines the average number of clumps. 4 to 8 are good values for areas.
-      final int averageChunkCount = crawlerAverageChunkCountRange.getRandomWithin(Game.RANDOM);
-      final int collisionLimit = blueprint.getFeatureCountGoals().get(feature) / averageChunkCount;
+      final int averageChunkCount = crawlerAverageChunkCountRange.getRandomWithin(random);
+      final int collisionLimit = blueprint.getFeatureCountGoal(feature) / averageChunkCount;
 
       // Keep track of feature collisions.
       int featureCollisions = 0;
 
       // Pick an initial location and direction to start placing this feature.
-      final Point position = new Point(Game.RANDOM.nextInt(width), Game.RANDOM.nextInt(height));
-      Direction direction = Direction.getRandom();
+      final Point position = new Point(random.nextInt(width), random.nextInt(height));
+      Direction direction = Direction.getRandom(random);
 
       // Place this feature until we reach its goal.
       while (!blueprint.goalIsSatisfied(feature)) {
 
         // Turn to a random direction within range.
-        direction = direction.turn(crawlerTurningRadius.getRandomWithin(Game.RANDOM));
+        direction = direction.turn(crawlerTurningRadius.getRandomWithin(random));
 
         // Move in that direction.
         position.translate(direction.relativeX, direction.relativeY);
@@ -140,13 +145,13 @@ public final class BlueprintFactory {
         // If we exceed the map bounds or the collision limit, we must start a new walk.
         if (!dimension.getCoordinateIsWithinBounds(position)
             || featureCollisions == collisionLimit) {
-          position.setLocation(Game.RANDOM.nextInt(width), Game.RANDOM.nextInt(height));
+          position.setLocation(random.nextInt(width), random.nextInt(height));
           featureCollisions = 0;  // Reset to zero since we moved
         }
 
         // Otherwise, if we hit a feature that isn't the most common type (i.e. a tile that has
         // already been crawled over), increment the collision count.
-        else if (blueprint.get(position.x, position.y) != blueprint.getMostCommonFeature()) {
+        else if (blueprint.getNumber(position.x, position.y) != mostCommonFeature) {
           featureCollisions++;
         }
 
@@ -159,4 +164,143 @@ public final class BlueprintFactory {
 
     return blueprint;
   }
+
+
+  /**
+   * This method uses gradient noise to generate the map. Each feature has a noise field of its own,
+   * made by adding up a few octaves of simplex noise, each twice as fine and half as strong as the
+   * last. Starting with the rarest, each feature takes the squares not yet taken where its field is
+   * highest, as many as its goal. The most common feature keeps whatever is left. So each feature
+   * lies in smooth blobs, wherever its field peaks.
+   * <p>
+   * Unlike the other methods, this one does not keep going until every goal is met, but meets each
+   * goal exactly in one pass, so it takes the same time for a given size of map and number of
+   * features, however they are weighted.
+   *
+   * @param featureSize The width, in squares, of a typical blob of one feature.
+   * @param octaves     The number of layers of noise, from coarsest to finest, to add up.
+   * @param random      The stream to draw every random choice from.
+   */
+  public static <E extends BlueprintFeature> Blueprint<E> generateWithNoise(Dimension dimension,
+      Set<E> featureSet, double featureSize, int octaves, SplittableRandom random) {
+
+    final Blueprint<E> blueprint = new Blueprint<>(dimension, featureSet, noiseStrictness);
+
+    final int width = dimension.getWidth();
+    final int height = dimension.getHeight();
+    final int mostCommonFeature = blueprint.getMostCommonFeatureNumber();
+
+    // Rarest first, by weight and then by place in the set. The most common feature goes last.
+    final int[] featureOrder = new int[blueprint.getFeatureCountTotal()];
+    for (int feature = 0; feature < featureOrder.length; feature++) {
+      featureOrder[feature] = feature;
+    }
+    for (int i = 1; i < featureOrder.length; i++) {
+      final int feature = featureOrder[i];
+      final int weight = blueprint.getFeature(feature).getWeight();
+      int j = i;
+      while (j > 0 && blueprint.getFeature(featureOrder[j - 1]).getWeight() > weight) {
+        featureOrder[j] = featureOrder[j - 1];
+        j--;
+      }
+      featureOrder[j] = feature;
+    }
+
+    final double[] field = new double[dimension.getArea()];
+    final int[] bucketCounts = new int[noiseBuckets];
+    final boolean[] taken = new boolean[field.length];
+
+    for (int feature : featureOrder) {
+      if (feature == mostCommonFeature) {
+        continue; // The map was filled with the most common feature already.
+      }
+
+      sampleNoise(new SimplexNoise(random), field, width, height, featureSize, octaves);
+
+      // Count the squares not yet taken into buckets by their value in the field, then find the
+      // bucket holding the lowest value the feature takes.
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      for (int index = 0; index < field.length; index++) {
+        if (!taken[index]) {
+          min = Math.min(min, field[index]);
+          max = Math.max(max, field[index]);
+        }
+      }
+      final double scale = (noiseBuckets - 1) / Math.max(max - min, Double.MIN_NORMAL);
+
+      Arrays.fill(bucketCounts, 0);
+      for (int index = 0; index < field.length; index++) {
+        if (!taken[index]) {
+          bucketCounts[(int) ((field[index] - min) * scale)]++;
+        }
+      }
+
+      int lowestBucket = noiseBuckets;
+      int remaining = blueprint.getFeatureCountGoal(feature);
+      while (lowestBucket > 0 && remaining > bucketCounts[lowestBucket - 1]) {
+        remaining -= bucketCounts[--lowestBucket];
+      }
+      lowestBucket--;
+
+      // Take every square above that bucket, and as many in it as are still needed.
+      for (int index = 0; index < field.length; index++) {
+        if (taken[index]) {
+          continue;
+        }
+        final int bucket = (int) ((field[index] - min) * scale);
+        if (bucket > lowestBucket || bucket == lowestBucket && remaining-- > 0) {
+          taken[index] = true;
+          blueprint.putFeature(feature, index % width, index / width);
+        }
+      }
+    }
+
+    return blueprint;
+  }
+
+
+  /**
+   * Fills {@code field} with octaves of the given noise, row by row. The noise is only sampled
+   * every few squares, at most a quarter of a blob's width apart, and the squares between are
+   * interpolated from the samples around them, which costs far less than sampling every square and
+   * looks much the same at that scale.
+   */
+  private static void sampleNoise(SimplexNoise noise, double[] field, int width, int height,
+      double featureSize, int octaves) {
+
+    final int spacing = Math.max(1, (int) (featureSize / 4));
+    final int sampleWidth = (width - 1) / spacing + 2;
+    final int sampleHeight = (height - 1) / spacing + 2;
+
+    // Add up the octaves a row of samples at a time, each offset so their lattices don't line up.
+    final double[] samples = new double[sampleWidth * sampleHeight];
+    for (int row = 0; row < sampleHeight; row++) {
+      double frequency = spacing / featureSize;
+      double amplitude = 1.0;
+      for (int octave = 0; octave < octaves; octave++) {
+        noise.addRow(samples, row * sampleWidth, sampleWidth, octave * 64.5,
+            octave * 64.5 + row * frequency, frequency, amplitude);
+        frequency *= 2.0;
+        amplitude *= 0.5;
+      }
+    }
+
+    // Interpolate each square between the four samples around it.
+    for (int y = 0; y < height; y++) {
+      final int above = y / spacing * sampleWidth;
+      final int below = above + sampleWidth;
+      final double down = y % spacing / (double) spacing;
+
+      for (int x = 0; x < width; x++) {
+        final int left = x / spacing;
+        final double across = x % spacing / (double) spacing;
+        final double top = samples[above + left]
+            + (samples[above + left + 1] - samples[above + left]) * across;
+        final double bottom = samples[below + left]
+            + (samples[below + left + 1] - samples[below + left]) * across;
+        field[y * width + x] = top + (bottom - top) * down;
+      }
+    }
+  }
 }
\ No newline at end of file